@@ -0,0 +1,35 @@
+package com.faunadb.loadtest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * The formats a load test can speak to the API in,
+ * for both request and response payloads.
+ */
+public enum Format {
+
+    JSON("application/json", JsonFactory::new),
+    CBOR("application/cbor", CBORFactory::new),
+    SMILE("application/x-jackson-smile", SmileFactory::new);
+
+    private final String mediaType;
+    private final Supplier<JsonFactory> factory;
+
+    Format(String mediaType, Supplier<JsonFactory> factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public ObjectMapper createObjectMapper() {
+        return new ObjectMapper(factory.get());
+    }
+}
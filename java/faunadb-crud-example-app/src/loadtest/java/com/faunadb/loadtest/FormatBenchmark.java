@@ -0,0 +1,90 @@
+package com.faunadb.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.faunadb.model.Post;
+import com.faunadb.model.common.Page;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * <p>It compares the response formats the API supports on a
+ * {@link Page} of {@link Post}s, in process and without any network.</p>
+ *
+ * <p>For each format, it reports the size of the encoded Page, and the CPU time
+ * spent encoding it, as the API does, and decoding it, as a client would.
+ * The ObjectMappers are set up like the application ones.</p>
+ *
+ * <pre>
+ * LoadTest formats --page-size=64
+ * </pre>
+ */
+public class FormatBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 20000;
+    private static final int MEASURED_ITERATIONS = 20000;
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final Map<Format, ObjectMapper> mappers = new EnumMap<>(Format.class);
+    private final Page<Post> page;
+
+    public FormatBenchmark(int pageSize) {
+        for(Format format : Format.values()) {
+            // Same settings as the application ones, see spring.jackson.* properties
+            ObjectMapper mapper = format.createObjectMapper()
+                .findAndRegisterModules()
+                .setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+            mappers.put(format, mapper);
+        }
+
+        List<Post> posts = new ArrayList<>(pageSize);
+        for(int i = 0; i < pageSize; i++) {
+            String id = String.valueOf(230000000000000000L + i);
+            posts.add(new Post(id, "Post number " + i + " about travel and food", Arrays.asList("travel", "food", "tag" + (i % 7))));
+        }
+        page = new Page<>(posts, Optional.of(posts.get(0).getId()), Optional.of(String.valueOf(230000000000000000L + pageSize)));
+    }
+
+    /**
+     * It runs the benchmark and prints the results.
+     *
+     * @param out the stream to print to
+     * @throws IOException if any format fails to encode or decode the Page
+     */
+    public void run(PrintStream out) throws IOException {
+        out.printf("%nPage of %d Posts, %d iterations per format%n", page.getData().size(), MEASURED_ITERATIONS);
+        out.printf("%-8s %10s %8s %16s %16s%n", "format", "bytes", "vs json", "encode (us/page)", "decode (us/page)");
+
+        double jsonBytes = 0;
+        for(Map.Entry<Format, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] encoded = mapper.writeValueAsBytes(page);
+            if(jsonBytes == 0) jsonBytes = encoded.length;
+
+            for(int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                mapper.readTree(mapper.writeValueAsBytes(page));
+            }
+
+            long start = threads.getCurrentThreadCpuTime();
+            for(int i = 0; i < MEASURED_ITERATIONS; i++) mapper.writeValueAsBytes(page);
+            long encodeNanos = threads.getCurrentThreadCpuTime() - start;
+
+            start = threads.getCurrentThreadCpuTime();
+            for(int i = 0; i < MEASURED_ITERATIONS; i++) mapper.readTree(encoded);
+            long decodeNanos = threads.getCurrentThreadCpuTime() - start;
+
+            out.printf("%-8s %10d %7.0f%% %16.2f %16.2f%n", entry.getKey().name().toLowerCase(), encoded.length, encoded.length * 100 / jsonBytes,
+                encodeNanos / 1000.0 / MEASURED_ITERATIONS, decodeNanos / 1000.0 / MEASURED_ITERATIONS);
+        }
+    }
+}
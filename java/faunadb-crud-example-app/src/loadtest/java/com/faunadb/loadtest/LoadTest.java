@@ -0,0 +1,102 @@
+package com.faunadb.loadtest;
+
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.Response;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+
+/**
+ * <p>Command line entry point for load testing the Posts API.</p>
+ *
+ * <p>It seeds the Posts to read, replace and remove, runs the given workload with an
+ * {@link OpenLoopGenerator}, and reports the results. Alternatively, it compares the
+ * JSON summaries of two previous runs, the response formats, see {@link FormatBenchmark},
+ * the rate limiting overhead, see {@link RateLimitBenchmark}, or the query templates,
+ * see {@link QueryTemplateBenchmark}:</p>
+ *
+ * <pre>
+ * LoadTest --workload=read-heavy --rate=500 --duration=60s --label=baseline
+ * LoadTest compare baseline-read-heavy.json candidate-read-heavy.json
+ * LoadTest formats --page-size=64
+ * LoadTest rate-limit --clients=10000 --threads=4
+ * LoadTest templates
+ * </pre>
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        if(args.length > 0 && args[0].equals("compare")) {
+            if(args.length != 3) throw new IllegalArgumentException("Expected compare <baseline.json> <candidate.json>");
+            LoadTestResults.compare(new File(args[1]), new File(args[2]), System.out);
+            return;
+        }
+
+        if(args.length > 0 && args[0].equals("formats")) {
+            LoadTestOptions options = LoadTestOptions.parse(Arrays.copyOfRange(args, 1, args.length));
+            new FormatBenchmark(options.getPageSize()).run(System.out);
+            return;
+        }
+
+        if(args.length > 0 && args[0].equals("rate-limit")) {
+            LoadTestOptions options = LoadTestOptions.parse(Arrays.copyOfRange(args, 1, args.length));
+            new RateLimitBenchmark(options.getClients(), options.getThreads(), options.getBulkSize()).run(System.out);
+            return;
+        }
+
+        if(args.length > 0 && args[0].equals("templates")) {
+            new QueryTemplateBenchmark().run(System.out);
+            return;
+        }
+
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        DefaultAsyncHttpClientConfig config = new DefaultAsyncHttpClientConfig.Builder()
+            .setMaxConnections(options.getMaxConnections())
+            .setMaxConnectionsPerHost(options.getMaxConnections())
+            .setRequestTimeout((int) options.getTimeout().toMillis())
+            .build();
+
+        try(AsyncHttpClient client = asyncHttpClient(config)) {
+            LoadTestContext context = new LoadTestContext(client, options);
+
+            seed(context);
+
+            System.out.printf("Running %s workload at %d req/s for %s after %s of warm-up%n",
+                options.getWorkload(), options.getRate(), options.getDuration(), options.getWarmUp());
+            LoadTestResults results = new OpenLoopGenerator(context, options.getWorkload()).run();
+
+            results.print(System.out);
+            System.out.printf("Report written to %s%n", results.write());
+        }
+    }
+
+    /**
+     * It creates Posts in bulk until there are as many
+     * known Ids as the seed-posts option asks for.
+     */
+    private static void seed(LoadTestContext context) throws Exception {
+        LoadTestOptions options = context.getOptions();
+        if(context.idCount() >= options.getSeedPosts()) return;
+
+        System.out.printf("Seeding %d Posts%n", options.getSeedPosts());
+        while(context.idCount() < options.getSeedPosts()) {
+            int size = Math.min(options.getBulkSize(), options.getSeedPosts() - context.idCount());
+            Response response = context.post("/posts", context.newPostDataList(size))
+                .execute()
+                .get(options.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+
+            if(response.getStatusCode() >= 400) {
+                throw new IllegalStateException("Failed to seed Posts: " + response.getStatusCode() + " " + response.getResponseBody());
+            }
+            Operation.CREATE_POSTS.onResponse(context, response);
+        }
+    }
+
+    private LoadTest() {
+    }
+}
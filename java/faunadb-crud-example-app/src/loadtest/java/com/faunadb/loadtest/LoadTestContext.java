@@ -0,0 +1,147 @@
+package com.faunadb.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.BoundRequestBuilder;
+import org.asynchttpclient.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>The state shared by all the requests of a load test.</p>
+ *
+ * <p>It keeps the pool of known Post Ids to read, replace and
+ * remove, and the cursor for scrolling through the Posts.</p>
+ *
+ * <p>Payloads are encoded and decoded in the {@link Format} the load test runs with.</p>
+ */
+public class LoadTestContext {
+
+    private static final String[] TAGS = { "pet", "cute", "travel", "food", "code", "music" };
+
+    private final AsyncHttpClient client;
+    private final LoadTestOptions options;
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper mapper;
+
+    private final List<String> ids = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile Optional<String> cursor = Optional.empty();
+
+    public LoadTestContext(AsyncHttpClient client, LoadTestOptions options) {
+        this.client = client;
+        this.options = options;
+        this.mapper = options.getFormat().createObjectMapper();
+    }
+
+    public LoadTestOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * It decodes the payload of the given response.
+     *
+     * @param response the response to decode the payload of
+     * @return the decoded payload
+     * @throws IOException if the payload cannot be decoded
+     */
+    public JsonNode readBody(Response response) throws IOException {
+        return mapper.readTree(response.getResponseBodyAsBytes());
+    }
+
+    public Optional<String> getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(Optional<String> cursor) {
+        this.cursor = cursor;
+    }
+
+    public synchronized void addId(String id) {
+        ids.add(id);
+    }
+
+    public synchronized int idCount() {
+        return ids.size();
+    }
+
+    /**
+     * It returns a known Id at random, or an Id
+     * matching no Post if none is known.
+     */
+    public synchronized String randomId() {
+        if(ids.isEmpty()) return "0";
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    /**
+     * It removes a known Id at random from the pool and returns it,
+     * or returns an Id matching no Post if none is known.
+     */
+    public synchronized String takeRandomId() {
+        if(ids.isEmpty()) return "0";
+        int index = ThreadLocalRandom.current().nextInt(ids.size());
+        String id = ids.get(index);
+        ids.set(index, ids.get(ids.size() - 1));
+        ids.remove(ids.size() - 1);
+        return id;
+    }
+
+    public ObjectNode newPostData() {
+        long n = sequence.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        ObjectNode data = json.createObjectNode();
+        data.put("title", "Load test post " + (n % 100));
+        ArrayNode tags = data.putArray("tags");
+        tags.add(TAGS[random.nextInt(TAGS.length)]);
+        tags.add(TAGS[random.nextInt(TAGS.length)]);
+        return data;
+    }
+
+    public ArrayNode newPostDataList(int size) {
+        ArrayNode list = json.createArrayNode();
+        for(int i = 0; i < size; i++) list.add(newPostData());
+        return list;
+    }
+
+    public BoundRequestBuilder get(String path) {
+        return accepting(client.prepareGet(options.getTarget() + path));
+    }
+
+    public BoundRequestBuilder delete(String path) {
+        return accepting(client.prepareDelete(options.getTarget() + path));
+    }
+
+    public BoundRequestBuilder post(String path, Object body) {
+        return withBody(client.preparePost(options.getTarget() + path), body);
+    }
+
+    public BoundRequestBuilder put(String path, Object body) {
+        return withBody(client.preparePut(options.getTarget() + path), body);
+    }
+
+    private BoundRequestBuilder accepting(BoundRequestBuilder request) {
+        return request.setHeader("Accept", options.getFormat().getMediaType());
+    }
+
+    private BoundRequestBuilder withBody(BoundRequestBuilder request, Object body) {
+        try {
+            return accepting(request)
+                .setHeader("Content-Type", options.getFormat().getMediaType())
+                .setBody(mapper.writeValueAsBytes(body));
+        } catch(JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.faunadb.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * It contains the settings of a load test run, parsed
+ * from {@code --name=value} command line arguments.
+ */
+public class LoadTestOptions {
+
+    private String target = "http://localhost:8080";
+    private Workload workload = Workload.READ_HEAVY;
+    private Format format = Format.JSON;
+    private int rate = 100;
+    private Duration duration = Duration.ofSeconds(60);
+    private Duration warmUp = Duration.ofSeconds(10);
+    private Duration timeout = Duration.ofSeconds(10);
+    private int maxConnections = 256;
+    private int seedPosts = 1000;
+    private int pageSize = 64;
+    private int bulkSize = 20;
+    private int clients = 10000;
+    private int threads = 4;
+    private String label = "run";
+    private String reportDirectory = ".";
+
+    /**
+     * It parses the given command line arguments.
+     *
+     * @param args the arguments, in {@code --name=value} form
+     * @return the parsed LoadTestOptions, with defaults for any missing one
+     * @throws IllegalArgumentException if any argument is unknown or invalid
+     */
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for(String arg : args) {
+            if(!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions();
+        values.forEach((name, value) -> options.set(name, value));
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch(name) {
+            case "target": target = value; break;
+            case "workload": workload = Workload.valueOf(value.toUpperCase().replace('-', '_')); break;
+            case "format": format = Format.valueOf(value.toUpperCase()); break;
+            case "rate": rate = Integer.parseInt(value); break;
+            case "duration": duration = Duration.parse("PT" + value.toUpperCase()); break;
+            case "warm-up": warmUp = Duration.parse("PT" + value.toUpperCase()); break;
+            case "timeout": timeout = Duration.parse("PT" + value.toUpperCase()); break;
+            case "max-connections": maxConnections = Integer.parseInt(value); break;
+            case "seed-posts": seedPosts = Integer.parseInt(value); break;
+            case "page-size": pageSize = Integer.parseInt(value); break;
+            case "bulk-size": bulkSize = Integer.parseInt(value); break;
+            case "clients": clients = Integer.parseInt(value); break;
+            case "threads": threads = Integer.parseInt(value); break;
+            case "label": label = value; break;
+            case "report-directory": reportDirectory = value; break;
+            default: throw new IllegalArgumentException("Unknown option --" + name);
+        }
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public Workload getWorkload() {
+        return workload;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getWarmUp() {
+        return warmUp;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getSeedPosts() {
+        return seedPosts;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getBulkSize() {
+        return bulkSize;
+    }
+
+    public int getClients() {
+        return clients;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getReportDirectory() {
+        return reportDirectory;
+    }
+}
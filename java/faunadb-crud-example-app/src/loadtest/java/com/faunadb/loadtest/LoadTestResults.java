@@ -0,0 +1,177 @@
+package com.faunadb.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The results of a load test run, per {@link Operation}.</p>
+ *
+ * <p>Latencies are reported in milliseconds. They are written along with the
+ * run settings as a JSON summary, named after the run label and workload, so that
+ * runs can be compared with each other, and as HdrHistogram percentile distribution
+ * files ({@code .hgrm}) which can be plotted with the HdrHistogram tools.</p>
+ */
+public class LoadTestResults {
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private static final ObjectMapper json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final LoadTestOptions options;
+    private final Map<Operation, Histogram> latencies;
+    private final Map<Operation, Histogram> serviceTimes;
+    private final Map<Operation, Long> errors;
+    private final long measuredNanos;
+    private final int unfinished;
+
+    public LoadTestResults(LoadTestOptions options, Map<Operation, Histogram> latencies, Map<Operation, Histogram> serviceTimes,
+                           Map<Operation, Long> errors, long measuredNanos, int unfinished) {
+        this.options = options;
+        this.latencies = latencies;
+        this.serviceTimes = serviceTimes;
+        this.errors = errors;
+        this.measuredNanos = measuredNanos;
+        this.unfinished = unfinished;
+    }
+
+    /**
+     * It prints a summary table of the results.
+     *
+     * @param out the stream to print to
+     */
+    public void print(PrintStream out) {
+        out.printf("%n%s: %s workload at %d req/s for %s%n", options.getLabel(), options.getWorkload(), options.getRate(), options.getDuration());
+        out.printf("%-14s %9s %9s %8s %9s %9s %9s %9s %9s%n", "operation", "count", "req/s", "errors", "p50", "p90", "p99", "p99.9", "max");
+
+        latencies.forEach((operation, histogram) -> {
+            out.printf("%-14s %9d %9.1f %8d", operation, histogram.getTotalCount(), rate(histogram), errors.get(operation));
+            for(double percentile : PERCENTILES) out.printf(" %9.2f", millis(histogram.getValueAtPercentile(percentile)));
+            out.printf(" %9.2f%n", millis(histogram.getMaxValue()));
+        });
+
+        if(unfinished > 0) out.printf("%d requests were still outstanding after the timeout%n", unfinished);
+    }
+
+    /**
+     * It writes the JSON summary and the percentile
+     * distributions to the report directory.
+     *
+     * @return the JSON summary file
+     * @throws IOException if any file cannot be written
+     */
+    public File write() throws IOException {
+        File directory = new File(options.getReportDirectory());
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create report directory " + directory);
+        }
+
+        String name = options.getLabel() + "-" + options.getWorkload().name().toLowerCase().replace('_', '-');
+
+        for(Map.Entry<Operation, Histogram> entry : latencies.entrySet()) {
+            String operation = entry.getKey().name().toLowerCase().replace('_', '-');
+            try(PrintStream out = new PrintStream(new FileOutputStream(new File(directory, name + "-" + operation + ".hgrm")))) {
+                entry.getValue().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+
+        File summary = new File(directory, name + ".json");
+        json.writeValue(summary, toJson());
+        return summary;
+    }
+
+    /**
+     * It prints how the latencies and error counts
+     * changed from a baseline run to another one.
+     *
+     * @param baseline the JSON summary of the baseline run
+     * @param candidate the JSON summary of the run to compare with the baseline
+     * @param out the stream to print to
+     * @throws IOException if any summary cannot be read
+     */
+    public static void compare(File baseline, File candidate, PrintStream out) throws IOException {
+        JsonNode before = json.readTree(baseline);
+        JsonNode after = json.readTree(candidate);
+
+        out.printf("%n%s (%s) vs %s (%s)%n", after.path("label").asText(), after.path("workload").asText(),
+            before.path("label").asText(), before.path("workload").asText());
+        if(!before.path("rate").equals(after.path("rate")) || !before.path("workload").equals(after.path("workload"))) {
+            out.println("Warning: runs were made with different workloads or rates");
+        }
+        out.printf("%-14s %-8s %12s %12s %9s%n", "operation", "metric", "baseline", "candidate", "change");
+
+        Iterator<Map.Entry<String, JsonNode>> operations = after.path("operations").fields();
+        while(operations.hasNext()) {
+            Map.Entry<String, JsonNode> operation = operations.next();
+            JsonNode previous = before.path("operations").path(operation.getKey());
+            if(previous.isMissingNode()) continue;
+
+            Iterator<String> metrics = operation.getValue().path("latency").fieldNames();
+            while(metrics.hasNext()) {
+                String metric = metrics.next();
+                printChange(out, operation.getKey(), metric,
+                    previous.path("latency").path(metric).asDouble(), operation.getValue().path("latency").path(metric).asDouble());
+            }
+            printChange(out, operation.getKey(), "errors",
+                previous.path("errors").asDouble(), operation.getValue().path("errors").asDouble());
+        }
+    }
+
+    private static void printChange(PrintStream out, String operation, String metric, double before, double after) {
+        String change = before == 0 ? "n/a" : String.format("%+.1f%%", (after - before) * 100 / before);
+        out.printf("%-14s %-8s %12.2f %12.2f %9s%n", operation, metric, before, after, change);
+    }
+
+    private ObjectNode toJson() {
+        ObjectNode root = json.createObjectNode();
+        root.put("label", options.getLabel());
+        root.put("workload", options.getWorkload().name());
+        root.put("target", options.getTarget());
+        root.put("rate", options.getRate());
+        root.put("duration", options.getDuration().toString());
+        root.put("warmUp", options.getWarmUp().toString());
+        root.put("unfinished", unfinished);
+
+        ObjectNode operations = root.putObject("operations");
+        latencies.forEach((operation, histogram) -> {
+            ObjectNode node = operations.putObject(operation.name());
+            node.put("count", histogram.getTotalCount());
+            node.put("rate", rate(histogram));
+            node.put("errors", errors.get(operation));
+            node.set("latency", percentiles(histogram));
+            node.set("serviceTime", percentiles(serviceTimes.get(operation)));
+        });
+
+        return root;
+    }
+
+    private ObjectNode percentiles(Histogram histogram) {
+        ObjectNode node = json.createObjectNode();
+        for(double percentile : PERCENTILES) {
+            node.put("p" + (percentile == (long) percentile ? String.valueOf((long) percentile) : String.valueOf(percentile)),
+                millis(histogram.getValueAtPercentile(percentile)));
+        }
+        node.put("max", millis(histogram.getMaxValue()));
+        node.put("mean", histogram.getMean() / MICROS_PER_MILLI);
+        return node;
+    }
+
+    private double rate(Histogram histogram) {
+        return histogram.getTotalCount() / (measuredNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+}
@@ -0,0 +1,131 @@
+package com.faunadb.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.asynchttpclient.Response;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>An open-loop load generator.</p>
+ *
+ * <p>Requests are sent on a fixed schedule derived from the target rate, whether
+ * or not the previous ones have completed, the way independent clients would.
+ * The latency of each request is measured from the time it was scheduled to be
+ * sent rather than from the time it was actually sent. Hence, if the generator
+ * or the service fall behind, the time requests spend waiting for their turn is
+ * accounted for, instead of being silently omitted (i.e. coordinated omission).</p>
+ *
+ * <p>The service time, from the time each request was actually sent, is
+ * recorded as well. A wide gap between both means the target rate was not
+ * sustained.</p>
+ *
+ * <p>Only the requests scheduled after the warm-up period are recorded.</p>
+ */
+public class OpenLoopGenerator {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final LoadTestContext context;
+    private final Workload workload;
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Recorder> serviceTimes = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    public OpenLoopGenerator(LoadTestContext context, Workload workload) {
+        this.context = context;
+        this.workload = workload;
+
+        for(Operation operation : workload.getOperations()) {
+            latencies.put(operation, new Recorder(SIGNIFICANT_DIGITS));
+            serviceTimes.put(operation, new Recorder(SIGNIFICANT_DIGITS));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * It sends requests at the configured rate for the warm-up and measured periods,
+     * and then waits for the outstanding ones up to the request timeout.
+     *
+     * @return the results for the requests scheduled during the measured period
+     * @throws InterruptedException if interrupted while waiting for the outstanding requests
+     */
+    public LoadTestResults run() throws InterruptedException {
+        LoadTestOptions options = context.getOptions();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.getWarmUp().toNanos();
+        long end = measureFrom + options.getDuration().toNanos();
+
+        for(long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if(intended >= end) break;
+
+            long now;
+            while((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+
+            send(workload.next(), intended, intended >= measureFrom);
+        }
+
+        long deadline = System.nanoTime() + options.getTimeout().toNanos();
+        while(outstanding.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        Map<Operation, Histogram> latencyHistograms = new EnumMap<>(Operation.class);
+        Map<Operation, Histogram> serviceTimeHistograms = new EnumMap<>(Operation.class);
+        Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+        for(Operation operation : workload.getOperations()) {
+            latencyHistograms.put(operation, latencies.get(operation).getIntervalHistogram());
+            serviceTimeHistograms.put(operation, serviceTimes.get(operation).getIntervalHistogram());
+            errorCounts.put(operation, errors.get(operation).sum());
+        }
+
+        return new LoadTestResults(options, latencyHistograms, serviceTimeHistograms, errorCounts, end - measureFrom, outstanding.get());
+    }
+
+    private void send(Operation operation, long intended, boolean measured) {
+        outstanding.incrementAndGet();
+        long sent = System.nanoTime();
+
+        try {
+            operation.request(context)
+                .setRequestTimeout((int) context.getOptions().getTimeout().toMillis())
+                .execute()
+                .toCompletableFuture()
+                .whenComplete((response, throwable) -> complete(operation, intended, sent, measured, response, throwable));
+        } catch(RuntimeException e) {
+            complete(operation, intended, sent, measured, null, e);
+        }
+    }
+
+    private void complete(Operation operation, long intended, long sent, boolean measured, Response response, Throwable throwable) {
+        long completed = System.nanoTime();
+        outstanding.decrementAndGet();
+
+        boolean success = throwable == null && response.getStatusCode() < 400;
+        if(success) {
+            try {
+                operation.onResponse(context, response);
+            } catch(Exception e) {
+                success = false;
+            }
+        }
+
+        if(!measured) return;
+
+        latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(completed - intended));
+        serviceTimes.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(completed - sent));
+        if(!success) errors.get(operation).increment();
+    }
+}
@@ -0,0 +1,98 @@
+package com.faunadb.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.asynchttpclient.BoundRequestBuilder;
+import org.asynchttpclient.Response;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * <p>The requests a load test can send to the Posts API.</p>
+ *
+ * <p>Each operation builds up its request from the shared {@link LoadTestContext},
+ * and updates it back from the response, e.g. with the Ids of the created Posts.</p>
+ */
+public enum Operation {
+
+    GET_POST {
+        @Override
+        BoundRequestBuilder request(LoadTestContext context) {
+            return context.get("/posts/" + context.randomId());
+        }
+    },
+
+    SCROLL_POSTS {
+        @Override
+        BoundRequestBuilder request(LoadTestContext context) {
+            String query = "?size=" + context.getOptions().getPageSize() +
+                context.getCursor().map(after -> "&after=" + after).orElse("");
+            return context.get("/posts" + query);
+        }
+
+        @Override
+        void onResponse(LoadTestContext context, Response response) throws IOException {
+            JsonNode page = context.readBody(response);
+            context.setCursor(Optional.ofNullable(page.get("after")).filter(after -> !after.isNull()).map(JsonNode::asText));
+        }
+    },
+
+    CREATE_POST {
+        @Override
+        BoundRequestBuilder request(LoadTestContext context) {
+            return context.post("/posts", context.newPostData());
+        }
+
+        @Override
+        void onResponse(LoadTestContext context, Response response) throws IOException {
+            context.addId(context.readBody(response).get("id").asText());
+        }
+    },
+
+    CREATE_POSTS {
+        @Override
+        BoundRequestBuilder request(LoadTestContext context) {
+            return context.post("/posts", context.newPostDataList(context.getOptions().getBulkSize()));
+        }
+
+        @Override
+        void onResponse(LoadTestContext context, Response response) throws IOException {
+            context.readBody(response).forEach(post -> context.addId(post.get("id").asText()));
+        }
+    },
+
+    REPLACE_POST {
+        @Override
+        BoundRequestBuilder request(LoadTestContext context) {
+            return context.put("/posts/" + context.randomId(), context.newPostData());
+        }
+    },
+
+    DELETE_POST {
+        @Override
+        BoundRequestBuilder request(LoadTestContext context) {
+            // Removed Ids are put back by a later create, keeping the pool size steady
+            String id = context.takeRandomId();
+            return context.delete("/posts/" + id);
+        }
+    };
+
+    /**
+     * It builds up the request to send.
+     *
+     * @param context the shared load test state
+     * @return the request to send
+     */
+    abstract BoundRequestBuilder request(LoadTestContext context);
+
+    /**
+     * It updates the shared load test state from a successful
+     * response. By default, it does nothing.
+     *
+     * @param context the shared load test state
+     * @param response the successful response
+     * @throws IOException if the response cannot be read
+     */
+    void onResponse(LoadTestContext context, Response response) throws IOException {
+    }
+}
@@ -0,0 +1,137 @@
+package com.faunadb.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.faunadb.client.query.Expr;
+import com.faunadb.model.Post;
+import com.faunadb.persistence.common.QueryTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.faunadb.client.query.Language.Class;
+import static com.faunadb.client.query.Language.Create;
+import static com.faunadb.client.query.Language.Exists;
+import static com.faunadb.client.query.Language.Get;
+import static com.faunadb.client.query.Language.If;
+import static com.faunadb.client.query.Language.Index;
+import static com.faunadb.client.query.Language.Lambda;
+import static com.faunadb.client.query.Language.Let;
+import static com.faunadb.client.query.Language.Map;
+import static com.faunadb.client.query.Language.Match;
+import static com.faunadb.client.query.Language.Obj;
+import static com.faunadb.client.query.Language.Paginate;
+import static com.faunadb.client.query.Language.Ref;
+import static com.faunadb.client.query.Language.Replace;
+import static com.faunadb.client.query.Language.Select;
+import static com.faunadb.client.query.Language.Value;
+import static com.faunadb.client.query.Language.Var;
+
+/**
+ * <p>It compares issuing the hot repository queries through a {@link QueryTemplate}
+ * with building them from scratch on every call, in process and without any network.</p>
+ *
+ * <p>For each query, it reports the CPU time and the bytes allocated per call to get
+ * the query and serialize it the way the FaunaClient does, i.e. into a tree first and
+ * then into the request body. The queries have the same shape as the repository ones,
+ * and both ways are checked to produce the same body before measuring.</p>
+ *
+ * <pre>
+ * LoadTest templates
+ * </pre>
+ */
+public class QueryTemplateBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 100_000;
+    private static final int MEASURED_ITERATIONS = 100_000;
+
+    private static final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Same settings the FaunaClient serializes queries with
+    private final ObjectMapper json = new ObjectMapper().findAndRegisterModules();
+
+    private final Map<String, Function<Boolean, Expr>> queries = new LinkedHashMap<>();
+
+    public QueryTemplateBenchmark() {
+        String id = "230000000000000042";
+        Post post = new Post(id, "Post number 42 about travel and food", Arrays.asList("travel", "food", "tag0"));
+
+        QueryTemplate find = QueryTemplate.of(findQuery(QueryTemplate.param(0)));
+        queries.put("find", templated -> templated ? find.bind(Value(id)) : findQuery(Value(id)));
+
+        QueryTemplate save = QueryTemplate.of(saveQuery(QueryTemplate.param(0), QueryTemplate.param(1)));
+        queries.put("save", templated -> templated ? save.bind(Value(id), Value(post)) : saveQuery(Value(id), Value(post)));
+
+        QueryTemplate findAll = QueryTemplate.of(findAllQuery(QueryTemplate.param(0), QueryTemplate.param(1)));
+        queries.put("findAll", templated -> templated ? findAll.bind(Value(64), Value(id)) : findAllQuery(Value(64), Value(id)));
+    }
+
+    /**
+     * It runs the benchmark and prints the results.
+     *
+     * @param out the stream to print to
+     * @throws IOException if any query fails to serialize
+     */
+    public void run(PrintStream out) throws IOException {
+        out.printf("%n%d iterations per query%n", MEASURED_ITERATIONS);
+        out.printf("%-8s %-9s %10s %14s %16s%n", "query", "built", "bytes", "cpu (us/call)", "alloc (B/call)");
+
+        for(Map.Entry<String, Function<Boolean, Expr>> entry : queries.entrySet()) {
+            Function<Boolean, Expr> query = entry.getValue();
+            byte[] adHocBody = serialize(query.apply(false));
+            byte[] templatedBody = serialize(query.apply(true));
+            if(!Arrays.equals(adHocBody, templatedBody)) {
+                throw new IllegalStateException("Templated " + entry.getKey() + " query differs from the ad hoc one");
+            }
+
+            for(boolean templated : new boolean[] {false, true}) {
+                for(int i = 0; i < WARM_UP_ITERATIONS; i++) serialize(query.apply(templated));
+
+                long threadId = Thread.currentThread().getId();
+                long allocated = threads.getThreadAllocatedBytes(threadId);
+                long start = threads.getCurrentThreadCpuTime();
+                for(int i = 0; i < MEASURED_ITERATIONS; i++) serialize(query.apply(templated));
+                long cpuNanos = threads.getCurrentThreadCpuTime() - start;
+                allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+
+                out.printf("%-8s %-9s %10d %14.2f %16d%n", entry.getKey(), templated ? "template" : "ad hoc", templatedBody.length,
+                    cpuNanos / 1000.0 / MEASURED_ITERATIONS, allocated / MEASURED_ITERATIONS);
+            }
+        }
+    }
+
+    private byte[] serialize(Expr query) throws IOException {
+        return json.writeValueAsBytes(json.valueToTree(query));
+    }
+
+    private static Expr findQuery(Expr id) {
+        return Get(Ref(Class("posts"), id));
+    }
+
+    private static Expr saveQuery(Expr id, Expr data) {
+        return
+            Let(
+                "doc",
+                If(
+                    Exists(Ref(Class("posts"), id)),
+                    Replace(Ref(Class("posts"), id), Obj("data", data)),
+                    Create(Ref(Class("posts"), id), Obj("data", data))
+                )
+            ).in(
+                Obj("data", Select(Value("data"), Var("doc")), "ts", Select(Value("ts"), Var("doc")))
+            );
+    }
+
+    private static Expr findAllQuery(Expr size, Expr after) {
+        return
+            Map(
+                Paginate(Match(Index(Value("all_posts")))).size(size).after(Ref(Class("posts"), after)),
+                Lambda(Value("nextRef"), Select(Value("data"), Get(Var("nextRef"))))
+            );
+    }
+}
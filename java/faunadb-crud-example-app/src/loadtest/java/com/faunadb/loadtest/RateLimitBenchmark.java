@@ -0,0 +1,113 @@
+package com.faunadb.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.faunadb.rest.common.RateLimitFilter;
+import com.faunadb.rest.common.TokenBuckets;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>It measures the overhead the {@link RateLimitFilter} adds to each
+ * request, in process and without any network.</p>
+ *
+ * <p>It reports the CPU time spent taking tokens from the {@link TokenBuckets}
+ * of random clients, key building included, on a single thread and on several
+ * threads at once, and the CPU time spent weighing a bulk creation body.</p>
+ *
+ * <pre>
+ * LoadTest rate-limit --clients=10000 --threads=4 --bulk-size=20
+ * </pre>
+ */
+public class RateLimitBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 1_000_000;
+    private static final int MEASURED_ITERATIONS = 2_000_000;
+    private static final int BODY_ITERATIONS = 200_000;
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final int clientCount;
+    private final int threadCount;
+    private final String[] clients;
+    private final byte[] bulkBody;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public RateLimitBenchmark(int clientCount, int threadCount, int bulkSize) throws IOException {
+        this.clientCount = clientCount;
+        this.threadCount = threadCount;
+
+        clients = new String[clientCount];
+        for(int i = 0; i < clientCount; i++) clients[i] = "ip:10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255);
+
+        ArrayNode list = mapper.createArrayNode();
+        for(int i = 0; i < bulkSize; i++) {
+            list.addObject().put("title", "Load test post " + i).putArray("tags").add("travel").add("food");
+        }
+        bulkBody = mapper.writeValueAsBytes(list);
+    }
+
+    /**
+     * It runs the benchmark and prints the results.
+     *
+     * @param out the stream to print to
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public void run(PrintStream out) throws InterruptedException {
+        out.printf("%n%d clients, %d iterations per thread%n", clientCount, MEASURED_ITERATIONS);
+        out.printf("%-28s %14s%n", "operation", "cpu (ns/op)");
+
+        TokenBuckets buckets = new TokenBuckets(clientCount * 2);
+        acquire(buckets, WARM_UP_ITERATIONS);
+        out.printf("%-28s %14.1f%n", "acquire, 1 thread", acquire(buckets, MEASURED_ITERATIONS) / (double) MEASURED_ITERATIONS);
+
+        List<Thread> workers = new ArrayList<>();
+        long[] nanos = new long[threadCount];
+        CountDownLatch start = new CountDownLatch(1);
+        for(int t = 0; t < threadCount; t++) {
+            int slot = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    nanos[slot] = acquire(buckets, MEASURED_ITERATIONS);
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for(Thread worker : workers) worker.join();
+
+        long totalNanos = 0;
+        for(long n : nanos) totalNanos += n;
+        out.printf("%-28s %14.1f%n", "acquire, " + threadCount + " threads", totalNanos / (double) (MEASURED_ITERATIONS * threadCount));
+
+        for(int i = 0; i < BODY_ITERATIONS; i++) RateLimitFilter.countItems(mapper.getFactory(), bulkBody);
+        long begin = threads.getCurrentThreadCpuTime();
+        for(int i = 0; i < BODY_ITERATIONS; i++) RateLimitFilter.countItems(mapper.getFactory(), bulkBody);
+        long bodyNanos = threads.getCurrentThreadCpuTime() - begin;
+        out.printf("%-28s %14.1f%n", "weigh bulk body (" + bulkBody.length + " B)", bodyNanos / (double) BODY_ITERATIONS);
+    }
+
+    /**
+     * It takes a token for random clients, building up the keys as the
+     * filter does, and returns the CPU time spent on the current thread.
+     */
+    private long acquire(TokenBuckets buckets, int iterations) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long begin = threads.getCurrentThreadCpuTime();
+        for(int i = 0; i < iterations; i++) {
+            buckets.tryAcquire("reads:" + clients[random.nextInt(clientCount)], "reads:*", 200, 100, 1, System.nanoTime());
+        }
+        return threads.getCurrentThreadCpuTime() - begin;
+    }
+}
@@ -0,0 +1,78 @@
+package com.faunadb.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>The workload profiles a load test can run.</p>
+ *
+ * <p>Each profile is a weighted mix of {@link Operation}s,
+ * picked at random for every request.</p>
+ */
+public enum Workload {
+
+    /**
+     * Mostly single Post lookups by Id, along with a few creates.
+     */
+    READ_HEAVY(
+        new int[] { 95, 5 },
+        Operation.GET_POST, Operation.CREATE_POST),
+
+    /**
+     * Scrolling through all the Posts, page after page.
+     */
+    SCROLL(
+        new int[] { 100 },
+        Operation.SCROLL_POSTS),
+
+    /**
+     * Creating several Posts per request.
+     */
+    BULK_CREATE(
+        new int[] { 100 },
+        Operation.CREATE_POSTS),
+
+    /**
+     * Replacing, removing and creating single Posts.
+     */
+    WRITE_MIX(
+        new int[] { 40, 20, 40 },
+        Operation.REPLACE_POST, Operation.DELETE_POST, Operation.CREATE_POST),
+
+    /**
+     * A bit of everything, reads first.
+     */
+    MIXED(
+        new int[] { 60, 15, 10, 10, 5 },
+        Operation.GET_POST, Operation.SCROLL_POSTS, Operation.CREATE_POST, Operation.REPLACE_POST, Operation.DELETE_POST);
+
+    private final int[] cumulativeWeights;
+    private final Operation[] operations;
+
+    Workload(int[] weights, Operation... operations) {
+        this.operations = operations;
+        this.cumulativeWeights = new int[weights.length];
+
+        int total = 0;
+        for(int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * It picks the next operation to run at random, according to the profile weights.
+     *
+     * @return the next operation to run
+     */
+    public Operation next() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for(int i = 0; i < cumulativeWeights.length; i++) {
+            if(pick < cumulativeWeights[i]) return operations[i];
+        }
+        return operations[operations.length - 1];
+    }
+
+    public Operation[] getOperations() {
+        return operations;
+    }
+}
@@ -0,0 +1,58 @@
+package com.faunadb.model.common;
+
+import java.util.Optional;
+
+/**
+ * <p>It represents an {@link Entity} along with the version
+ * it had at the time it was read from or written to a Repository.</p>
+ *
+ * <p>A version is a monotonically increasing number which changes
+ * whenever the Entity does. It allows clients to validate a copy they
+ * already hold, or to perform optimistic concurrency control, without
+ * comparing the Entity data itself.</p>
+ *
+ * <p>Note that a Versioned result may come without the Entity, meaning
+ * that the Entity has not been modified since the given version.</p>
+ *
+ * @param <T> the type of the versioned Entity
+ */
+public class Versioned<T extends Entity> {
+
+    private final T entity;
+    private final long version;
+
+    /**
+     * It creates a new Versioned result with the given parameters.
+     *
+     * @param entity the Entity – null if the Entity has not been modified since the given version
+     * @param version the version of the Entity
+     */
+    public Versioned(T entity, long version) {
+        this.entity = entity;
+        this.version = version;
+    }
+
+    /**
+     * It creates a new Versioned result for an Entity
+     * which has not been modified since the given version.
+     *
+     * @param version the current version of the Entity
+     * @param <T> the type of the versioned Entity
+     * @return a Versioned result without the Entity
+     */
+    public static <T extends Entity> Versioned<T> notModified(long version) {
+        return new Versioned<>(null, version);
+    }
+
+    public Optional<T> getEntity() {
+        return Optional.ofNullable(entity);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isModified() {
+        return entity != null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.faunadb.persistence;
+
+import com.faunadb.model.Post;
+import com.faunadb.persistence.common.FaunaChangeTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>{@link FaunaChangeTracker} implementation for the {@link Post} entity.</p>
+ *
+ * <p>It keeps the {@link PostRepository} version cache and the
+ * {@link PostViews} current with the changes made to the Posts.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "fauna-db.repository.changes", name = "enabled", havingValue = "true")
+public class PostChangeTracker extends FaunaChangeTracker<Post> {
+
+    @Autowired
+    public PostChangeTracker(PostRepository postRepository, PostViews postViews) {
+        super("posts", postRepository);
+
+        addListener(postRepository);
+        addListener(postViews);
+    }
+}
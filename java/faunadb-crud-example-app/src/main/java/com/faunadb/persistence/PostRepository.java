@@ -1,16 +1,46 @@
 package com.faunadb.persistence;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.faunadb.client.errors.BadRequestException;
+import com.faunadb.client.query.Expr;
 import com.faunadb.client.query.Pagination;
+import com.faunadb.client.types.Value;
 import com.faunadb.model.Post;
 import com.faunadb.model.common.Page;
 import com.faunadb.model.common.PaginationOptions;
+import com.faunadb.model.common.Versioned;
 import com.faunadb.persistence.common.FaunaRepository;
+import com.faunadb.persistence.common.FaunaTenantContext;
+import com.faunadb.persistence.common.IdempotencyKeyCache;
+import com.faunadb.persistence.common.IdempotencyKeyReusedException;
+import com.faunadb.persistence.common.QueryTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.faunadb.client.query.Language.Class;
 import static com.faunadb.client.query.Language.*;
+import static com.faunadb.persistence.common.QueryTemplate.param;
 
 /**
  * {@link FaunaRepository} implementation for the {@link Post} entity.
@@ -18,34 +48,327 @@ import static com.faunadb.client.query.Language.*;
 @Repository
 public class PostRepository extends FaunaRepository<Post> {
 
+    private static final Logger logger = LoggerFactory.getLogger(PostRepository.class);
+
+    // Same as the FaunaClient one, see QueryTemplate
+    private static final ObjectMapper json = new ObjectMapper().findAndRegisterModules();
+
+    private static final String NOT_UNIQUE = "instance not unique";
+
+    /**
+     * Longest n-gram indexed per title by the {@code posts_by_title_ngrams} Index.
+     */
+    private static final int MAX_NGRAM_SIZE = 3;
+
+    @Autowired
+    private PostViews postViews;
+
+    private IdempotencyKeyCache<Post> idempotencyKeyCache;
+
     public PostRepository() {
-        super(Post.class, "posts", "all_posts");
+        super(Post.class, "posts", "all_posts", "posts_changes");
+    }
+
+    @PostConstruct
+    protected void initViews() {
+        addWriteListener(postViews);
+    }
+
+    @PostConstruct
+    protected void initIdempotencyKeyCache() {
+        idempotencyKeyCache = new IdempotencyKeyCache<>(
+            repositoryProperties.getIdempotency().getCacheTtl().toMillis(),
+            repositoryProperties.getIdempotency().getCacheMaxSize());
+    }
+
+    /**
+     * It loads the local {@link PostViews} in the background once the
+     * application is ready, if lookups can be answered from them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadViews() {
+        if(!repositoryProperties.getViews().isEnabled()) return;
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                postViews.load(this::findAllVersioned, repositoryProperties.getViews().getLoadPageSize());
+                logger.info("Loaded [{}] Posts into the local views", postViews.size());
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch(Exception e) {
+                logger.warn("Failed to load the local views, lookups will keep going to Fauna", e);
+            }
+        });
     }
 
     //-- Custom repository operations specific to the current entity go below --//
     /**
-     * It finds all Posts matching the given title.
+     * <p>It finds all Posts matching the given title.</p>
+     *
+     * <p>If the local {@link PostViews} are enabled and loaded, the Ids of the
+     * matching Posts are looked up locally, so that only the Posts themselves
+     * are read from Fauna. Otherwise, the lookup goes to the Index.</p>
      *
      * @param title title to find Posts by
      * @param po the {@link PaginationOptions} to determine which {@link Page} of results to return
      * @return a {@link Page} of {@link Post} entities
      */
     public CompletableFuture<Page<Post>> findByTitle(String title, PaginationOptions po) {
-        Pagination paginationQuery = Paginate(Match(Index(Value("posts_by_title")), Value(title)));
-        po.getSize().ifPresent(size -> paginationQuery.size(size));
-        po.getAfter().ifPresent(after -> paginationQuery.after(Ref(Class(className), Value(after))));
-        po.getBefore().ifPresent(before -> paginationQuery.before(Ref(Class(className), Value(before))));
+        if(isViewsReady()) {
+            return findByTitleLocally(title, po);
+        }
 
-        CompletableFuture<Page<Post>> result =
-            client.query(
+        QueryTemplate template =
+            paginationTemplate("findByTitle", po, paginationQuery ->
                 Map(
-                    paginationQuery,
+                    paginationQuery.apply(Match(Index(Value("posts_by_title")), param(FIRST_QUERY_PARAM))),
                     Lambda(Value("nextRef"), Select(Value("data"), Get(Var("nextRef"))))
                 )
+            );
+
+        CompletableFuture<Page<Post>> result =
+            query("findByTitle", template.bind(paginationParams(po, Value(title))))
+            .thenApply(this::toPage);
+
+        return result;
+    }
+
+    /**
+     * <p>It creates a new Post with a generated Id, unless a Post has already
+     * been created for the given idempotency key, in which case that one is
+     * returned instead. Either way, it takes a single transaction.</p>
+     *
+     * <p>Keys are kept along with the Posts, and looked up through the
+     * {@code posts_by_idempotency_key} unique Index, so that concurrent
+     * creates for the same key cannot both succeed. The one failing on the
+     * uniqueness constraint is retried once to return the winning Post.</p>
+     *
+     * <p>A hash of the Post is kept along with its key as well, so that reusing
+     * a key for a different Post fails with an {@link IdempotencyKeyReusedException}
+     * instead of returning the Post created first. Posts stored without a hash
+     * are taken as matching.</p>
+     *
+     * <p>Replays within a short time are answered from a local
+     * {@link IdempotencyKeyCache}, without querying Fauna.</p>
+     *
+     * <p>Note that replacing the Post afterwards forgets its key.</p>
+     *
+     * @param post the Post to create, its Id is ignored
+     * @param idempotencyKey the client supplied key identifying the create
+     * @return the created Post, or the one already created for the given key, or a failed
+     * result with an {@link IdempotencyKeyReusedException} if that one was created from another Post
+     *
+     * @see <a href="https://docs.fauna.com/fauna/current/tutorials/indexes/unique">Unique Indexes</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/misc/newid">NewId</a>
+     */
+    public CompletableFuture<Post> createIdempotently(Post post, String idempotencyKey) {
+        String scopedKey = FaunaTenantContext.getSecret().map(secret -> secret + ":").orElse("") + idempotencyKey;
+        String requestHash = requestHash(post);
+
+        CompletableFuture<Post> result =
+            idempotencyKeyCache.computeIfAbsent(scopedKey, requestHash, () ->
+                createIdempotentlyQuery(post, idempotencyKey, requestHash)
+                    .handle((value, throwable) -> {
+                        if(throwable != null && isNotUnique(throwable.getCause())) {
+                            return createIdempotentlyQuery(post, idempotencyKey, requestHash);
+                        }
+                        CompletableFuture<Value> r = new CompletableFuture<>();
+                        if(throwable != null) r.completeExceptionally(throwable);
+                        else r.complete(value);
+                        return r;
+                    })
+                    .thenCompose(Function.identity())
+                    .thenApply(value -> {
+                        boolean created = value.at("created").to(Boolean.class).get();
+                        Optional<String> storedHash = value.at("idempotency_hash").to(String.class).getOptional();
+                        if(!created && storedHash.isPresent() && !storedHash.get().equals(requestHash)) {
+                            throw new IdempotencyKeyReusedException();
+                        }
+
+                        Versioned<Post> versioned = toVersioned(value);
+                        if(created) recordWrite(versioned);
+                        else recordRead(versioned.getEntity().get().getId(), versioned);
+                        return versioned.getEntity().get();
+                    })
+            );
+
+        return result;
+    }
+
+    /**
+     * <p>It searches all Posts whose title contains every term of the given query,
+     * regardless of case. Terms are separated by whitespace.</p>
+     *
+     * <p>Candidates are found through the {@code posts_by_title_ngrams} Index,
+     * which binds every title to its casefolded n-grams, by intersecting the
+     * sets of Posts matching each n-gram of each term. Hence, the cost of the
+     * search depends on the number of matching Posts, not on the number of
+     * Posts in the collection. Candidates not actually containing the terms,
+     * i.e. the ones with the same n-grams in a different order, are filtered
+     * out from each Page afterwards.</p>
+     *
+     * <p>Hence, the Page size bounds the number of candidates read rather than
+     * the number of Posts returned. A Page can hold less Posts than that, or
+     * none at all, while still having an after cursor, and the search is only
+     * over once there is none.</p>
+     *
+     * <p>Matching Posts are returned in Index order, so that Pages can be
+     * navigated through the same cursors as any other Index. They are not
+     * ranked by relevance.</p>
+     *
+     * @param query the terms to search Posts by
+     * @param po the {@link PaginationOptions} to determine which {@link Page} of results to return
+     * @return a {@link Page} of {@link Post} entities
+     *
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/set/intersection">Intersection</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/string/ngram">NGram</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/string/findstr">FindStr</a>
+     */
+    public CompletableFuture<Page<Post>> search(String query, PaginationOptions po) {
+        List<String> terms = searchTerms(query);
+
+        if(terms.isEmpty()) {
+            return CompletableFuture.completedFuture(new Page<>(Collections.emptyList(), Optional.empty(), Optional.empty()));
+        }
+
+        List<Expr> termMatches = terms.stream().map(PostRepository::matchTerm).collect(Collectors.toList());
+        List<Expr> termContained = terms.stream()
+            .map(term -> GTE(FindStr(Casefold(Select(Arr(Value("data"), Value("title")), Var("doc"))), Casefold(Value(term))), Value(0)))
+            .collect(Collectors.toList());
+
+        Pagination paginationQuery = paginationQuery(Intersection(termMatches), po);
+
+        CompletableFuture<Page<Post>> result =
+            query("search",
+                Map(
+                    Filter(
+                        Map(paginationQuery, Lambda(Value("nextRef"), Get(Var("nextRef")))),
+                        Lambda(Value("doc"), And(termContained))
+                    ),
+                    Lambda(Value("doc"), Select(Value("data"), Var("doc")))
+                )
             )
             .thenApply(this::toPage);
 
         return result;
     }
 
+    /**
+     * <p>It finds all Posts matching the given title
+     * by looking up their Ids in the local {@link PostViews}.</p>
+     *
+     * <p>Fauna remains the source of truth: Posts no longer existing,
+     * or no longer matching the title, are left out of the Page.
+     * Cursors are the ones from the local view, which line
+     * up with the ones from the Index.</p>
+     *
+     * @param title title to find Posts by
+     * @param po the {@link PaginationOptions} to determine which {@link Page} of results to return
+     * @return a {@link Page} of {@link Post} entities
+     */
+    private CompletableFuture<Page<Post>> findByTitleLocally(String title, PaginationOptions po) {
+        Page<String> ids = postViews.idsByTitle(title, po);
+
+        CompletableFuture<Page<Post>> result =
+            findAllById(ids.getData())
+                .thenApply(posts -> {
+                    List<Post> matching = posts.stream()
+                        .filter(post -> Objects.equals(post.getTitle(), title))
+                        .collect(Collectors.toList());
+                    return new Page<>(matching, ids.getBefore(), ids.getAfter());
+                });
+
+        return result;
+    }
+
+    /**
+     * It splits the given search query into its distinct terms, separated by whitespace.
+     */
+    static List<String> searchTerms(String query) {
+        return Arrays.stream(query.trim().split("\\s+"))
+            .filter(term -> !term.isEmpty())
+            .distinct()
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * It builds up the set of Posts whose title contains every
+     * n-gram of the given term, up to {@link #MAX_NGRAM_SIZE} long.
+     * Terms shorter than that are matched as a whole.
+     */
+    static Expr matchTerm(String term) {
+        long size = Math.min(MAX_NGRAM_SIZE, term.codePointCount(0, term.length()));
+
+        return Intersection(
+            Map(
+                NGram(Casefold(Value(term)), size, size),
+                Lambda(Value("ngram"), Match(Index(Value("posts_by_title_ngrams")), Var("ngram")))
+            )
+        );
+    }
+
+    private CompletableFuture<Value> createIdempotentlyQuery(Post post, String idempotencyKey, String requestHash) {
+        Map<String, Expr> data = new LinkedHashMap<>(Value.from(post).get().toMap(Value.class));
+        data.put("id", Var("id"));
+        data.put("idempotency_key", Value(idempotencyKey));
+        data.put("idempotency_hash", Value(requestHash));
+
+        Expr match = Match(Index(Value("posts_by_idempotency_key")), Value(idempotencyKey));
+
+        return query("createIdempotently",
+            If(
+                Exists(match),
+                Let("doc", Get(match)).in(
+                    Obj(
+                        "data", Select(Value("data"), Var("doc")),
+                        "ts", Select(Value("ts"), Var("doc")),
+                        "created", Value(false),
+                        "idempotency_hash", Select(Arr(Value("data"), Value("idempotency_hash")), Var("doc"), Null())
+                    )
+                ),
+                Let("id", NewId()).in(
+                    Let("doc", Create(Ref(Class(className), Var("id")), Obj("data", Obj(data)))).in(
+                        Obj("data", Select(Value("data"), Var("doc")), "ts", Select(Value("ts"), Var("doc")), "created", Value(true))
+                    )
+                )
+            )
+        );
+    }
+
+    /**
+     * It hashes the given Post, its Id left apart, to tell whether
+     * an idempotency key is replayed for the same Post.
+     */
+    private static String requestHash(Post post) {
+        // Sorted, so that the hash does not depend on the encoding order
+        Map<String, Value> data = new TreeMap<>(Value.from(post).get().toMap(Value.class));
+        data.remove("id");
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.writeValueAsBytes(data));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch(JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash Post", e);
+        }
+    }
+
+    /**
+     * It tells whether the given error comes from a uniqueness constraint, i.e. the
+     * {@code posts_by_idempotency_key} Index, as the only unique one on Posts.
+     *
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/errors">Errors</a>
+     */
+    private static boolean isNotUnique(Throwable throwable) {
+        return throwable instanceof BadRequestException &&
+            ((BadRequestException) throwable).errors().stream().anyMatch(error -> NOT_UNIQUE.equals(error.code()));
+    }
+
+    /**
+     * Local views only mirror the Posts visible with the default secret.
+     */
+    private boolean isViewsReady() {
+        return repositoryProperties.getViews().isEnabled() &&
+            postViews.isLoaded() &&
+            !FaunaTenantContext.getSecret().isPresent();
+    }
 }
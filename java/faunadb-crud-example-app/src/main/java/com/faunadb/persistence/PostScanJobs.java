@@ -0,0 +1,84 @@
+package com.faunadb.persistence;
+
+import com.faunadb.model.Post;
+import com.faunadb.persistence.common.FaunaScanJobs;
+import com.faunadb.persistence.common.ScanJobProgress;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * <p>{@link FaunaScanJobs} implementation for the {@link Post} entity.</p>
+ *
+ * <p>Jobs are exposed through the {@code jobs} actuator endpoint: {@code GET /actuator/jobs}
+ * reports the progress of all of them, {@code POST /actuator/jobs/{name}} starts or resumes
+ * one, and {@code DELETE /actuator/jobs/{name}} stops it.</p>
+ *
+ * <p>Jobs rewrite Posts in bulk, hence they are only available once
+ * {@code fauna-db.repository.jobs.enabled} is set, and the endpoint
+ * has to be exposed explicitly, to administrators only.</p>
+ *
+ * <p>The following jobs are available:</p>
+ * <ul>
+ *     <li>{@code normalize-tags}: it trims and lowercases the tags of every Post,
+ *     dropping the empty and duplicate ones</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "jobs")
+@ConditionalOnProperty(prefix = "fauna-db.repository.jobs", name = "enabled", havingValue = "true")
+public class PostScanJobs extends FaunaScanJobs<Post> {
+
+    @Autowired
+    public PostScanJobs(PostRepository postRepository) {
+        super(postRepository);
+        register("normalize-tags", PostScanJobs::normalizeTags);
+    }
+
+    @ReadOperation
+    public Map<String, ScanJobProgress> jobs() {
+        return getProgress();
+    }
+
+    @ReadOperation
+    public ScanJobProgress job(@Selector String name) {
+        return getProgress(name).orElse(null);
+    }
+
+    @WriteOperation
+    public ScanJobProgress startJob(@Selector String name) {
+        return start(name).orElse(null);
+    }
+
+    @DeleteOperation
+    public ScanJobProgress stopJob(@Selector String name) {
+        return stop(name).orElse(null);
+    }
+
+    private static Optional<Post> normalizeTags(Post post) {
+        if(post.getTags() == null) return Optional.empty();
+
+        List<String> tags =
+            post.getTags().stream()
+                .filter(Objects::nonNull)
+                .map(tag -> tag.trim().toLowerCase())
+                .filter(tag -> !tag.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+
+        if(tags.equals(post.getTags())) return Optional.empty();
+
+        return Optional.of(new Post(post.getId(), post.getTitle(), tags));
+    }
+}
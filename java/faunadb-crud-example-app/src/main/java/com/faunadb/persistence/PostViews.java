@@ -0,0 +1,259 @@
+package com.faunadb.persistence;
+
+import com.faunadb.model.Post;
+import com.faunadb.model.common.Page;
+import com.faunadb.model.common.PaginationOptions;
+import com.faunadb.model.common.Versioned;
+import com.faunadb.persistence.common.Change;
+import com.faunadb.persistence.common.ChangeListener;
+import com.faunadb.persistence.common.LocalIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * <p>In-memory secondary views over the {@link Post} entities.</p>
+ *
+ * <p>It keeps the Ids of all the Posts indexed by title and by tag.
+ * The views are bulk loaded from the repository and kept current
+ * afterwards through the changes handed over by the {@link PostRepository}
+ * on every write, and by the {@link PostChangeTracker} if enabled.</p>
+ *
+ * <p>Only the version, title and tags of each Post are kept. Every
+ * change carries the version of the Post it comes from, so changes
+ * can be applied in any order, and more than once, e.g. while
+ * loading concurrently with writes.</p>
+ *
+ * <p>The following metrics are published, tagged by view name:</p>
+ * <ul>
+ *     <li>{@code fauna.views.entries}: term and Id pairs in the view</li>
+ *     <li>{@code fauna.views.terms}: distinct terms in the view</li>
+ *     <li>{@code fauna.views.memory}: estimated memory used by all the views</li>
+ *     <li>{@code fauna.views.age}: time since the views were last loaded, or last changed</li>
+ * </ul>
+ */
+@Component
+public class PostViews implements ChangeListener<Post>, MeterBinder {
+
+    // Rough per-entry overheads, for estimating memory usage only
+    private static final long POST_ENTRY_BYTES = 120;
+    private static final long INDEX_ENTRY_BYTES = 64;
+    private static final long TERM_BYTES = 120;
+
+    private final LocalIndex byTitle = new LocalIndex();
+    private final LocalIndex byTag = new LocalIndex();
+    private final ConcurrentMap<String, Entry> indexed = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded = false;
+    private volatile long lastLoadedMillis = 0;
+    private volatile long lastChangedMillis = 0;
+
+    /**
+     * It loads the views with all the Posts, Page by Page.
+     *
+     * @param pages the function retrieving each Page of Versioned Posts for the given {@link PaginationOptions}
+     * @param pageSize the max number of Posts to retrieve per Page
+     * @throws ExecutionException if any of the Pages of Posts cannot be retrieved
+     * @throws InterruptedException if interrupted while waiting for a Page of Posts
+     */
+    public void load(Function<PaginationOptions, CompletableFuture<Page<Versioned<Post>>>> pages, int pageSize) throws ExecutionException, InterruptedException {
+        Optional<String> after = Optional.empty();
+        do {
+            PaginationOptions po = new PaginationOptions(Optional.of(pageSize), Optional.empty(), after);
+            Page<Versioned<Post>> page = pages.apply(po).get();
+            page.getData().forEach(versioned -> {
+                Post post = versioned.getEntity().get();
+                apply(post.getId(), versioned.getVersion(), post);
+            });
+            after = page.getAfter();
+        } while(after.isPresent());
+
+        lastLoadedMillis = System.currentTimeMillis();
+        loaded = true;
+    }
+
+    @Override
+    public void onChanges(List<Change<Post>> changes) {
+        changes.forEach(change -> apply(change.getId(), change.getVersion(), change.getEntity().orElse(null)));
+        lastChangedMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindTo(registry, "title", byTitle);
+        bindTo(registry, "tag", byTag);
+
+        Gauge.builder("fauna.views.memory", this, PostViews::estimatedMemoryBytes)
+            .tag("view", "posts")
+            .baseUnit("bytes")
+            .description("Estimated memory used by the views")
+            .register(registry);
+
+        Gauge.builder("fauna.views.age", this, v -> v.getAgeMillis() / 1000.0)
+            .tag("view", "posts")
+            .baseUnit("seconds")
+            .description("Time since the views were last loaded, or last changed")
+            .register(registry);
+    }
+
+    /**
+     * It returns the sorted Ids of the Posts with the given title.
+     *
+     * @param title the title to look up
+     * @return the sorted Ids of the matching Posts
+     */
+    public NavigableSet<String> idsByTitle(String title) {
+        return byTitle.get(title);
+    }
+
+    /**
+     * It returns a {@link Page} of the sorted Ids of the Posts with the given title.
+     *
+     * @param title the title to look up
+     * @param po the {@link PaginationOptions} to determine which {@link Page} of Ids to return
+     * @return a {@link Page} of Ids, with Fauna compatible cursors
+     */
+    public Page<String> idsByTitle(String title, PaginationOptions po) {
+        return byTitle.page(title, po);
+    }
+
+    /**
+     * It returns the sorted Ids of the Posts with the given tag.
+     *
+     * @param tag the tag to look up
+     * @return the sorted Ids of the matching Posts
+     */
+    public NavigableSet<String> idsByTag(String tag) {
+        return byTag.get(tag);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return indexed.size();
+    }
+
+    /**
+     * It returns the time since the views were last loaded or
+     * last changed, whatever happened later.
+     *
+     * @return the age of the views in milliseconds, or 0 if not loaded yet
+     */
+    public long getAgeMillis() {
+        if(!loaded) return 0;
+        return System.currentTimeMillis() - Math.max(lastLoadedMillis, lastChangedMillis);
+    }
+
+    /**
+     * It returns a rough estimation of the memory used by the views.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    public long estimatedMemoryBytes() {
+        return indexed.size() * POST_ENTRY_BYTES +
+            (byTitle.size() + byTag.size()) * INDEX_ENTRY_BYTES +
+            (byTitle.terms() + byTag.terms()) * TERM_BYTES;
+    }
+
+    private void bindTo(MeterRegistry registry, String view, LocalIndex index) {
+        Gauge.builder("fauna.views.entries", index, LocalIndex::size)
+            .tag("view", view)
+            .description("Term and Id pairs in the view")
+            .register(registry);
+
+        Gauge.builder("fauna.views.terms", index, LocalIndex::terms)
+            .tag("view", view)
+            .description("Distinct terms in the view")
+            .register(registry);
+    }
+
+    /**
+     * It indexes the given version of a Post, replacing any previous entries
+     * for the same Id unless they come from a later version. A null Post
+     * removes the entries for the Id.
+     *
+     * @param id the Id of the Post
+     * @param version the version of the Post
+     * @param post the state of the Post at the given version – null if it has been removed
+     */
+    private void apply(String id, long version, Post post) {
+        indexed.compute(id, (i, previous) -> {
+            if(previous != null && previous.isNewerThan(version, post == null)) return previous;
+
+            Entry current = post != null ? Entry.of(version, post) : Entry.removed(version);
+
+            if(previous != null) {
+                if(!Objects.equals(previous.title, current.title) && previous.title != null) {
+                    byTitle.remove(previous.title, id);
+                }
+                Arrays.stream(previous.tags)
+                    .filter(tag -> !current.hasTag(tag))
+                    .forEach(tag -> byTag.remove(tag, id));
+            }
+
+            if(current.title != null) byTitle.add(current.title, id);
+            Arrays.stream(current.tags).forEach(tag -> byTag.add(tag, id));
+
+            return current;
+        });
+    }
+
+    /**
+     * It keeps the indexed fields of a Post at a given version.
+     * Removed Posts are kept as entries without fields, so
+     * that earlier versions are not applied afterwards.
+     */
+    private static class Entry {
+
+        private static final String[] NO_TAGS = new String[0];
+
+        private final long version;
+        private final String title;
+        private final String[] tags;
+        private final boolean removed;
+
+        private Entry(long version, String title, String[] tags, boolean removed) {
+            this.version = version;
+            this.title = title;
+            this.tags = tags;
+            this.removed = removed;
+        }
+
+        static Entry of(long version, Post post) {
+            String[] tags = post.getTags() != null ? post.getTags().toArray(NO_TAGS) : NO_TAGS;
+            return new Entry(version, post.getTitle(), tags, false);
+        }
+
+        static Entry removed(long version) {
+            return new Entry(version, null, NO_TAGS, true);
+        }
+
+        /**
+         * Removals win over writes with the same version, as
+         * the removal of a document is timestamped with its
+         * last write time.
+         */
+        boolean isNewerThan(long version, boolean removal) {
+            if(this.version != version) return this.version > version;
+            return removed && !removal;
+        }
+
+        boolean hasTag(String tag) {
+            return Arrays.asList(tags).contains(tag);
+        }
+    }
+}
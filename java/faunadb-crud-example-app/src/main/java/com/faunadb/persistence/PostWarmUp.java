@@ -0,0 +1,58 @@
+package com.faunadb.persistence;
+
+import com.faunadb.model.Post;
+import com.faunadb.model.common.PaginationOptions;
+import com.faunadb.persistence.common.FaunaWarmUp;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>{@link FaunaWarmUp} implementation for the {@link Post} entity.</p>
+ *
+ * <p>Besides the default synthetic queries, it looks Posts up by title,
+ * and waits for the {@link PostViews} to be loaded if enabled.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "fauna-db.repository.warm-up", name = "enabled", havingValue = "true")
+public class PostWarmUp extends FaunaWarmUp<Post> {
+
+    private static final long VIEWS_POLL_MILLIS = 100;
+
+    private final PostRepository postRepository;
+    private final PostViews postViews;
+
+    @Autowired
+    public PostWarmUp(PostRepository postRepository, PostViews postViews) {
+        super("posts", postRepository);
+        this.postRepository = postRepository;
+        this.postViews = postViews;
+    }
+
+    @Override
+    protected List<CompletableFuture<?>> syntheticQueries(Optional<Post> sample) {
+        List<CompletableFuture<?>> queries = super.syntheticQueries(sample);
+
+        String title = sample.map(Post::getTitle).orElse("");
+        PaginationOptions po = new PaginationOptions(Optional.empty(), Optional.empty(), Optional.empty());
+        queries.add(postRepository.findByTitle(title, po));
+
+        return queries;
+    }
+
+    @Override
+    protected void preloadCaches(long deadlineMillis) throws Exception {
+        super.preloadCaches(deadlineMillis);
+
+        if(!repositoryProperties.getViews().isEnabled()) return;
+
+        while(!postViews.isLoaded()) {
+            remainingMillis(deadlineMillis);
+            Thread.sleep(VIEWS_POLL_MILLIS);
+        }
+    }
+}
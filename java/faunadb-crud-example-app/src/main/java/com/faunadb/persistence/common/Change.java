@@ -0,0 +1,50 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.model.common.Entity;
+
+import java.util.Optional;
+
+/**
+ * <p>It represents a change to an {@link Entity} in a Repository.</p>
+ *
+ * <p>A change carries the latest state of the Entity at the time the
+ * change was read, or no Entity at all if it has been removed. Hence,
+ * applying the same change more than once is always safe.</p>
+ *
+ * @param <T> the type of the changed Entity
+ */
+public class Change<T extends Entity> {
+
+    private final String id;
+    private final long version;
+    private final T entity;
+
+    /**
+     * It creates a new Change with the given parameters.
+     *
+     * @param id the Id of the changed Entity
+     * @param version the version of the Entity after the change
+     * @param entity the latest state of the Entity – null if it has been removed
+     */
+    public Change(String id, long version, T entity) {
+        this.id = id;
+        this.version = version;
+        this.entity = entity;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Optional<T> getEntity() {
+        return Optional.ofNullable(entity);
+    }
+
+    public boolean isRemoval() {
+        return entity == null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.model.common.Entity;
+
+import java.util.List;
+
+/**
+ * <p>It defines a component keeping a local read model,
+ * e.g. a cache or a view, current with the changes to
+ * the Entities in a Repository.</p>
+ *
+ * <p>Note that the same changes may be delivered more than once,
+ * for instance after a restart. Implementations must be idempotent.</p>
+ *
+ * @param <T> the type of the changed Entities
+ *
+ * @see FaunaChangeTracker
+ */
+public interface ChangeListener<T extends Entity> {
+
+    /**
+     * It applies the given changes to the local read model.
+     *
+     * @param changes the changes to apply, in the order they took place
+     */
+    void onChanges(List<Change<T>> changes);
+}
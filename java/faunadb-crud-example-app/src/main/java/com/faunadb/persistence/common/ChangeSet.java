@@ -0,0 +1,56 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.client.types.Value;
+import com.faunadb.model.common.Entity;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * <p>It represents a page of {@link Change}s read from a Repository.</p>
+ *
+ * <p>Along with the changes, it contains the number of events read, the
+ * position of the last one, i.e. its timestamp, and the Fauna cursor
+ * pointing to the next events. Note that Fauna returns such a cursor for
+ * every page of events, even the last one, as more events may come.</p>
+ *
+ * @param <T> the type of the changed Entities
+ */
+public class ChangeSet<T extends Entity> {
+
+    private final List<Change<T>> changes;
+    private final int eventCount;
+    private final long position;
+    private final Optional<Value> after;
+
+    /**
+     * It creates a new ChangeSet with the given parameters.
+     *
+     * @param changes the changes read, at most one per Entity
+     * @param eventCount the number of events read, which may be more than the changes
+     * @param position the timestamp of the last event read
+     * @param after the cursor pointing to the next events to read, if any
+     */
+    public ChangeSet(List<Change<T>> changes, int eventCount, long position, Optional<Value> after) {
+        this.changes = changes;
+        this.eventCount = eventCount;
+        this.position = position;
+        this.after = after;
+    }
+
+    public List<Change<T>> getChanges() {
+        return changes;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public Optional<Value> getAfter() {
+        return after;
+    }
+}
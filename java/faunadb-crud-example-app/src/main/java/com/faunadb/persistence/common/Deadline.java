@@ -0,0 +1,119 @@
+package com.faunadb.persistence.common;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The point in time by which a request has to be answered,
+ * past which any work still pending for it is wasted.</p>
+ *
+ * <p>A deadline can also be cancelled before it passes, e.g. when the
+ * client is gone. Either way, the futures bound to it through {@link #bind}
+ * are failed with a {@link DeadlineExceededException}, so that no further
+ * stage is composed on top of them.</p>
+ */
+public class Deadline {
+
+    private static final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "deadline-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Most timers are cancelled well before they fire, as most requests make it in time
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    private final long expiresAt;
+    private final Duration timeout;
+    private final Set<CompletableFuture<?>> bound = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled = false;
+
+    private Deadline(Duration timeout) {
+        this.timeout = timeout;
+        this.expiresAt = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * It creates a new Deadline passing after the given timeout from now.
+     *
+     * @param timeout the time left until the deadline passes
+     * @return the new Deadline
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(timeout);
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the time left until the deadline passes, negative if already passed
+     */
+    public long remainingNanos() {
+        return expiresAt - System.nanoTime();
+    }
+
+    /**
+     * @return true if the deadline has passed or has been cancelled, false if not
+     */
+    public boolean isExpired() {
+        return cancelled || remainingNanos() <= 0;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return a new exception telling why the deadline is expired
+     */
+    public DeadlineExceededException exceeded() {
+        return new DeadlineExceededException(cancelled ?
+            "Request cancelled" :
+            "Request deadline of [" + timeout.toMillis() + "ms] exceeded");
+    }
+
+    /**
+     * It cancels the deadline, failing all the futures bound to it.
+     */
+    public void cancel() {
+        cancelled = true;
+        bound.forEach(future -> future.completeExceptionally(exceeded()));
+    }
+
+    /**
+     * <p>It binds the given future to the deadline, so that it is failed
+     * with a {@link DeadlineExceededException} if still pending once the
+     * deadline passes or is cancelled.</p>
+     *
+     * @param future the future to bind
+     * @param <T> the type of the future result
+     * @return the given future
+     */
+    public <T> CompletableFuture<T> bind(CompletableFuture<T> future) {
+        if(isExpired()) {
+            future.completeExceptionally(exceeded());
+            return future;
+        }
+
+        bound.add(future);
+        ScheduledFuture<?> expiry = timer.schedule(() -> future.completeExceptionally(exceeded()), remainingNanos(), TimeUnit.NANOSECONDS);
+        future.whenComplete((value, throwable) -> {
+            expiry.cancel(false);
+            bound.remove(future);
+        });
+
+        // Cancelled while being bound
+        if(cancelled) future.completeExceptionally(exceeded());
+
+        return future;
+    }
+}
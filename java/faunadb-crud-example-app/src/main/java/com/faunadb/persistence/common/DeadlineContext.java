@@ -0,0 +1,46 @@
+package com.faunadb.persistence.common;
+
+import java.util.Optional;
+
+/**
+ * <p>It holds the {@link Deadline} of the request the current thread is working for.</p>
+ *
+ * <p>The deadline is set by the web layer at the beginning of each request and
+ * restored by {@link FaunaRepository#query} whenever one of its queries completes.
+ * This way, any dependent stage composed on top of a query result, e.g. the second
+ * hop of a service operation, is bound by the same deadline no matter which thread
+ * it ends up running on.</p>
+ */
+public final class DeadlineContext {
+
+    private static final ThreadLocal<Deadline> currentDeadline = new ThreadLocal<>();
+
+    private DeadlineContext() {
+    }
+
+    /**
+     * It returns the deadline of the current request if any.
+     *
+     * @return the deadline of the current request or an empty result if unbounded
+     */
+    public static Optional<Deadline> get() {
+        return Optional.ofNullable(currentDeadline.get());
+    }
+
+    /**
+     * It sets the deadline of the current request.
+     *
+     * @param deadline the deadline of the current request, null if unbounded
+     */
+    public static void set(Deadline deadline) {
+        if(deadline == null) currentDeadline.remove();
+        else currentDeadline.set(deadline);
+    }
+
+    /**
+     * It clears the deadline of the current request.
+     */
+    public static void clear() {
+        currentDeadline.remove();
+    }
+}
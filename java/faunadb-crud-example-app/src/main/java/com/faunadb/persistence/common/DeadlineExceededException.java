@@ -0,0 +1,15 @@
+package com.faunadb.persistence.common;
+
+/**
+ * It signals that an operation has been dropped because the
+ * {@link Deadline} of the request it was working for has passed,
+ * or because the request has been cancelled meanwhile.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,97 @@
+package com.faunadb.persistence.common;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>A bounded local cache from Entity Id to the latest known
+ * version of the Entity, i.e. its Fauna document timestamp.</p>
+ *
+ * <p>Versions only move forward: recording a version older than the
+ * cached one has no effect. Removed Entities are kept as tombstones,
+ * so a slow read completing after a removal cannot bring the removed
+ * Entity back into the cache. Only a later write can.</p>
+ *
+ * <p>When full, arbitrary entries are dropped to make room for new ones.
+ * Losing an entry is always safe, as it only means the next lookup for
+ * that Entity has to go to Fauna.</p>
+ */
+public class DocumentVersionCache {
+
+    private static final long REMOVED = Long.MAX_VALUE;
+
+    private final ConcurrentMap<String, Long> versions = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public DocumentVersionCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * It returns the latest known version for the given Id if any.
+     *
+     * @param id the Id of the Entity
+     * @return the latest known version or an empty result if unknown or removed
+     */
+    public Optional<Long> get(String id) {
+        return Optional.ofNullable(versions.get(id)).filter(version -> version != REMOVED);
+    }
+
+    /**
+     * It records the given version for the given Id as read from
+     * the Repository, unless a newer one or a removal has already
+     * been recorded.
+     *
+     * @param id the Id of the Entity
+     * @param version the version of the Entity
+     */
+    public void recordRead(String id, long version) {
+        makeRoom();
+        versions.merge(id, version, Math::max);
+    }
+
+    /**
+     * It records the given version for the given Id as written to
+     * the Repository, unless a newer one has already been recorded.
+     *
+     * @param id the Id of the Entity
+     * @param version the version of the Entity
+     */
+    public void recordWrite(String id, long version) {
+        makeRoom();
+        versions.merge(id, version, (current, written) -> current == REMOVED ? written : Math.max(current, written));
+    }
+
+    /**
+     * It records the Entity for the given Id as removed.
+     *
+     * @param id the Id of the Entity
+     */
+    public void recordRemoval(String id) {
+        makeRoom();
+        versions.put(id, REMOVED);
+    }
+
+    /**
+     * It forgets anything known about the given Id.
+     *
+     * @param id the Id of the Entity
+     */
+    public void invalidate(String id) {
+        versions.remove(id);
+    }
+
+    public int size() {
+        return versions.size();
+    }
+
+    private void makeRoom() {
+        Iterator<String> ids = versions.keySet().iterator();
+        while(versions.size() >= maxSize && ids.hasNext()) {
+            ids.next();
+            ids.remove();
+        }
+    }
+}
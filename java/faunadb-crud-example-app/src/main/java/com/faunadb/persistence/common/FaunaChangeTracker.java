@@ -0,0 +1,233 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.client.query.Expr;
+import com.faunadb.model.common.Entity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.faunadb.client.query.Language.Value;
+
+/**
+ * <p>Base implementation for tracking the changes
+ * made to the Entities of a {@link FaunaRepository}.</p>
+ *
+ * <p>It incrementally polls the Repository changes from its last known
+ * position and hands them over to the registered {@link ChangeListener}s,
+ * so that local caches and views stay current with writes made outside
+ * this application without relying on short expiration times.</p>
+ *
+ * <p>Only Repositories created with a changes Index can be tracked, which is
+ * checked on creation so that a misconfigured tracker fails the startup
+ * rather than every poll.</p>
+ *
+ * <p>Each poll reads pages of changes until a page comes short of the page
+ * size, as Fauna returns a cursor to the next events even past the last one.</p>
+ *
+ * <p>The position, i.e. the timestamp of the last change applied, is
+ * checkpointed into a file after every page of changes. On restart,
+ * tracking resumes from there. As changes are applied at least once,
+ * listeners must be idempotent.</p>
+ *
+ * <p>The following metrics are published, tagged by tracker name:</p>
+ * <ul>
+ *     <li>{@code fauna.changes.lag}: time since the tracker last caught up with all the changes</li>
+ *     <li>{@code fauna.changes.applied}: changes handed over to the listeners</li>
+ *     <li>{@code fauna.changes.poll}: time spent per poll</li>
+ * </ul>
+ *
+ * <p>Note that changes are always read with the default secret.</p>
+ *
+ * @param <T> the type of the tracked Entities
+ */
+public abstract class FaunaChangeTracker<T extends Entity> implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(FaunaChangeTracker.class);
+
+    @Autowired
+    protected FaunaRepositoryProperties repositoryProperties;
+
+    protected final String name;
+    protected final FaunaRepository<T> repository;
+
+    private final List<ChangeListener<T>> listeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+    private volatile long position;
+    private volatile long lastCaughtUpMillis = System.currentTimeMillis();
+
+    private Counter appliedCounter;
+    private Timer pollTimer;
+
+    /**
+     * It creates a new FaunaChangeTracker with the given parameters.
+     *
+     * @param name the tracker name, used for checkpointing and metrics
+     * @param repository the Repository to track the changes of
+     * @throws IllegalStateException if the Repository has no changes Index
+     */
+    public FaunaChangeTracker(String name, FaunaRepository<T> repository) {
+        if(!repository.hasChangesIndex()) {
+            throw new IllegalStateException("No changes Index defined for the Repository tracked by [" + name + "]");
+        }
+
+        this.name = name;
+        this.repository = repository;
+    }
+
+    /**
+     * It registers the given listener for being handed
+     * over all the changes from now on.
+     *
+     * @param listener the listener to register
+     */
+    public void addListener(ChangeListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * It returns the time since the tracker last caught up with
+     * all the changes, that is an upper bound for how stale the
+     * local read models may be.
+     *
+     * @return the current lag in milliseconds
+     */
+    public long getLagMillis() {
+        return System.currentTimeMillis() - lastCaughtUpMillis;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("fauna.changes.lag", this, t -> t.getLagMillis() / 1000.0)
+            .tag("tracker", name)
+            .baseUnit("seconds")
+            .description("Time since the tracker last caught up with all the changes")
+            .register(registry);
+
+        appliedCounter = Counter.builder("fauna.changes.applied")
+            .tag("tracker", name)
+            .description("Changes handed over to the listeners")
+            .register(registry);
+
+        pollTimer = Timer.builder("fauna.changes.poll")
+            .tag("tracker", name)
+            .description("Time spent per poll")
+            .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // Changes are tracked from the last checkpoint, or from now on if none
+        position = readCheckpoint().orElse(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fauna-changes-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::poll, 0, repositoryProperties.getChanges().getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * It reads all the changes since the current position
+     * and hands them over to the registered listeners.
+     */
+    protected void poll() {
+        FaunaRepositoryProperties.Changes settings = repositoryProperties.getChanges();
+        Timer.Sample sample = Timer.start();
+
+        try {
+            Expr after = Value(position);
+            while(true) {
+                ChangeSet<T> changeSet = repository.findChanges(after, settings.getPageSize()).get();
+
+                List<Change<T>> changes = changeSet.getChanges();
+                if(!changes.isEmpty()) {
+                    listeners.forEach(listener -> listener.onChanges(changes));
+                    if(appliedCounter != null) appliedCounter.increment(changes.size());
+                }
+
+                if(changeSet.getPosition() > position) {
+                    position = changeSet.getPosition();
+                    writeCheckpoint(position);
+                }
+
+                // Caught up, even though Fauna still returns a cursor
+                if(!changeSet.getAfter().isPresent() || changeSet.getEventCount() < settings.getPageSize()) break;
+                if(changeSet.getAfter().get().equals(after)) break;
+                after = changeSet.getAfter().get();
+            }
+
+            lastCaughtUpMillis = System.currentTimeMillis();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch(Exception e) {
+            logger.warn("Failed to poll changes for tracker [{}]", name, e);
+        } finally {
+            if(pollTimer != null) sample.stop(pollTimer);
+        }
+
+        if(getLagMillis() > settings.getMaxLag().toMillis()) {
+            logger.warn("Tracker [{}] is lagging behind by [{}] ms", name, getLagMillis());
+        }
+    }
+
+    private Path checkpointPath() {
+        return Paths.get(repositoryProperties.getChanges().getCheckpointDirectory(), name + ".checkpoint");
+    }
+
+    private Optional<Long> readCheckpoint() {
+        Path path = checkpointPath();
+        if(!Files.exists(path)) return Optional.empty();
+
+        try {
+            String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+            return Optional.of(Long.parseLong(content));
+        } catch(IOException | NumberFormatException e) {
+            logger.warn("Invalid checkpoint for tracker [{}] at [{}], tracking from now on", name, path, e);
+            return Optional.empty();
+        }
+    }
+
+    private void writeCheckpoint(long position) {
+        Path path = checkpointPath();
+        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            Files.write(tmpPath, Long.toString(position).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException e) {
+            logger.warn("Failed to checkpoint tracker [{}] at [{}]", name, path, e);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.faunadb.persistence.common;
 
+import com.codahale.metrics.MetricRegistry;
 import com.faunadb.client.FaunaClient;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClientConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Bean;
@@ -15,6 +19,56 @@ public class FaunaClientConfig {
     @Autowired
     private FaunaClientProperties faunaProperties;
 
+    /**
+     * It initiates a singleton {@link MetricRegistry} instance
+     * where the {@link FaunaClient} reports its request metrics.
+     *
+     * @return a singleton {@link MetricRegistry} instance
+     */
+    @Bean
+    @Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+    public MetricRegistry faunaMetricRegistry() {
+        return new MetricRegistry();
+    }
+
+    /**
+     * <p>It initiates a singleton {@link AsyncHttpClient} instance
+     * using the transport settings defined at {@link FaunaClientProperties.Http}.</p>
+     *
+     * <p>This is the HTTP client the {@link FaunaClient} will use for
+     * talking to Fauna. Exposing it as a bean allows its connection
+     * pool to be sized and monitored from the application itself,
+     * and its responses to be traced and accounted for.</p>
+     *
+     * @return a singleton {@link AsyncHttpClient} instance
+     */
+    @Bean
+    @Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+    public AsyncHttpClient faunaHttpClient() {
+        FaunaClientProperties.Http http = faunaProperties.getHttp();
+
+        DefaultAsyncHttpClientConfig config =
+            new DefaultAsyncHttpClientConfig.Builder()
+                .setThreadPoolName("fauna-http")
+                .setMaxConnections(http.getMaxConnections())
+                .setMaxConnectionsPerHost(http.getMaxConnectionsPerHost())
+                .setConnectTimeout((int) http.getConnectTimeout().toMillis())
+                .setRequestTimeout((int) http.getRequestTimeout().toMillis())
+                .setReadTimeout((int) http.getReadTimeout().toMillis())
+                .setPooledConnectionIdleTimeout((int) http.getPooledConnectionIdleTimeout().toMillis())
+                .setConnectionTtl((int) http.getConnectionTtl().toMillis())
+                .setMaxRequestRetry(http.getMaxRequestRetry())
+                .setKeepAlive(http.isKeepAlive())
+                .setCompressionEnforced(http.isCompressionEnforced())
+                .setTcpNoDelay(http.isTcpNoDelay())
+                .setIoThreadsCount(http.getIoThreadsCount())
+                .addRequestFilter(new FaunaTracingRequestFilter())
+                .addRequestFilter(new FaunaCostRequestFilter())
+                .build();
+
+        return new DefaultAsyncHttpClient(config);
+    }
+
     /**
      * It initiates a singleton {@link FaunaClient} instance
      * using the settings defined at {@link FaunaClientProperties}.
@@ -31,6 +85,8 @@ public class FaunaClientConfig {
             FaunaClient.builder()
                 .withEndpoint(faunaProperties.getEndpoint())
                 .withSecret(faunaProperties.getSecret())
+                .withHttpClient(faunaHttpClient())
+                .withMetrics(faunaMetricRegistry())
                 .build();
 
         return client;
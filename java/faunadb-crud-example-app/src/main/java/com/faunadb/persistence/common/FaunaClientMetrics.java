@@ -0,0 +1,72 @@
+package com.faunadb.persistence.common;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.asynchttpclient.AsyncHttpClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>It exposes the connection pool and request metrics
+ * of the {@link com.faunadb.client.FaunaClient} transport.</p>
+ *
+ * <p>The following metrics are published:</p>
+ * <ul>
+ *     <li>{@code fauna.client.connections.active}: connections currently serving a request</li>
+ *     <li>{@code fauna.client.connections.idle}: connections currently parked in the pool</li>
+ *     <li>{@code fauna.client.connections.available}: connections that can still be opened before
+ *     hitting {@code fauna-db.http.max-connections}, or -1 if the pool is unbounded</li>
+ *     <li>{@code fauna.client.requests}: requests sent to Fauna as recorded by the driver</li>
+ * </ul>
+ *
+ * <p>Note that the underlying HTTP client fails fast when the pool is exhausted
+ * instead of queueing connection acquisitions. Hence, an available count
+ * reaching zero is the signal for the pool being undersized.</p>
+ */
+@Component
+public class FaunaClientMetrics implements MeterBinder {
+
+    private static final String DRIVER_REQUEST_TIMER_NAME = "fauna-request";
+
+    @Autowired
+    private AsyncHttpClient faunaHttpClient;
+
+    @Autowired
+    private MetricRegistry faunaMetricRegistry;
+
+    @Autowired
+    private FaunaClientProperties faunaProperties;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("fauna.client.connections.active", faunaHttpClient, c -> c.getClientStats().getTotalActiveConnectionCount())
+            .description("Connections to Fauna currently serving a request")
+            .register(registry);
+
+        Gauge.builder("fauna.client.connections.idle", faunaHttpClient, c -> c.getClientStats().getTotalIdleConnectionCount())
+            .description("Connections to Fauna currently idle in the pool")
+            .register(registry);
+
+        Gauge.builder("fauna.client.connections.available", faunaHttpClient, this::availableConnections)
+            .description("Connections to Fauna that can still be opened, -1 if unbounded")
+            .register(registry);
+
+        Timer requestTimer = faunaMetricRegistry.timer(DRIVER_REQUEST_TIMER_NAME);
+        FunctionTimer.builder("fauna.client.requests", requestTimer, Timer::getCount, t -> t.getSnapshot().getMean() * t.getCount(), TimeUnit.NANOSECONDS)
+            .description("Requests sent to Fauna")
+            .register(registry);
+    }
+
+    private double availableConnections(AsyncHttpClient client) {
+        int maxConnections = faunaProperties.getHttp().getMaxConnections();
+        if(maxConnections <= 0) return -1;
+
+        return Math.max(0, maxConnections - client.getClientStats().getTotalConnectionCount());
+    }
+}
@@ -3,6 +3,8 @@ package com.faunadb.persistence.common;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 /**
  * It contains basic settings for initiating
  * a {@link com.faunadb.client.FaunaClient}.
@@ -12,6 +14,8 @@ import org.springframework.stereotype.Component;
 public class FaunaClientProperties {
     private String endpoint;
     private String secret;
+    private final Http http = new Http();
+    private final Tenancy tenancy = new Tenancy();
 
     public String getEndpoint() {
         return endpoint;
@@ -28,4 +32,259 @@ public class FaunaClientProperties {
     public void setSecret(String secret) {
         this.secret = secret;
     }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public Tenancy getTenancy() {
+        return tenancy;
+    }
+
+    /**
+     * <p>It contains the transport settings for the underlying
+     * HTTP client used by the {@link com.faunadb.client.FaunaClient}.</p>
+     *
+     * <p>Note that the FaunaDB JVM driver talks to Fauna over HTTP/1.1
+     * through a pooled, keep-alive enabled connection set. Hence, sizing
+     * the pool and its timeouts is what determines how many concurrent
+     * queries the client can actually sustain.</p>
+     */
+    public static class Http {
+
+        /**
+         * Max number of open connections across all hosts, -1 for unbounded.
+         */
+        private int maxConnections = -1;
+
+        /**
+         * Max number of open connections per host, -1 for unbounded.
+         */
+        private int maxConnectionsPerHost = -1;
+
+        /**
+         * Max time to wait for a connection to be established.
+         */
+        private Duration connectTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Max time to wait for a complete response to a request.
+         */
+        private Duration requestTimeout = Duration.ofSeconds(60);
+
+        /**
+         * Max time a connection can stay idle while waiting for response data.
+         */
+        private Duration readTimeout = Duration.ofSeconds(60);
+
+        /**
+         * Max time a pooled connection can stay idle before being closed.
+         */
+        private Duration pooledConnectionIdleTimeout = Duration.ofMillis(4750);
+
+        /**
+         * Max time a pooled connection can live before being recycled, -1ms for unbounded.
+         */
+        private Duration connectionTtl = Duration.ofMillis(-1);
+
+        /**
+         * Max number of times a failed request is retried by the HTTP client.
+         */
+        private int maxRequestRetry = 0;
+
+        /**
+         * Whether connections should be kept alive and reused across requests.
+         */
+        private boolean keepAlive = true;
+
+        /**
+         * Whether responses should be requested gzip compressed.
+         */
+        private boolean compressionEnforced = false;
+
+        /**
+         * Whether Nagle's algorithm should be disabled on the connections.
+         */
+        private boolean tcpNoDelay = true;
+
+        /**
+         * Number of IO threads, 0 for Netty's default (twice the available processors).
+         */
+        private int ioThreadsCount = 0;
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getMaxConnectionsPerHost() {
+            return maxConnectionsPerHost;
+        }
+
+        public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public Duration getPooledConnectionIdleTimeout() {
+            return pooledConnectionIdleTimeout;
+        }
+
+        public void setPooledConnectionIdleTimeout(Duration pooledConnectionIdleTimeout) {
+            this.pooledConnectionIdleTimeout = pooledConnectionIdleTimeout;
+        }
+
+        public Duration getConnectionTtl() {
+            return connectionTtl;
+        }
+
+        public void setConnectionTtl(Duration connectionTtl) {
+            this.connectionTtl = connectionTtl;
+        }
+
+        public int getMaxRequestRetry() {
+            return maxRequestRetry;
+        }
+
+        public void setMaxRequestRetry(int maxRequestRetry) {
+            this.maxRequestRetry = maxRequestRetry;
+        }
+
+        public boolean isKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(boolean keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public boolean isCompressionEnforced() {
+            return compressionEnforced;
+        }
+
+        public void setCompressionEnforced(boolean compressionEnforced) {
+            this.compressionEnforced = compressionEnforced;
+        }
+
+        public boolean isTcpNoDelay() {
+            return tcpNoDelay;
+        }
+
+        public void setTcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+        }
+
+        public int getIoThreadsCount() {
+            return ioThreadsCount;
+        }
+
+        public void setIoThreadsCount(int ioThreadsCount) {
+            this.ioThreadsCount = ioThreadsCount;
+        }
+    }
+
+    /**
+     * <p>It contains the settings for serving several Fauna
+     * databases or tenants from a single application instance.</p>
+     *
+     * <p>When enabled, the secret for each request is resolved from
+     * the given header and a dedicated {@link com.faunadb.client.FaunaClient}
+     * is used for it. Requests without the header keep using the default
+     * secret.</p>
+     *
+     * @see FaunaClientRegistry
+     */
+    public static class Tenancy {
+
+        /**
+         * Whether the Fauna secret can be provided per request.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Name of the request header containing the Fauna secret.
+         */
+        private String secretHeader = "X-Fauna-Secret";
+
+        /**
+         * Max number of tenant clients to keep cached, least recently used idle ones are closed first.
+         */
+        private int maxTenants = 100;
+
+        /**
+         * Max number of queries a single tenant can have in flight, -1 for unbounded.
+         */
+        private int maxConcurrentQueries = 32;
+
+        /**
+         * Max number of queries a single tenant can have waiting for a free slot.
+         */
+        private int maxQueuedQueries = 256;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getSecretHeader() {
+            return secretHeader;
+        }
+
+        public void setSecretHeader(String secretHeader) {
+            this.secretHeader = secretHeader;
+        }
+
+        public int getMaxTenants() {
+            return maxTenants;
+        }
+
+        public void setMaxTenants(int maxTenants) {
+            this.maxTenants = maxTenants;
+        }
+
+        public int getMaxConcurrentQueries() {
+            return maxConcurrentQueries;
+        }
+
+        public void setMaxConcurrentQueries(int maxConcurrentQueries) {
+            this.maxConcurrentQueries = maxConcurrentQueries;
+        }
+
+        public int getMaxQueuedQueries() {
+            return maxQueuedQueries;
+        }
+
+        public void setMaxQueuedQueries(int maxQueuedQueries) {
+            this.maxQueuedQueries = maxQueuedQueries;
+        }
+    }
 }
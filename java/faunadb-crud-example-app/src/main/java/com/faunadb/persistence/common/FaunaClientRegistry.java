@@ -0,0 +1,159 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.client.FaunaClient;
+import com.faunadb.client.query.Expr;
+import com.faunadb.client.types.Value;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>It keeps track of the {@link FaunaClient} instances
+ * to be used for each tenant, keyed by their secret.</p>
+ *
+ * <p>Tenant clients are derived from the default {@link FaunaClient}
+ * as session clients, meaning they all share the same underlying
+ * connection pool. Isolation between tenants is guaranteed instead
+ * by the per tenant concurrency limits of {@link TenantFaunaClient}.</p>
+ *
+ * <p>Clients live in a {@link ConcurrentHashMap}, so that looking up the client
+ * of a tenant takes no lock. At most {@link FaunaClientProperties.Tenancy#getMaxTenants()}
+ * tenant clients are kept at once. When exceeded, the least recently used idle
+ * ones are evicted and closed. Clients with queries in flight or queued are
+ * never evicted, as their replacement would start over with all its slots
+ * free, hence there can be more clients than that while all of them are busy.</p>
+ *
+ * <p>A client can still be evicted between being looked up and issued a query,
+ * in which case the query is issued again through the client replacing it. This
+ * way, eviction never fails the queries of a tenant, see {@link #query}.</p>
+ *
+ * @see FaunaTenantContext
+ */
+@Component
+public class FaunaClientRegistry implements MeterBinder {
+
+    @Autowired
+    private FaunaClient faunaClient;
+
+    @Autowired
+    private FaunaClientProperties faunaProperties;
+
+    private TenantFaunaClient defaultClient;
+
+    private final ConcurrentMap<String, TenantFaunaClient> tenantClients = new ConcurrentHashMap<>();
+    private final ReentrantLock evicting = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        defaultClient = new TenantFaunaClient(faunaClient, null, -1, 0);
+    }
+
+    /**
+     * <p>It issues the given query through the client for the tenant
+     * set at the current {@link FaunaTenantContext}.</p>
+     *
+     * <p>If the client is evicted meanwhile, the query is issued again
+     * through the client replacing it.</p>
+     *
+     * @param expr the query to issue
+     * @return the query result
+     */
+    public CompletableFuture<Value> query(Expr expr) {
+        while(true) {
+            CompletableFuture<Value> result = current().tryQuery(expr);
+            if(result != null) return result;
+        }
+    }
+
+    /**
+     * It returns the client for the tenant set
+     * at the current {@link FaunaTenantContext}.
+     *
+     * @return the client for the current tenant
+     */
+    public TenantFaunaClient current() {
+        return FaunaTenantContext.getSecret()
+            .map(this::forSecret)
+            .orElse(defaultClient);
+    }
+
+    /**
+     * It returns the client for the given tenant secret,
+     * creating it if it doesn't exist yet.
+     *
+     * @param secret the tenant secret
+     * @return the client for the given tenant secret
+     */
+    public TenantFaunaClient forSecret(String secret) {
+        TenantFaunaClient client = tenantClients.get(secret);
+        if(client != null) return client;
+
+        FaunaClientProperties.Tenancy tenancy = faunaProperties.getTenancy();
+        client = tenantClients.computeIfAbsent(secret, s ->
+            new TenantFaunaClient(
+                faunaClient.newSessionClient(s),
+                s,
+                tenancy.getMaxConcurrentQueries(),
+                tenancy.getMaxQueuedQueries()));
+
+        if(tenantClients.size() > tenancy.getMaxTenants()) evict(secret, tenancy.getMaxTenants());
+        return client;
+    }
+
+    public int size() {
+        return tenantClients.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("fauna.client.tenants", this, FaunaClientRegistry::size)
+            .description("Tenant clients currently cached")
+            .register(registry);
+    }
+
+    @PreDestroy
+    public void close() {
+        List<TenantFaunaClient> clients = new ArrayList<>(tenantClients.values());
+        tenantClients.clear();
+        clients.forEach(TenantFaunaClient::close);
+    }
+
+    /**
+     * It evicts the least recently used idle clients, but the one for the given
+     * secret which has just been added, until there are no more than the given
+     * number of them. Only one thread makes room at a time, as it takes a scan
+     * of all the clients, while the other ones go on meanwhile.
+     */
+    private void evict(String added, int maxTenants) {
+        if(!evicting.tryLock()) return;
+        try {
+            while(tenantClients.size() > maxTenants) {
+                Map.Entry<String, TenantFaunaClient> eldest =
+                    tenantClients.entrySet().stream()
+                        .filter(entry -> !entry.getKey().equals(added) && entry.getValue().isIdle())
+                        .min(Comparator.comparingLong(entry -> entry.getValue().getLastUsedNanos()))
+                        .orElse(null);
+
+                // All busy, room is made on the next addition
+                if(eldest == null) break;
+
+                if(tenantClients.remove(eldest.getKey(), eldest.getValue())) eldest.getValue().close();
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.faunadb.persistence.common;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.filter.FilterContext;
+import org.asynchttpclient.filter.RequestFilter;
+
+/**
+ * <p>It charges the usage Fauna reports through the headers of each response
+ * to the {@link QueryCost} of the query being sent, see {@link QueryCostContext}:
+ * read, write and compute ops, query time, and storage bytes read and written.</p>
+ *
+ * <p>Requests sent while no query cost is being accounted for are left as they are.</p>
+ */
+public class FaunaCostRequestFilter implements RequestFilter {
+
+    private static final String READ_OPS_HEADER = "x-read-ops";
+    private static final String WRITE_OPS_HEADER = "x-write-ops";
+    private static final String COMPUTE_OPS_HEADER = "x-compute-ops";
+    private static final String QUERY_TIME_HEADER = "x-query-time";
+    private static final String STORAGE_BYTES_READ_HEADER = "x-storage-bytes-read";
+    private static final String STORAGE_BYTES_WRITE_HEADER = "x-storage-bytes-write";
+
+    @Override
+    public <T> FilterContext<T> filter(FilterContext<T> ctx) {
+        return QueryCostContext.query()
+            .map(cost -> new FilterContext.FilterContextBuilder<>(ctx)
+                .asyncHandler(new CostAsyncHandler<>(ctx.getAsyncHandler(), cost))
+                .build())
+            .orElse(ctx);
+    }
+
+    private static long parse(HttpHeaders headers, String name) {
+        String value = headers.get(name);
+        if(value == null) return 0;
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch(NumberFormatException e) {
+            // Not worth failing the query over
+            return 0;
+        }
+    }
+
+    private static class CostAsyncHandler<T> implements AsyncHandler<T> {
+
+        private final AsyncHandler<T> delegate;
+        private final QueryCost cost;
+
+        private CostAsyncHandler(AsyncHandler<T> delegate, QueryCost cost) {
+            this.delegate = delegate;
+            this.cost = cost;
+        }
+
+        @Override
+        public State onStatusReceived(HttpResponseStatus responseStatus) throws Exception {
+            return delegate.onStatusReceived(responseStatus);
+        }
+
+        @Override
+        public State onHeadersReceived(HttpHeaders headers) throws Exception {
+            // Failed queries are charged as well, as Fauna bills them all the same
+            if(headers.contains(QUERY_TIME_HEADER) || headers.contains(READ_OPS_HEADER)) {
+                cost.charge(
+                    parse(headers, READ_OPS_HEADER),
+                    parse(headers, WRITE_OPS_HEADER),
+                    parse(headers, COMPUTE_OPS_HEADER),
+                    parse(headers, QUERY_TIME_HEADER),
+                    parse(headers, STORAGE_BYTES_READ_HEADER),
+                    parse(headers, STORAGE_BYTES_WRITE_HEADER));
+            }
+            return delegate.onHeadersReceived(headers);
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+            return delegate.onBodyPartReceived(bodyPart);
+        }
+
+        @Override
+        public State onTrailingHeadersReceived(HttpHeaders headers) throws Exception {
+            return delegate.onTrailingHeadersReceived(headers);
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            delegate.onThrowable(t);
+        }
+
+        @Override
+        public T onCompleted() throws Exception {
+            return delegate.onCompleted();
+        }
+
+        @Override
+        public void onRetry() {
+            delegate.onRetry();
+        }
+    }
+}
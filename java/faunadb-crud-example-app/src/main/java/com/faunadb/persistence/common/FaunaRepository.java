@@ -1,25 +1,50 @@
 package com.faunadb.persistence.common;
 
-import com.faunadb.client.FaunaClient;
 import com.faunadb.client.errors.NotFoundException;
 import com.faunadb.client.query.Expr;
+import com.faunadb.client.query.Language;
 import com.faunadb.client.query.Pagination;
 import com.faunadb.client.types.Value;
 import com.faunadb.model.common.Entity;
 import com.faunadb.model.common.Page;
 import com.faunadb.model.common.PaginationOptions;
+import com.faunadb.model.common.Versioned;
+import com.faunadb.tracing.Tracing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.lang.Class;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static com.faunadb.client.query.Language.Class;
 import static com.faunadb.client.query.Language.*;
+import static com.faunadb.persistence.common.QueryTemplate.param;
 
 /**
  * Base Repository implementation backed by FaunaDB.
@@ -28,19 +53,143 @@ import static com.faunadb.client.query.Language.*;
  *
  * @see <a href="https://fauna.com/">FaunaDB</a>
  */
-public abstract class FaunaRepository<T extends Entity> implements Repository<T>, IdentityFactory {
+public abstract class FaunaRepository<T extends Entity> implements Repository<T>, IdentityFactory, ChangeListener<T>, MeterBinder {
+
+    /**
+     * Slots taken by the {@link PaginationOptions} in pagination templates,
+     * any other parameter of the query goes from {@link #FIRST_QUERY_PARAM} on.
+     *
+     * @see #paginationTemplate(String, PaginationOptions, Function)
+     */
+    protected static final int SIZE_PARAM = 0;
+    protected static final int AFTER_PARAM = 1;
+    protected static final int BEFORE_PARAM = 2;
+    protected static final int FIRST_QUERY_PARAM = 3;
+
+    @Autowired
+    protected FaunaClientRegistry clientRegistry;
 
     @Autowired
-    protected FaunaClient client;
+    protected FaunaRepositoryProperties repositoryProperties;
+
+    @Autowired
+    protected Tracer tracer;
+
+    @Autowired
+    protected QueryCostRegistry costRegistry;
 
     protected final Class<T> entityType;
     protected final String className;
     protected final String classIndexName;
+    protected final String changesIndexName;
+
+    protected DocumentVersionCache versionCache;
+
+    private final List<ChangeListener<T>> writeListeners = new CopyOnWriteArrayList<>();
 
+    private GroupCommitter<T> groupCommitter;
+
+    private ScheduledExecutorService bulkRemovalScheduler;
+
+    private Counter deadlineExceededCounter;
+
+    private final Map<String, QueryTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * It creates a new FaunaRepository with the given parameters, whose
+     * changes cannot be tracked, see {@link FaunaChangeTracker}.
+     *
+     * @param entityType the type of the Entities in the Repository
+     * @param className the name of the Fauna class backing the Repository
+     * @param classIndexName the name of the Index covering all the Instances in the class
+     */
     public FaunaRepository(Class<T> entityType, String className, String classIndexName) {
+        this(entityType, className, classIndexName, null);
+    }
+
+    /**
+     * It creates a new FaunaRepository with the given parameters.
+     *
+     * @param entityType the type of the Entities in the Repository
+     * @param className the name of the Fauna class backing the Repository
+     * @param classIndexName the name of the Index covering all the Instances in the class
+     * @param changesIndexName the name of the Index covering all the Instances in the class
+     * with their timestamp and Ref as values, in that order – it opts the Repository in for
+     * tracking its changes, see {@link #findChanges}, null to opt out
+     */
+    public FaunaRepository(Class<T> entityType, String className, String classIndexName, String changesIndexName) {
         this.entityType = entityType;
         this.className = className;
         this.classIndexName = classIndexName;
+        this.changesIndexName = changesIndexName;
+    }
+
+    /**
+     * @return whether the Repository has a changes Index, i.e. whether its changes can be tracked
+     */
+    public boolean hasChangesIndex() {
+        return changesIndexName != null;
+    }
+
+    @PostConstruct
+    protected void initVersionCache() {
+        versionCache = new DocumentVersionCache(repositoryProperties.getVersions().getMaxSize());
+    }
+
+    @PostConstruct
+    protected void initGroupCommit() {
+        FaunaRepositoryProperties.GroupCommit settings = repositoryProperties.getGroupCommit();
+        if(!settings.isEnabled()) return;
+
+        groupCommitter = new GroupCommitter<>(className, this::saveAllVersioned, settings);
+        groupCommitter.start();
+    }
+
+    @PreDestroy
+    protected void stopGroupCommit() {
+        if(groupCommitter != null) groupCommitter.stop();
+    }
+
+    @PostConstruct
+    protected void initBulkRemoval() {
+        bulkRemovalScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fauna-bulk-removal-" + className);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    protected void stopBulkRemoval() {
+        bulkRemovalScheduler.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if(groupCommitter != null) groupCommitter.bindTo(registry);
+
+        deadlineExceededCounter = Counter.builder("fauna.repository.deadline.exceeded")
+            .tag("class", className)
+            .description("Queries dropped, or not issued, as the request deadline passed")
+            .register(registry);
+    }
+
+    /**
+     * <p>It registers the given listener for being handed over
+     * the changes made through this Repository, as soon as they
+     * have been written.</p>
+     *
+     * <p>Unlike the changes read from Fauna through {@link #findChanges},
+     * these are known without any lag, but do not include writes made
+     * by anyone else.</p>
+     *
+     * <p>Only the writes made with the default secret are handed over,
+     * as the listeners keep state for the default tenant alone.</p>
+     *
+     * @param listener the listener to register
+     */
+    public void addWriteListener(ChangeListener<T> listener) {
+        writeListeners.add(listener);
     }
 
     /**
@@ -56,8 +205,8 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
     @Override
     public CompletableFuture<String> nextId() {
         CompletableFuture<String> result =
-            client.query(
-                NewId()
+            query("nextId",
+                template("nextId", () -> NewId()).bind()
             )
             .thenApply(value -> value.to(String.class).get());
 
@@ -84,7 +233,7 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
 
 
         CompletableFuture<List<String>> result =
-            client.query(
+            query("nextIds",
                 Map(
                     Value(indexes),
                     Lambda(Value("i"), NewId())
@@ -97,6 +246,13 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
 
     /**
      * {@inheritDoc}
+     *
+     * <p>If group commit is enabled, concurrent saves with the default
+     * secret are grouped into a single transaction, as {@link #saveAll} does.
+     * Each save is still bound by the deadline of its request, and charged
+     * its share of the transaction cost.</p>
+     *
+     * @see GroupCommitter
      * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/write/create">Create</a>
      * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/write/replace">Replace</a>
      * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/basic/if">If</a>
@@ -104,11 +260,15 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
      */
     @Override
     public CompletableFuture<T> save(T entity) {
+        CompletableFuture<Versioned<T>> saved =
+            groupCommitter != null && !FaunaTenantContext.getSecret().isPresent() && !DeadlineContext.get().filter(Deadline::isExpired).isPresent() ?
+                groupCommitter.submit(entity) :
+                query("save", template("save", () -> saveQuery(param(0), param(1))).bind(Value(entity.getId()), Value(entity))).thenApply(this::toVersioned);
+
         CompletableFuture<T> result =
-            client.query(
-                saveQuery(Value(entity.getId()), Value(entity))
-            )
-        .thenApply(this::toEntity);
+            saved
+            .thenApply(this::recordWrite)
+            .thenApply(versioned -> versioned.getEntity().get());
 
         return result;
     }
@@ -124,7 +284,24 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
     @Override
     public CompletableFuture<List<T>> saveAll(List<T> entities) {
         CompletableFuture<List<T>> result =
-            client.query(
+            saveAllVersioned(entities)
+                .thenApply(saved -> saved.stream().map(this::recordWrite).map(versioned -> versioned.getEntity().get()).collect(Collectors.toList()));
+
+        return result;
+    }
+
+    /**
+     * It saves all the given Entities in a single transaction.
+     *
+     * @param entities the Entities to save
+     * @return the saved Entities along with their versions, in the same order
+     *
+     * @see #saveQuery(Expr, Expr)
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/collection/map">Map</a>
+     */
+    protected CompletableFuture<List<Versioned<T>>> saveAllVersioned(List<T> entities) {
+        CompletableFuture<List<Versioned<T>>> result =
+            query("saveAll",
                 Map(
                     Value(entities),
                     Lambda(
@@ -133,8 +310,59 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
                     )
                 )
             )
-            .thenApply(this::toList);
+            .thenApply(value -> value.asCollectionOf(Value.class).get().stream().map(this::toVersioned).collect(Collectors.toList()));
+
+        return result;
+    }
+
+    /**
+     * <p>It saves all the given {@link Versioned} Entities in a single transaction,
+     * each of them only if it has not been modified since the given version.</p>
+     *
+     * <p>Entities modified or removed meanwhile are left as they are, so that
+     * updates derived from a previous read never overwrite someone else's write.</p>
+     *
+     * @param entities the Entities to save, along with the versions they were derived from
+     * @return for each of the given Entities in the same order, the saved Entity along with its
+     * new version, or an empty result if it was modified or removed meanwhile
+     *
+     * @see #saveQuery(Expr, Expr)
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/collection/map">Map</a>
+     */
+    public CompletableFuture<List<Optional<Versioned<T>>>> saveAllIfMatch(List<Versioned<T>> entities) {
+        if(entities.isEmpty()) return CompletableFuture.completedFuture(Collections.emptyList());
+
+        List<Expr> versioned =
+            entities.stream()
+                .map(v -> Obj("entity", Value(v.getEntity().get()), "version", Value(v.getVersion())))
+                .collect(Collectors.toList());
 
+        CompletableFuture<List<Optional<Versioned<T>>>> result =
+            query("saveAllIfMatch",
+                Map(
+                    Arr(versioned),
+                    Lambda(
+                        Value("versioned"),
+                        Let(
+                            "id", Select(Arr(Value("entity"), Value("id")), Var("versioned")),
+                            "entity", Select(Value("entity"), Var("versioned"))
+                        ).in(
+                            If(
+                                Exists(Ref(Class(className), Var("id"))),
+                                If(
+                                    Equals(Select(Value("ts"), Get(Ref(Class(className), Var("id")))), Select(Value("version"), Var("versioned"))),
+                                    saveQuery(Var("id"), Var("entity")),
+                                    Null()
+                                ),
+                                Null()
+                            )
+                        )
+                    )
+                )
+            )
+            .thenApply(value -> value.asCollectionOf(Value.class).get().stream()
+                .map(v -> v.equals(Value.NullV.NULL) ? Optional.<Versioned<T>>empty() : Optional.of(recordWrite(toVersioned(v))))
+                .collect(Collectors.toList()));
 
         return result;
     }
@@ -142,23 +370,83 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
     /**
      * {@inheritDoc}
      * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/write/delete">Delete</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/basic/let">Let</a>
      */
     @Override
     public CompletableFuture<Optional<T>> remove(String id) {
         CompletableFuture<T> result =
-            client.query(
-                Select(
-                    Value("data"),
-                    Delete(Ref(Class(className), Value(id)))
-                )
+            query("remove",
+                template("remove", () ->
+                    Let("doc", Delete(Ref(Class(className), param(0)))).in(
+                        Obj("data", Select(Value("data"), Var("doc")), "ts", Select(Value("ts"), Var("doc")))
+                    )
+                ).bind(Value(id))
             )
-            .thenApply(this::toEntity);
+            .thenApply(this::toVersioned)
+            .thenApply(versioned -> recordRemoval(id, versioned));
 
         CompletableFuture<Optional<T>> optionalResult = toOptionalResult(result);
 
         return optionalResult;
     }
 
+    /**
+     * {@inheritDoc}
+     * @see #removeWhere(String, List, LongConsumer)
+     */
+    @Override
+    public CompletableFuture<Long> removeWhere(String index, List<String> terms) {
+        return removeWhere(index, terms, removed -> {});
+    }
+
+    /**
+     * <p>It removes all the Entities matching the given terms on the given
+     * Index, reporting the number of Entities removed so far after each batch.</p>
+     *
+     * <p>Each batch takes a single transaction, which paginates over the first
+     * {@code fauna-db.repository.bulk-removal.batch-size} matching Entities and
+     * deletes them right away. Batches follow each other until the Index has no
+     * more matches, paced so as not to exceed
+     * {@code fauna-db.repository.bulk-removal.max-rate} Entities per second.
+     * Hence, removing N Entities takes N / batch-size transactions instead of
+     * one request per Entity, without a single transaction growing unbounded.</p>
+     *
+     * <p>Batches are not isolated from each other: Entities matching the terms
+     * after the removal started may get removed too. The Index must have the
+     * Refs of the Entities as values.</p>
+     *
+     * <p>Cancelling the returned future stops the removal before the next batch.
+     * The batch in progress, if any, completes anyway.</p>
+     *
+     * @param index the name of the Index to match Entities on
+     * @param terms the terms to match, in the order the Index defines them
+     * @param progress the consumer of the number of Entities removed so far, called after each batch
+     * @return the number of Entities removed
+     *
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/paginate">Paginate</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/collection/map">Map</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/write/delete">Delete</a>
+     */
+    public CompletableFuture<Long> removeWhere(String index, List<String> terms, LongConsumer progress) {
+        Expr match =
+            terms.size() == 1 ?
+                Match(Index(Value(index)), Value(terms.get(0))) :
+                Match(Index(Value(index)), Arr(terms.stream().map(Language::Value).collect(Collectors.toList())));
+
+        CompletableFuture<Long> result = new CompletableFuture<>();
+
+        // The removal goes on regardless of the deadline of the request starting it
+        Deadline deadline = DeadlineContext.get().orElse(null);
+        DeadlineContext.clear();
+        try {
+            removeBatch(match, 0, progress, result);
+        } finally {
+            DeadlineContext.set(deadline);
+        }
+
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/get">Get</a>
@@ -166,11 +454,13 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
     @Override
     public CompletableFuture<Optional<T>> find(String id) {
         CompletableFuture<T> result =
-            client.query(
-                Select(
-                    Value("data"),
-                    Get(Ref(Class(className), Value(id)))
-                )
+            query("find",
+                template("find", () ->
+                    Select(
+                        Value("data"),
+                        Get(Ref(Class(className), param(0)))
+                    )
+                ).bind(Value(id))
             )
             .thenApply(this::toEntity);
 
@@ -179,6 +469,118 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
         return optionalResult;
     }
 
+    /**
+     * {@inheritDoc}
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/get">Get</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/basic/let">Let</a>
+     */
+    @Override
+    public CompletableFuture<Optional<Versioned<T>>> findVersioned(String id) {
+        CompletableFuture<Versioned<T>> result =
+            query("findVersioned",
+                template("findVersioned", () ->
+                    Let("doc", Get(Ref(Class(className), param(0)))).in(
+                        Obj(
+                            "data", Select(Value("data"), Var("doc")),
+                            "ts", Select(Value("ts"), Var("doc"))
+                        )
+                    )
+                ).bind(Value(id))
+            )
+            .thenApply(this::toVersioned)
+            .thenApply(versioned -> recordRead(id, versioned));
+
+        CompletableFuture<Optional<Versioned<T>>> optionalResult = toOptionalResult(result);
+
+        return optionalResult;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If enabled at {@link FaunaRepositoryProperties.Versions#isLocalValidation()},
+     * a match against the local {@link DocumentVersionCache} is answered straight away
+     * without querying Fauna. Otherwise, the versions are compared within the query
+     * itself, so that the Entity data is only sent back when it has been modified.
+     * The cache only holds the default tenant's versions, so requests with a tenant
+     * secret always go to Fauna.</p>
+     *
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/get">Get</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/basic/let">Let</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/collection/filter">Filter</a>
+     */
+    @Override
+    public CompletableFuture<Optional<Versioned<T>>> findIfModified(String id, List<Long> versions) {
+        if(repositoryProperties.getVersions().isLocalValidation() && isDefaultTenant()) {
+            Optional<Long> cachedVersion = versionCache.get(id).filter(versions::contains);
+            if(cachedVersion.isPresent()) {
+                return CompletableFuture.completedFuture(Optional.of(Versioned.notModified(cachedVersion.get())));
+            }
+        }
+
+        CompletableFuture<Versioned<T>> result =
+            query("findIfModified",
+                Let("doc", Get(Ref(Class(className), Value(id)))).in(
+                    Let("ts", Select(Value("ts"), Var("doc"))).in(
+                        If(
+                            IsNonEmpty(Filter(Value(versions), Lambda(Value("version"), Equals(Var("version"), Var("ts"))))),
+                            Obj("ts", Var("ts")),
+                            Obj("data", Select(Value("data"), Var("doc")), "ts", Var("ts"))
+                        )
+                    )
+                )
+            )
+            .thenApply(this::toVersioned)
+            .thenApply(versioned -> recordRead(id, versioned));
+
+        CompletableFuture<Optional<Versioned<T>>> optionalResult = toOptionalResult(result);
+
+        return optionalResult;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/write/replace">Replace</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/basic/if">If</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/logical/exists">Exists</a>
+     */
+    @Override
+    public CompletableFuture<Optional<Versioned<T>>> replaceIfMatch(T entity, List<Long> versions) {
+        Expr ref = Ref(Class(className), Value(entity.getId()));
+
+        CompletableFuture<Value> result =
+            query("replaceIfMatch",
+                If(
+                    Exists(ref),
+                    Let("ts", Select(Value("ts"), Get(ref))).in(
+                        If(
+                            IsNonEmpty(Filter(Value(versions), Lambda(Value("version"), Equals(Var("version"), Var("ts"))))),
+                            Let("doc", Replace(ref, Obj("data", Value(entity)))).in(
+                                Obj("data", Select(Value("data"), Var("doc")), "ts", Select(Value("ts"), Var("doc")))
+                            ),
+                            Obj("conflict", Var("ts"))
+                        )
+                    ),
+                    Null()
+                )
+            );
+
+        CompletableFuture<Optional<Versioned<T>>> optionalResult =
+            result.thenApply(value -> {
+                if(value.equals(Value.NullV.NULL)) return Optional.empty();
+
+                Optional<Long> conflict = value.at("conflict").to(Long.class).getOptional();
+                if(conflict.isPresent()) {
+                    if(isDefaultTenant()) versionCache.recordRead(entity.getId(), conflict.get());
+                    throw new VersionConflictException(entity.getId(), conflict.get());
+                }
+
+                return Optional.of(recordWrite(toVersioned(value)));
+            });
+
+        return optionalResult;
+    }
+
     /**
      * {@inheritDoc}
      * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/paginate">Paginate</a>
@@ -186,18 +588,433 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
      */
     @Override
     public CompletableFuture<Page<T>> findAll(PaginationOptions po) {
-        Pagination paginationQuery = Paginate(Match(Index(Value(classIndexName))));
+        QueryTemplate template =
+            paginationTemplate("findAll", po, paginationQuery ->
+                Map(
+                    paginationQuery.apply(Match(Index(Value(classIndexName)))),
+                    Lambda(Value("nextRef"), Select(Value("data"), Get(Var("nextRef"))))
+                )
+            );
+
+        CompletableFuture<Page<T>> result =
+            query("findAll", template.bind(paginationParams(po))).thenApply(this::toPage);
+
+        return result;
+    }
+
+    /**
+     * It retrieves a {@link Page} of {@link Versioned} Entities
+     * for the given {@link PaginationOptions}.
+     *
+     * @param po the {@link PaginationOptions} to determine which {@link Page} of results to return
+     * @return a {@link Page} of Versioned Entities
+     *
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/paginate">Paginate</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/collection/map">Map</a>
+     */
+    public CompletableFuture<Page<Versioned<T>>> findAllVersioned(PaginationOptions po) {
+        Pagination paginationQuery = paginationQuery(Match(Index(Value(classIndexName))), po);
+
+        CompletableFuture<Page<Versioned<T>>> result =
+            query("findAllVersioned",
+                Map(
+                    paginationQuery,
+                    Lambda(
+                        Value("nextRef"),
+                        Let("doc", Get(Var("nextRef"))).in(
+                            Obj("data", Select(Value("data"), Var("doc")), "ts", Select(Value("ts"), Var("doc")))
+                        )
+                    )
+                )
+            ).thenApply(this::toVersionedPage);
+
+        return result;
+    }
+
+    /**
+     * <p>It retrieves the Entities for the given Ids, in the same order.</p>
+     *
+     * <p>Ids for which no Entity exists are skipped, hence the
+     * result may contain less Entities than Ids were given.</p>
+     *
+     * @param ids the Ids of the Entities to retrieve
+     * @return a List with the Entities found
+     *
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/collection/map">Map</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/logical/exists">Exists</a>
+     */
+    public CompletableFuture<List<T>> findAllById(List<String> ids) {
+        if(ids.isEmpty()) return CompletableFuture.completedFuture(Collections.emptyList());
+
+        List<Expr> refs = ids.stream().map(id -> Ref(Class(className), Value(id))).collect(Collectors.toList());
+
+        CompletableFuture<List<T>> result =
+            query("findAllById",
+                Map(
+                    Arr(refs),
+                    Lambda(
+                        Value("nextRef"),
+                        If(Exists(Var("nextRef")), Select(Value("data"), Get(Var("nextRef"))), Null())
+                    )
+                )
+            )
+            .thenApply(value -> value.asCollectionOf(Value.class).get().stream()
+                .map(v -> v.to(entityType).getOptional())
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList()));
+
+        return result;
+    }
+
+    /**
+     * <p>It finds the Id the given number of Entities after the given
+     * one in the class Index, for splitting the Repository into ranges.</p>
+     *
+     * <p>Only the Index is read, not the Entities themselves.</p>
+     *
+     * @param from the Id to count from, inclusive, or an empty value to count from the start of the Index
+     * @param distance the number of Entities to count
+     * @return an Optional result with the Id found, empty if there are not that many Entities left
+     *
+     * @see #findRange(Optional, Optional, int)
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/paginate">Paginate</a>
+     */
+    public CompletableFuture<Optional<String>> findSplitPoint(Optional<String> from, int distance) {
+        Pagination paginationQuery = Paginate(Match(Index(Value(classIndexName)))).size(distance);
+        from.ifPresent(id -> paginationQuery.after(Ref(Class(className), Value(id))));
+
+        CompletableFuture<Optional<String>> result =
+            query("findSplitPoint", Obj("split", Select(Arr(Value("after"), Value(0)), paginationQuery, Null())))
+                .thenApply(value -> value.at("split").to(Value.RefV.class).getOptional().map(Value.RefV::getId));
+
+        return result;
+    }
+
+    /**
+     * <p>It retrieves a {@link Page} of {@link Versioned} Entities
+     * within a range of the class Index, in Index order.</p>
+     *
+     * <p>The range goes from the given Id, inclusive, up to the given end Id,
+     * exclusive. Both are positions in the Index rather than actual Entities,
+     * so a range remains valid while Entities are added or removed. The
+     * resulting Page comes with an after cursor, to retrieve the next Page
+     * from, as long as the range has not been exhausted.</p>
+     *
+     * @param from the Id the range starts at, or an empty value to start at the beginning of the Index
+     * @param to the Id the range ends before, or an empty value to end at the end of the Index
+     * @param size the max number of Entities to retrieve
+     * @return a {@link Page} of Versioned Entities within the given range
+     *
+     * @see #findSplitPoint(Optional, int)
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/paginate">Paginate</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/collection/filter">Filter</a>
+     */
+    public CompletableFuture<Page<Versioned<T>>> findRange(Optional<String> from, Optional<String> to, int size) {
+        Pagination paginationQuery = Paginate(Match(Index(Value(classIndexName)))).size(size);
+        from.ifPresent(id -> paginationQuery.after(Ref(Class(className), Value(id))));
+
+        Expr refs = Select(Value("data"), Var("page"));
+        Expr after = Select(Value("after"), Var("page"), Null());
+
+        if(to.isPresent()) {
+            Expr end = Ref(Class(className), Value(to.get()));
+            refs = Filter(refs, Lambda(Value("ref"), LT(Var("ref"), end)));
+            after =
+                If(
+                    Contains(Value("after"), Var("page")),
+                    If(LT(Select(Arr(Value("after"), Value(0)), Var("page")), end), Select(Value("after"), Var("page")), Null()),
+                    Null()
+                );
+        }
+
+        CompletableFuture<Page<Versioned<T>>> result =
+            query("findRange",
+                Let("page", paginationQuery).in(
+                    Obj(
+                        "data",
+                        Map(
+                            refs,
+                            Lambda(
+                                Value("nextRef"),
+                                Let("doc", Get(Var("nextRef"))).in(
+                                    Obj("data", Select(Value("data"), Var("doc")), "ts", Select(Value("ts"), Var("doc")))
+                                )
+                            )
+                        ),
+                        "after", after
+                    )
+                )
+            ).thenApply(this::toVersionedPage);
+
+        return result;
+    }
+
+    /**
+     * It returns the {@link QueryTemplate} for the given query shape,
+     * prebuilding it on first use.
+     *
+     * @param shape the name of the query shape, unique within the Repository
+     * @param query the query to prebuild the template from, with {@link QueryTemplate#param(int)} slots
+     * @return the template for the given query shape
+     */
+    protected QueryTemplate template(String shape, Supplier<Expr> query) {
+        QueryTemplate template = templates.get(shape);
+        if(template == null) template = templates.computeIfAbsent(shape, s -> QueryTemplate.of(s, query.get()));
+        return template;
+    }
+
+    /**
+     * <p>It returns the {@link QueryTemplate} for the given paginated
+     * query shape, prebuilding it on first use.</p>
+     *
+     * <p>As the pagination query varies with the {@link PaginationOptions} present,
+     * there is a template per combination of them. The given function builds up the
+     * query out of a function paginating over a set, which takes the slots from
+     * {@link #SIZE_PARAM} to {@link #BEFORE_PARAM} for the options present.</p>
+     *
+     * @param operation the name of the paginated operation, unique within the Repository
+     * @param po the {@link PaginationOptions} to determine the query shape
+     * @param query the function building up the query
+     * @return the template for the given query shape
+     *
+     * @see #paginationParams(PaginationOptions, Expr...)
+     */
+    protected QueryTemplate paginationTemplate(String operation, PaginationOptions po, Function<Function<Expr, Pagination>, Expr> query) {
+        String shape = operation +
+            (po.getSize().isPresent() ? ":size" : "") +
+            (po.getAfter().isPresent() ? ":after" : "") +
+            (po.getBefore().isPresent() ? ":before" : "");
+
+        return template(shape, () -> query.apply(set -> {
+            Pagination paginationQuery = Paginate(set);
+            po.getSize().ifPresent(size -> paginationQuery.size(param(SIZE_PARAM)));
+            po.getAfter().ifPresent(after -> paginationQuery.after(Ref(Class(className), param(AFTER_PARAM))));
+            po.getBefore().ifPresent(before -> paginationQuery.before(Ref(Class(className), param(BEFORE_PARAM))));
+            return paginationQuery;
+        }));
+    }
+
+    /**
+     * It returns the parameters to bind a pagination template with.
+     *
+     * @param po the {@link PaginationOptions} to bind
+     * @param queryParams any other parameter of the query, from {@link #FIRST_QUERY_PARAM} on
+     * @return the parameters for the template
+     *
+     * @see #paginationTemplate(String, PaginationOptions, Function)
+     */
+    protected Expr[] paginationParams(PaginationOptions po, Expr... queryParams) {
+        Expr[] params = new Expr[FIRST_QUERY_PARAM + queryParams.length];
+        po.getSize().ifPresent(size -> params[SIZE_PARAM] = Value(size));
+        po.getAfter().ifPresent(after -> params[AFTER_PARAM] = Value(after));
+        po.getBefore().ifPresent(before -> params[BEFORE_PARAM] = Value(before));
+        System.arraycopy(queryParams, 0, params, FIRST_QUERY_PARAM, queryParams.length);
+        return params;
+    }
+
+    /**
+     * It builds up a pagination query over the given set
+     * for the given {@link PaginationOptions}.
+     *
+     * @param set the set to paginate over, e.g. an Index match
+     * @param po the {@link PaginationOptions} to determine which {@link Page} of results to return
+     * @return a pagination query over the given set
+     *
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/paginate">Paginate</a>
+     */
+    protected Pagination paginationQuery(Expr set, PaginationOptions po) {
+        Pagination paginationQuery = Paginate(set);
         po.getSize().ifPresent(size -> paginationQuery.size(size));
         po.getAfter().ifPresent(after -> paginationQuery.after(Ref(Class(className), Value(after))));
         po.getBefore().ifPresent(before -> paginationQuery.before(Ref(Class(className), Value(before))));
 
-        CompletableFuture<Page<T>> result =
-            client.query(
+        return paginationQuery;
+    }
+
+    /**
+     * <p>It finds the changes to the Entities in the Repository
+     * which took place after the given position.</p>
+     *
+     * <p>Changes are derived from the events of the changes Index. As its
+     * values include the Instance timestamp, every write to an Instance
+     * results in an event for it. For each of them, the latest state of the
+     * Instance is looked up within the same query, so several events for the
+     * same Instance are collapsed into a single {@link Change}.</p>
+     *
+     * @param after the position to find changes after, either an event
+     * timestamp (inclusive) or a cursor from a previous {@link ChangeSet}
+     * @param size the max number of events to read
+     * @return a {@link ChangeSet} with the changes found
+     * @throws UnsupportedOperationException if the Repository has no changes Index, see {@link #hasChangesIndex()}
+     *
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/paginate">Paginate</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/events">Events</a>
+     */
+    public CompletableFuture<ChangeSet<T>> findChanges(Expr after, int size) {
+        if(!hasChangesIndex()) {
+            throw new UnsupportedOperationException("No changes Index defined for class [" + className + "]");
+        }
+
+        Pagination eventsQuery = Paginate(Match(Index(Value(changesIndexName)))).events(true).after(after).size(size);
+
+        CompletableFuture<ChangeSet<T>> result =
+            query("findChanges",
                 Map(
-                    paginationQuery,
-                    Lambda(Value("nextRef"), Select(Value("data"), Get(Var("nextRef"))))
+                    eventsQuery,
+                    Lambda(
+                        Value("event"),
+                        Let("ref", Select(Arr(Value("data"), Value(1)), Var("event"))).in(
+                            Obj(
+                                "ts", Select(Value("ts"), Var("event")),
+                                "ref", Var("ref"),
+                                "doc", If(Exists(Var("ref")), Get(Var("ref")), Null())
+                            )
+                        )
+                    )
                 )
-            ).thenApply(this::toPage);
+            )
+            .thenApply(this::toChangeSet);
+
+        return result;
+    }
+
+    /**
+     * <p>It keeps the local {@link DocumentVersionCache} current
+     * with changes made to the Repository by other writers.</p>
+     *
+     * @param changes the changes to apply, in the order they took place
+     */
+    @Override
+    public void onChanges(List<Change<T>> changes) {
+        changes.forEach(change -> {
+            if(change.isRemoval()) versionCache.recordRemoval(change.getId());
+            else versionCache.recordRead(change.getId(), change.getVersion());
+        });
+    }
+
+    /**
+     * It preloads the local version cache with the first Entities in
+     * the Repository, so that conditional reads for them can be
+     * answered without querying Fauna from the start.
+     *
+     * @param size the max number of Entities to preload
+     * @return the number of Entities preloaded
+     */
+    public CompletableFuture<Integer> preload(int size) {
+        PaginationOptions po = new PaginationOptions(Optional.of(size), Optional.empty(), Optional.empty());
+
+        CompletableFuture<Integer> result =
+            findAllVersioned(po)
+                .thenApply(page -> {
+                    page.getData().forEach(versioned -> recordRead(versioned.getEntity().get().getId(), versioned));
+                    return page.getData().size();
+                });
+
+        return result;
+    }
+
+    /**
+     * <p>It issues the given query through the client
+     * of the tenant the current request is working for.</p>
+     *
+     * <p>All queries from a Repository should be issued through
+     * this method rather than through a client directly.</p>
+     *
+     * <p>Each query gets a span, nested into the current one, which records
+     * the operation, the query shape if bound from a {@link QueryTemplate},
+     * and the Fauna response details, see {@link FaunaTracingRequestFilter}.
+     * The stages composed on top of the result run with the current span
+     * restored, so that further queries are nested into it as well.</p>
+     *
+     * <p>If the current request has a {@link Deadline}, the query is not issued
+     * at all once it has passed, and its result is failed with a
+     * {@link DeadlineExceededException} as soon as it passes, or the request is
+     * cancelled, while the query is queued or in flight. Hence, no further hop
+     * is started for nobody. The stages composed on top of the result run with
+     * the deadline restored, so that further queries are bound by it as well.</p>
+     *
+     * <p>The usage Fauna reports for the query is charged both to the operation
+     * and to the request it is issued for, see {@link QueryCostRegistry}. The
+     * stages composed on top of the result run with the OpenTelemetry context
+     * restored, so that further queries are charged to the same request.</p>
+     *
+     * @param operation the name of the Repository operation issuing the query
+     * @param expr the query to issue
+     * @return the query result
+     *
+     * @see FaunaClientRegistry
+     */
+    protected CompletableFuture<Value> query(String operation, Expr expr) {
+        Deadline deadline = DeadlineContext.get().orElse(null);
+        if(deadline != null && deadline.isExpired()) {
+            if(deadlineExceededCounter != null) deadlineExceededCounter.increment();
+            CompletableFuture<Value> result = new CompletableFuture<>();
+            result.completeExceptionally(deadline.exceeded());
+            return result;
+        }
+
+        Context parent = Context.current();
+        Span span =
+            tracer.spanBuilder(operation + " " + className)
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute(Tracing.DB_SYSTEM, "fauna")
+                .setAttribute(Tracing.DB_OPERATION, operation)
+                .setAttribute(Tracing.FAUNA_CLASS, className)
+                .startSpan();
+
+        boolean recording = span.isRecording();
+        boolean accounting = costRegistry.isEnabled();
+        if(!recording && !accounting) {
+            return send(expr, deadline);
+        }
+
+        Context context = parent;
+        if(recording) {
+            QueryTemplate.nameOf(expr).ifPresent(shape -> span.setAttribute(Tracing.FAUNA_QUERY_SHAPE, shape));
+            context = context.with(span);
+        }
+        if(accounting) {
+            QueryCost operationCost = costRegistry.operation(className, operation);
+            operationCost.count();
+            context = QueryCostContext.withQuery(context, new QueryCost(operationCost, QueryCostContext.request(parent).orElse(null)));
+        }
+
+        CompletableFuture<Value> result = new CompletableFuture<>();
+        try(Scope ignored = context.makeCurrent()) {
+            send(expr, deadline).whenComplete((value, throwable) -> {
+                // Not found is a regular outcome for most operations
+                if(recording) Tracing.end(span, throwable instanceof NotFoundException ? null : throwable);
+                try(Scope restored = parent.makeCurrent()) {
+                    if(throwable != null) result.completeExceptionally(throwable);
+                    else result.complete(value);
+                }
+            });
+        }
+
+        return result;
+    }
+
+    /**
+     * It sends the given query through the client of the current tenant, bound
+     * to the given deadline if any, which is restored on completion.
+     */
+    private CompletableFuture<Value> send(Expr expr, Deadline deadline) {
+        if(deadline == null) return clientRegistry.query(expr);
+
+        CompletableFuture<Value> result = new CompletableFuture<>();
+        deadline.bind(clientRegistry.query(expr)).whenComplete((value, throwable) -> {
+            if(throwable instanceof DeadlineExceededException && deadlineExceededCounter != null) deadlineExceededCounter.increment();
+
+            Deadline previous = DeadlineContext.get().orElse(null);
+            DeadlineContext.set(deadline);
+            try {
+                if(throwable != null) result.completeExceptionally(throwable);
+                else result.complete(value);
+            } finally {
+                DeadlineContext.set(previous);
+            }
+        });
 
         return result;
     }
@@ -206,6 +1023,9 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
      * It leverages Fauna Query Language enriched features to build
      * a transactional query for performing a valid {@link Repository#save} operation.
      *
+     * <p>The query results in an Object with the saved Entity data under
+     * the {@code data} field and its new version under the {@code ts} field.</p>
+     *
      * @param id the Id of the Entity to be saved
      * @param data the data of the Entity to be saved
      *
@@ -215,16 +1035,19 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
      * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/write/replace">Replace</a>
      * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/basic/if">If</a>
      * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/logical/exists">Exists</a>
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/basic/let">Let</a>
      */
     protected Expr saveQuery(Expr id, Expr data) {
         Expr query =
-            Select(
-                Value("data"),
+            Let(
+                "doc",
                 If(
                     Exists(Ref(Class(className), id)),
                     Replace(Ref(Class(className), id), Obj("data", data)),
                     Create(Ref(Class(className), id), Obj("data", data))
                 )
+            ).in(
+                Obj("data", Select(Value("data"), Var("doc")), "ts", Select(Value("ts"), Var("doc")))
             );
 
         return query;
@@ -245,6 +1068,59 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
         return value.to(entityType).get();
     }
 
+    /**
+     * <p>It converts a FaunaDB {@link Value} into a {@link Versioned} {@link Entity}.</p>
+     *
+     * <p>The Value to convert from must be an Object containing the version
+     * under the {@code ts} field and, unless the Entity has not been modified,
+     * the Entity data under the {@code data} field.</p>
+     *
+     * @param value the Value to convert from
+     * @return the converted Versioned Entity from the given Value
+     *
+     * @see <a href="https://github.com/fauna/faunadb-jvm/blob/master/docs/java.md#how-to-work-with-user-defined-classes">Encoding and decoding user defined classes</a>
+     */
+    protected Versioned<T> toVersioned(Value value) {
+        T entity = value.at("data").to(entityType).getOptional().orElse(null);
+        long version = value.at("ts").to(Long.class).get();
+
+        return new Versioned<>(entity, version);
+    }
+
+    /**
+     * <p>It converts a FaunaDB {@link Value} into a {@link ChangeSet} with {@link Entity} type.</p>
+     *
+     * <p>The Value to convert from must be a Fauna Page of events, each of them
+     * mapped into an Object with the event timestamp under the {@code ts} field,
+     * the Ref of the changed Instance under the {@code ref} field and its latest
+     * state, if it still exists, under the {@code doc} field.</p>
+     *
+     * @param value the Value to convert from
+     * @return the converted ChangeSet from the given Value
+     */
+    protected ChangeSet<T> toChangeSet(Value value) {
+        Map<String, Change<T>> changes = new LinkedHashMap<>();
+        Collection<Value> events = value.at("data").collect(Value.class);
+        long position = 0;
+
+        for(Value event : events) {
+            String id = event.at("ref").to(Value.RefV.class).get().getId();
+            long ts = event.at("ts").to(Long.class).get();
+            Optional<Value> doc = event.at("doc").getOptional();
+
+            T entity = doc.flatMap(d -> d.at("data").to(entityType).getOptional()).orElse(null);
+            long version = doc.flatMap(d -> d.at("ts").to(Long.class).getOptional()).orElse(ts);
+
+            changes.remove(id);
+            changes.put(id, new Change<>(id, version, entity));
+            position = Math.max(position, ts);
+        }
+
+        Optional<Value> after = value.at("after").getOptional();
+
+        return new ChangeSet<>(new ArrayList<>(changes.values()), events.size(), position, after);
+    }
+
     /**
      * <p>It converts a FaunaDB {@link Value} into a {@link List} with {@link Entity} type.</p>
      *
@@ -296,6 +1172,26 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
         return page;
     }
 
+    /**
+     * <p>It converts a FaunaDB {@link Value} into a {@link Page} with {@link Versioned} {@link Entity} type.</p>
+     *
+     * <p>The Value to convert from must be a Fauna Page type, with each
+     * element being an Object as described at {@link #toVersioned}.</p>
+     *
+     * @param value the Value to convert from
+     * @return the converted Page of Versioned Entities from the given Value
+     *
+     * @see #toPage(Value)
+     */
+    protected Page<Versioned<T>> toVersionedPage(Value value) {
+        Optional<String> after = value.at("after").asCollectionOf(Value.RefV.class).map(c -> c.iterator().next().getId()).getOptional();
+        Optional<String> before = value.at("before").asCollectionOf(Value.RefV.class).map(c -> c.iterator().next().getId()).getOptional();
+
+        List<Versioned<T>> data = value.at("data").collect(Value.class).stream().map(this::toVersioned).collect(Collectors.toList());
+
+        return new Page<>(data, before, after);
+    }
+
     /**
      * <p>It recovers from a {@link NotFoundException} with an Optional result.</p>
      *
@@ -311,12 +1207,13 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
      * the same failing result.</p>
      *
      * @param result the result to transform from
+     * @param <R> the type of the result
      * @return a new Optional result derived from the original result
      */
-    protected CompletableFuture<Optional<T>> toOptionalResult(CompletableFuture<T> result) {
-        CompletableFuture<Optional<T>> optionalResult =
+    protected <R> CompletableFuture<Optional<R>> toOptionalResult(CompletableFuture<R> result) {
+        CompletableFuture<Optional<R>> optionalResult =
             result.handle((v, t) -> {
-                CompletableFuture<Optional<T>> r = new CompletableFuture<>();
+                CompletableFuture<Optional<R>> r = new CompletableFuture<>();
                 if(v != null) r.complete(Optional.of(v));
                 else if(t != null && t.getCause() instanceof NotFoundException) r.complete(Optional.empty());
                 else r.completeExceptionally(t);
@@ -326,4 +1223,117 @@ public abstract class FaunaRepository<T extends Entity> implements Repository<T>
         return optionalResult;
     }
 
+    /**
+     * <p>It tells whether the current request works with the default secret.</p>
+     *
+     * <p>The version cache, as well as the write listeners, only keep state for
+     * the default tenant. Another tenant's Entities must not leak into it, as
+     * Ids are only unique within a database.</p>
+     *
+     * @return true if working for the default tenant, false if for another one
+     */
+    protected boolean isDefaultTenant() {
+        return !FaunaTenantContext.getSecret().isPresent();
+    }
+
+    protected Versioned<T> recordRead(String id, Versioned<T> versioned) {
+        if(isDefaultTenant()) versionCache.recordRead(id, versioned.getVersion());
+        return versioned;
+    }
+
+    protected Versioned<T> recordWrite(Versioned<T> versioned) {
+        T entity = versioned.getEntity().get();
+        if(isDefaultTenant()) versionCache.recordWrite(entity.getId(), versioned.getVersion());
+        notifyWriteListeners(new Change<>(entity.getId(), versioned.getVersion(), entity));
+        return versioned;
+    }
+
+    private T recordRemoval(String id, Versioned<T> versioned) {
+        recordRemoval(id, versioned.getVersion());
+        return versioned.getEntity().get();
+    }
+
+    private void recordRemoval(String id, long version) {
+        if(isDefaultTenant()) versionCache.recordRemoval(id);
+        notifyWriteListeners(new Change<>(id, version, null));
+    }
+
+    /**
+     * It removes the next batch of Entities in the given match, and schedules
+     * the one after, if any left, once the max rate allows for it.
+     */
+    private void removeBatch(Expr match, long removedSoFar, LongConsumer progress, CompletableFuture<Long> result) {
+        // Cancelled meanwhile
+        if(result.isDone()) return;
+
+        FaunaRepositoryProperties.BulkRemoval settings = repositoryProperties.getBulkRemoval();
+        long start = System.nanoTime();
+
+        query("removeWhere",
+            Let("page", Paginate(match).size(settings.getBatchSize())).in(
+                Obj(
+                    "removed",
+                    Map(
+                        Select(Value("data"), Var("page")),
+                        Lambda(
+                            Value("ref"),
+                            Let("doc", Delete(Var("ref"))).in(
+                                Obj("ref", Var("ref"), "ts", Select(Value("ts"), Var("doc")))
+                            )
+                        )
+                    ),
+                    "more", Contains(Value("after"), Var("page"))
+                )
+            )
+        )
+        .whenComplete((value, throwable) -> {
+            if(throwable != null) {
+                result.completeExceptionally(throwable);
+                return;
+            }
+
+            // Anything failing from here on, e.g. decoding or a listener, fails the removal rather than leaving it pending
+            try {
+                List<Value> removed = value.at("removed").collect(Value.class).stream().collect(Collectors.toList());
+                removed.forEach(v -> recordRemoval(v.at("ref").to(Value.RefV.class).get().getId(), v.at("ts").to(Long.class).get()));
+
+                long removedCount = removedSoFar + removed.size();
+                if(!removed.isEmpty()) progress.accept(removedCount);
+
+                if(result.isDone()) return;
+                if(removed.isEmpty() || !value.at("more").to(Boolean.class).get()) {
+                    result.complete(removedCount);
+                    return;
+                }
+
+                long minNanos = settings.getMaxRate() > 0 ? TimeUnit.SECONDS.toNanos(removed.size()) / settings.getMaxRate() : 0;
+                long delay = Math.max(0, minNanos - (System.nanoTime() - start));
+
+                // The next batch goes on behalf of the same tenant, within the same trace
+                String secret = FaunaTenantContext.getSecret().orElse(null);
+                Runnable next = Context.current().wrap(() -> {
+                    FaunaTenantContext.setSecret(secret);
+                    try {
+                        removeBatch(match, removedCount, progress, result);
+                    } catch(Throwable t) {
+                        result.completeExceptionally(t);
+                    } finally {
+                        FaunaTenantContext.clear();
+                    }
+                });
+
+                bulkRemovalScheduler.schedule(next, delay, TimeUnit.NANOSECONDS);
+            } catch(Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+    }
+
+    private void notifyWriteListeners(Change<T> change) {
+        if(writeListeners.isEmpty() || !isDefaultTenant()) return;
+
+        List<Change<T>> changes = Collections.singletonList(change);
+        writeListeners.forEach(listener -> listener.onChanges(changes));
+    }
+
 }
@@ -0,0 +1,559 @@
+package com.faunadb.persistence.common;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * It contains the settings shared by
+ * all {@link FaunaRepository} implementations.
+ */
+@Component
+@ConfigurationProperties(prefix = "fauna-db.repository")
+public class FaunaRepositoryProperties {
+
+    private final Versions versions = new Versions();
+    private final Changes changes = new Changes();
+    private final Views views = new Views();
+    private final GroupCommit groupCommit = new GroupCommit();
+    private final Idempotency idempotency = new Idempotency();
+    private final WarmUp warmUp = new WarmUp();
+    private final Jobs jobs = new Jobs();
+    private final BulkRemoval bulkRemoval = new BulkRemoval();
+    private final Cost cost = new Cost();
+
+    public Versions getVersions() {
+        return versions;
+    }
+
+    public Changes getChanges() {
+        return changes;
+    }
+
+    public Views getViews() {
+        return views;
+    }
+
+    public GroupCommit getGroupCommit() {
+        return groupCommit;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public WarmUp getWarmUp() {
+        return warmUp;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public BulkRemoval getBulkRemoval() {
+        return bulkRemoval;
+    }
+
+    public Cost getCost() {
+        return cost;
+    }
+
+    /**
+     * It contains the settings for the local cache of Entity versions.
+     *
+     * @see DocumentVersionCache
+     */
+    public static class Versions {
+
+        /**
+         * Max number of Entity versions to keep cached per Repository.
+         */
+        private int maxSize = 10000;
+
+        /**
+         * <p>Whether conditional reads can be answered from the local version
+         * cache without querying Fauna.</p>
+         *
+         * <p>Only safe if every write goes through this application,
+         * or if the cache is kept current from Fauna's change events.</p>
+         */
+        private boolean localValidation = false;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public boolean isLocalValidation() {
+            return localValidation;
+        }
+
+        public void setLocalValidation(boolean localValidation) {
+            this.localValidation = localValidation;
+        }
+    }
+
+    /**
+     * It contains the settings for tracking the changes made to the Repositories.
+     *
+     * @see FaunaChangeTracker
+     */
+    public static class Changes {
+
+        /**
+         * Whether changes should be tracked for keeping local caches and views current.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Time to wait between polls once all the pending changes have been read.
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /**
+         * Max number of change events to read per query.
+         */
+        private int pageSize = 100;
+
+        /**
+         * Directory where the position of each tracker is checkpointed.
+         */
+        private String checkpointDirectory = ".";
+
+        /**
+         * Max expected lag of the local caches and views, a warning is logged beyond it.
+         */
+        private Duration maxLag = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public String getCheckpointDirectory() {
+            return checkpointDirectory;
+        }
+
+        public void setCheckpointDirectory(String checkpointDirectory) {
+            this.checkpointDirectory = checkpointDirectory;
+        }
+
+        public Duration getMaxLag() {
+            return maxLag;
+        }
+
+        public void setMaxLag(Duration maxLag) {
+            this.maxLag = maxLag;
+        }
+    }
+
+    /**
+     * It contains the settings for the local, in-memory views
+     * the Repositories can answer lookups from.
+     *
+     * @see LocalIndex
+     */
+    public static class Views {
+
+        /**
+         * <p>Whether lookups can be answered from the local views once they have been loaded.</p>
+         *
+         * <p>Views are kept current through this application writes, and also
+         * through Fauna's change events if changes tracking is enabled.</p>
+         */
+        private boolean enabled = false;
+
+        /**
+         * Max number of Entities to read per query while loading the views.
+         */
+        private int loadPageSize = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLoadPageSize() {
+            return loadPageSize;
+        }
+
+        public void setLoadPageSize(int loadPageSize) {
+            this.loadPageSize = loadPageSize;
+        }
+    }
+
+    /**
+     * It contains the settings for grouping concurrent saves into a single transaction.
+     *
+     * @see GroupCommitter
+     */
+    public static class GroupCommit {
+
+        /**
+         * Whether concurrent saves with the default secret should be grouped.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Max number of Entities to save per transaction.
+         */
+        private int maxBatchSize = 64;
+
+        /**
+         * Max time a save can wait for others to be grouped with.
+         */
+        private Duration maxLinger = Duration.ofMillis(5);
+
+        /**
+         * Max number of saves waiting to be flushed, further saves are rejected.
+         */
+        private int maxQueued = 10000;
+
+        /**
+         * Max number of transactions in flight at once.
+         */
+        private int maxInFlight = 4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public Duration getMaxLinger() {
+            return maxLinger;
+        }
+
+        public void setMaxLinger(Duration maxLinger) {
+            this.maxLinger = maxLinger;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public void setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+    }
+
+    /**
+     * It contains the settings for the local cache of idempotency keys.
+     *
+     * @see IdempotencyKeyCache
+     */
+    public static class Idempotency {
+
+        /**
+         * Time to answer replays of an idempotency key locally, without querying Fauna.
+         */
+        private Duration cacheTtl = Duration.ofMinutes(1);
+
+        /**
+         * Max number of idempotency keys to keep cached per Repository.
+         */
+        private int cacheMaxSize = 10000;
+
+        public Duration getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(Duration cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+
+        public int getCacheMaxSize() {
+            return cacheMaxSize;
+        }
+
+        public void setCacheMaxSize(int cacheMaxSize) {
+            this.cacheMaxSize = cacheMaxSize;
+        }
+    }
+
+    /**
+     * It contains the settings for warming up the Repositories before taking traffic.
+     *
+     * @see FaunaWarmUp
+     */
+    public static class WarmUp {
+
+        /**
+         * Whether the Repositories should be warmed up on startup, being reported out of service meanwhile.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of concurrent queries to open connections to Fauna with.
+         */
+        private int connections = 8;
+
+        /**
+         * Number of rounds of synthetic queries to run.
+         */
+        private int iterations = 200;
+
+        /**
+         * Max number of Entities to preload into the local caches.
+         */
+        private int preloadSize = 1000;
+
+        /**
+         * Max time to spend warming up, the application is reported ready afterwards anyway.
+         */
+        private Duration maxDuration = Duration.ofSeconds(60);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getConnections() {
+            return connections;
+        }
+
+        public void setConnections(int connections) {
+            this.connections = connections;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+        }
+
+        public int getPreloadSize() {
+            return preloadSize;
+        }
+
+        public void setPreloadSize(int preloadSize) {
+            this.preloadSize = preloadSize;
+        }
+
+        public Duration getMaxDuration() {
+            return maxDuration;
+        }
+
+        public void setMaxDuration(Duration maxDuration) {
+            this.maxDuration = maxDuration;
+        }
+    }
+
+    /**
+     * It contains the settings for the jobs scanning
+     * and updating all the Entities of a Repository.
+     *
+     * @see ScanUpdateJob
+     */
+    public static class Jobs {
+
+        /**
+         * Whether the jobs can be run through the jobs actuator endpoint.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Max number of partitions scanned at once.
+         */
+        private int parallelism = 4;
+
+        /**
+         * Number of Entities per partition the Repository is split into.
+         */
+        private int partitionSize = 10000;
+
+        /**
+         * Number of Entities read and written back per query.
+         */
+        private int chunkSize = 100;
+
+        /**
+         * Max number of times an Entity modified meanwhile by someone else is read and updated again.
+         */
+        private int maxConflictRetries = 3;
+
+        /**
+         * Directory where the progress of each job is checkpointed into.
+         */
+        private String checkpointDirectory = ".";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getPartitionSize() {
+            return partitionSize;
+        }
+
+        public void setPartitionSize(int partitionSize) {
+            this.partitionSize = partitionSize;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getMaxConflictRetries() {
+            return maxConflictRetries;
+        }
+
+        public void setMaxConflictRetries(int maxConflictRetries) {
+            this.maxConflictRetries = maxConflictRetries;
+        }
+
+        public String getCheckpointDirectory() {
+            return checkpointDirectory;
+        }
+
+        public void setCheckpointDirectory(String checkpointDirectory) {
+            this.checkpointDirectory = checkpointDirectory;
+        }
+    }
+
+    /**
+     * It contains the settings for removing all the
+     * Entities matching an Index in batches.
+     *
+     * @see FaunaRepository#removeWhere(String, java.util.List, java.util.function.LongConsumer)
+     */
+    public static class BulkRemoval {
+
+        /**
+         * Whether Entities can be removed in bulk through the admin endpoints.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Time the admin endpoints stream the progress of a removal for, past which the removal is cancelled.
+         */
+        private Duration timeout = Duration.ofMinutes(10);
+
+        /**
+         * Number of Entities removed per transaction.
+         */
+        private int batchSize = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        /**
+         * Max number of Entities removed per second, 0 for no limit.
+         */
+        private int maxRate = 1000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxRate() {
+            return maxRate;
+        }
+
+        public void setMaxRate(int maxRate) {
+            this.maxRate = maxRate;
+        }
+    }
+
+    /**
+     * It contains the settings for accounting for the cost of the queries.
+     *
+     * @see QueryCostRegistry
+     */
+    public static class Cost {
+
+        /**
+         * Whether the usage Fauna reports for each query is accounted for, per Repository operation and REST endpoint.
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.model.common.Entity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * <p>Base implementation for the {@link ScanUpdateJob}s
+ * available over the Entities of a {@link FaunaRepository}.</p>
+ *
+ * <p>Implementations register a named transformation per job, see
+ * {@link #register(String, Function)}. Jobs only run when started,
+ * and resume from their last checkpoint if they did not complete.</p>
+ *
+ * @param <T> the type of the Entities in the Repository
+ */
+public abstract class FaunaScanJobs<T extends Entity> implements MeterBinder {
+
+    @Autowired
+    protected FaunaRepositoryProperties repositoryProperties;
+
+    protected final FaunaRepository<T> repository;
+
+    private final Map<String, Function<T, Optional<T>>> transforms = new LinkedHashMap<>();
+    private final Map<String, ScanUpdateJob<T>> jobs = new LinkedHashMap<>();
+
+    /**
+     * It creates a new FaunaScanJobs with the given parameters.
+     *
+     * @param repository the Repository whose Entities the jobs transform
+     */
+    public FaunaScanJobs(FaunaRepository<T> repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    public void init() {
+        transforms.forEach((name, transform) ->
+            jobs.put(name, new ScanUpdateJob<>(name, repository, transform, repositoryProperties.getJobs()))
+        );
+    }
+
+    @PreDestroy
+    public void stopAll() {
+        jobs.values().forEach(ScanUpdateJob::stop);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        jobs.values().forEach(job -> job.bindTo(registry));
+    }
+
+    /**
+     * It returns the progress of all the jobs, as of their last run.
+     *
+     * @return the progress per job name
+     */
+    public Map<String, ScanJobProgress> getProgress() {
+        Map<String, ScanJobProgress> progress = new LinkedHashMap<>();
+        jobs.forEach((name, job) -> progress.put(name, job.getProgress()));
+        return progress;
+    }
+
+    /**
+     * It returns the progress of the given job, as of its last run.
+     *
+     * @param name the job name
+     * @return an Optional result with the job progress, empty if there is no such job
+     */
+    public Optional<ScanJobProgress> getProgress(String name) {
+        return Optional.ofNullable(jobs.get(name)).map(ScanUpdateJob::getProgress);
+    }
+
+    /**
+     * It starts the given job, unless already running.
+     *
+     * @param name the job name
+     * @return an Optional result with the job progress, empty if there is no such job
+     *
+     * @see ScanUpdateJob#start()
+     */
+    public Optional<ScanJobProgress> start(String name) {
+        return Optional.ofNullable(jobs.get(name)).map(job -> {
+            synchronized(job) {
+                return job.isRunning() ? job.getProgress() : job.start();
+            }
+        });
+    }
+
+    /**
+     * It stops the given job, if running.
+     *
+     * @param name the job name
+     * @return an Optional result with the job progress, empty if there is no such job
+     *
+     * @see ScanUpdateJob#stop()
+     */
+    public Optional<ScanJobProgress> stop(String name) {
+        return Optional.ofNullable(jobs.get(name)).map(job -> {
+            job.stop();
+            return job.getProgress();
+        });
+    }
+
+    /**
+     * It registers a job applying the given transformation to every
+     * Entity. It has to be called from the implementation constructor.
+     *
+     * @param name the job name, unique within the Repository
+     * @param transform the transformation, returning the updated Entity, or an
+     * empty result to leave it as it is – it must be idempotent
+     */
+    protected void register(String name, Function<T, Optional<T>> transform) {
+        transforms.put(name, transform);
+    }
+}
@@ -0,0 +1,47 @@
+package com.faunadb.persistence.common;
+
+import java.util.Optional;
+
+/**
+ * <p>It holds the Fauna secret of the tenant the current thread is working for.</p>
+ *
+ * <p>The secret is set by the web layer at the beginning of each request and
+ * restored by {@link TenantFaunaClient} whenever one of its queries completes.
+ * This way, any dependent stage composed on top of a query result, e.g. the
+ * second hop of a service operation, keeps querying on behalf of the same
+ * tenant no matter which thread it ends up running on.</p>
+ */
+public final class FaunaTenantContext {
+
+    private static final ThreadLocal<String> currentSecret = new ThreadLocal<>();
+
+    private FaunaTenantContext() {
+    }
+
+    /**
+     * It returns the secret of the current tenant if any.
+     *
+     * @return the secret of the current tenant or an empty result for the default one
+     */
+    public static Optional<String> getSecret() {
+        return Optional.ofNullable(currentSecret.get());
+    }
+
+    /**
+     * It sets the secret of the current tenant.
+     *
+     * @param secret the secret of the current tenant, null for the default one
+     */
+    public static void setSecret(String secret) {
+        if(secret == null) currentSecret.remove();
+        else currentSecret.set(secret);
+    }
+
+    /**
+     * It clears the secret of the current tenant,
+     * falling back to the default one.
+     */
+    public static void clear() {
+        currentSecret.remove();
+    }
+}
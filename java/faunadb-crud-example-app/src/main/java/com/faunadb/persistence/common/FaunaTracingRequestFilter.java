@@ -0,0 +1,94 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.tracing.Tracing;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.opentelemetry.api.trace.Span;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.filter.FilterContext;
+import org.asynchttpclient.filter.RequestFilter;
+
+/**
+ * <p>It records the details of the responses from Fauna on the
+ * current span when each request is sent, i.e. the one started by
+ * {@link FaunaRepository} for the query being issued.</p>
+ *
+ * <p>The query time reported by Fauna is recorded along with the response size.
+ * Telling apart the former from the span duration shows how long the query
+ * spent on the network and in the connection pool.</p>
+ *
+ * <p>Requests sent while no span is being recorded are left as they are.</p>
+ */
+public class FaunaTracingRequestFilter implements RequestFilter {
+
+    private static final String QUERY_TIME_HEADER = "x-query-time";
+
+    @Override
+    public <T> FilterContext<T> filter(FilterContext<T> ctx) {
+        Span span = Span.current();
+        if(!span.isRecording()) return ctx;
+
+        return new FilterContext.FilterContextBuilder<>(ctx)
+            .asyncHandler(new TracingAsyncHandler<>(ctx.getAsyncHandler(), span))
+            .build();
+    }
+
+    private static class TracingAsyncHandler<T> implements AsyncHandler<T> {
+
+        private final AsyncHandler<T> delegate;
+        private final Span span;
+        private long responseBytes = 0;
+
+        private TracingAsyncHandler(AsyncHandler<T> delegate, Span span) {
+            this.delegate = delegate;
+            this.span = span;
+        }
+
+        @Override
+        public State onStatusReceived(HttpResponseStatus responseStatus) throws Exception {
+            span.setAttribute(Tracing.HTTP_STATUS_CODE, (long) responseStatus.getStatusCode());
+            return delegate.onStatusReceived(responseStatus);
+        }
+
+        @Override
+        public State onHeadersReceived(HttpHeaders headers) throws Exception {
+            String queryTime = headers.get(QUERY_TIME_HEADER);
+            if(queryTime != null) {
+                try {
+                    span.setAttribute(Tracing.FAUNA_QUERY_TIME, Long.parseLong(queryTime));
+                } catch(NumberFormatException e) {
+                    // Not worth failing the query over
+                }
+            }
+            return delegate.onHeadersReceived(headers);
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+            responseBytes += bodyPart.length();
+            return delegate.onBodyPartReceived(bodyPart);
+        }
+
+        @Override
+        public State onTrailingHeadersReceived(HttpHeaders headers) throws Exception {
+            return delegate.onTrailingHeadersReceived(headers);
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            delegate.onThrowable(t);
+        }
+
+        @Override
+        public T onCompleted() throws Exception {
+            span.setAttribute(Tracing.FAUNA_RESPONSE_BYTES, responseBytes);
+            return delegate.onCompleted();
+        }
+
+        @Override
+        public void onRetry() {
+            delegate.onRetry();
+        }
+    }
+}
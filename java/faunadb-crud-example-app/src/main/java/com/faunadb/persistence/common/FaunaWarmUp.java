@@ -0,0 +1,168 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.model.common.Entity;
+import com.faunadb.model.common.Page;
+import com.faunadb.model.common.PaginationOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>Base implementation for warming up a {@link FaunaRepository} before taking traffic.</p>
+ *
+ * <p>Once the application has started, it opens connections to Fauna by issuing
+ * concurrent queries, runs rounds of synthetic queries so that the query and
+ * decoding paths get compiled, and preloads the local caches. Meanwhile, it
+ * reports the application as out of service, along with its progress, so that
+ * load balancers hold the traffic back.</p>
+ *
+ * <p>Warming up is best effort. It is given up after the configured max duration
+ * or on any failure, e.g. Fauna being unreachable, and the application is
+ * reported ready afterwards anyway.</p>
+ *
+ * <p>Note that it only warms up the default tenant.</p>
+ *
+ * @param <T> the type of the Entities in the Repository
+ */
+public abstract class FaunaWarmUp<T extends Entity> implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(FaunaWarmUp.class);
+
+    private static final int QUERY_PAGE_SIZE = 16;
+
+    /**
+     * The steps taken while warming up, in order.
+     */
+    public enum Phase { PENDING, CONNECTIONS, QUERIES, CACHES, DONE }
+
+    @Autowired
+    protected FaunaRepositoryProperties repositoryProperties;
+
+    protected final String name;
+    protected final FaunaRepository<T> repository;
+
+    private volatile Phase phase = Phase.PENDING;
+    private volatile int completedIterations = 0;
+    private volatile long startMillis;
+    private volatile long endMillis;
+    private volatile String failure;
+
+    /**
+     * It creates a new FaunaWarmUp with the given parameters.
+     *
+     * @param name the warm-up name, used for the warm-up thread
+     * @param repository the Repository to warm up
+     */
+    public FaunaWarmUp(String name, FaunaRepository<T> repository) {
+        this.name = name;
+        this.repository = repository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::run, "fauna-warm-up-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = phase == Phase.DONE ? Health.up() : Health.outOfService();
+        health.withDetail("phase", phase);
+
+        if(phase != Phase.PENDING) {
+            health.withDetail("iterations", completedIterations + "/" + repositoryProperties.getWarmUp().getIterations());
+            health.withDetail("elapsed", ((phase == Phase.DONE ? endMillis : System.currentTimeMillis()) - startMillis) + "ms");
+        }
+        if(failure != null) health.withDetail("failure", failure);
+
+        return health.build();
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * It issues the synthetic queries for a single round.
+     * By default, it finds a Page of Entities and a single one.
+     *
+     * @param sample an Entity known to exist, if any
+     * @return the synthetic queries issued
+     */
+    protected List<CompletableFuture<?>> syntheticQueries(Optional<T> sample) {
+        List<CompletableFuture<?>> queries = new ArrayList<>();
+        queries.add(repository.findAll(new PaginationOptions(Optional.of(QUERY_PAGE_SIZE), Optional.empty(), Optional.empty())));
+        queries.add(repository.find(sample.map(Entity::getId).orElse("0")));
+        return queries;
+    }
+
+    /**
+     * It preloads the local caches. By default,
+     * it preloads the Repository version cache.
+     *
+     * @param deadlineMillis the time by which warming up should be over
+     */
+    protected void preloadCaches(long deadlineMillis) throws Exception {
+        int preloaded = repository.preload(repositoryProperties.getWarmUp().getPreloadSize())
+            .get(remainingMillis(deadlineMillis), TimeUnit.MILLISECONDS);
+        logger.debug("Preloaded [{}] versions for warm-up [{}]", preloaded, name);
+    }
+
+    protected long remainingMillis(long deadlineMillis) throws TimeoutException {
+        long remaining = deadlineMillis - System.currentTimeMillis();
+        if(remaining <= 0) throw new TimeoutException("Warm-up took longer than its max duration");
+        return remaining;
+    }
+
+    private void run() {
+        FaunaRepositoryProperties.WarmUp settings = repositoryProperties.getWarmUp();
+        startMillis = System.currentTimeMillis();
+        long deadlineMillis = startMillis + settings.getMaxDuration().toMillis();
+
+        try {
+            phase = Phase.CONNECTIONS;
+            List<CompletableFuture<?>> connections = new ArrayList<>();
+            for(int i = 0; i < settings.getConnections(); i++) connections.add(repository.nextId());
+            awaitAll(connections, deadlineMillis);
+
+            phase = Phase.QUERIES;
+            PaginationOptions first = new PaginationOptions(Optional.of(1), Optional.empty(), Optional.empty());
+            Page<T> page = repository.findAll(first).get(remainingMillis(deadlineMillis), TimeUnit.MILLISECONDS);
+            Optional<T> sample = page.getData().stream().findFirst();
+
+            for(int i = 0; i < settings.getIterations(); i++) {
+                awaitAll(syntheticQueries(sample), deadlineMillis);
+                completedIterations = i + 1;
+            }
+
+            phase = Phase.CACHES;
+            preloadCaches(deadlineMillis);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch(Exception e) {
+            failure = e.toString();
+            logger.warn("Gave up warm-up [{}] during phase [{}]", name, phase, e);
+        } finally {
+            endMillis = System.currentTimeMillis();
+            phase = Phase.DONE;
+            logger.info("Finished warm-up [{}] in [{}] ms", name, endMillis - startMillis);
+        }
+    }
+
+    private void awaitAll(List<CompletableFuture<?>> futures, long deadlineMillis) throws Exception {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+            .get(remainingMillis(deadlineMillis), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,268 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.model.common.Entity;
+import com.faunadb.model.common.Versioned;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <p>It groups concurrent single Entity saves into
+ * multi-Entity writes, i.e. group commit.</p>
+ *
+ * <p>Saves are queued and flushed together as soon as either {@code maxBatchSize}
+ * Entities are waiting, or the oldest one has waited for {@code maxLinger}. Each
+ * flush is a single transaction, hence a single round trip, whose results are
+ * handed back to each caller from its own slot. If the transaction fails, all the
+ * saves in it fail as well.</p>
+ *
+ * <p>Up to {@code maxInFlight} flushes can be in progress at once. Beyond that,
+ * saves keep queueing up to {@code maxQueued}, and are rejected with a
+ * {@link RejectedExecutionException} afterwards, so that callers
+ * get backpressure instead of an ever-growing queue.</p>
+ *
+ * <p>Two saves for the same Entity never go into the same flush, as
+ * the second one would be lost in the transaction. Saves in different
+ * flushes in flight at once are not ordered, though.</p>
+ *
+ * <p>Each save keeps the context of the request submitting it. Saves past their
+ * {@link Deadline} by the time of the flush are failed with a
+ * {@link DeadlineExceededException} rather than flushed. The flush itself runs
+ * with no deadline, as it commits the saves of all the requests in it at once,
+ * while the result of each save is bound to the deadline of its own request
+ * only. This way, a request running out of time never fails its batch-mates
+ * for writes which did happen. The flush is traced within the context of its
+ * first save, and its {@link QueryCost} is split evenly among the requests
+ * of all the saves in it.</p>
+ *
+ * <p>The following metrics are published, tagged by class name:</p>
+ * <ul>
+ *     <li>{@code fauna.repository.group-commit.size}: Entities per flush</li>
+ *     <li>{@code fauna.repository.group-commit.latency}: time spent per flush</li>
+ *     <li>{@code fauna.repository.group-commit.queued}: saves waiting to be flushed</li>
+ * </ul>
+ *
+ * @param <T> the type of the saved Entities
+ */
+public class GroupCommitter<T extends Entity> {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitter.class);
+
+    private final String name;
+    private final Function<List<T>, CompletableFuture<List<Versioned<T>>>> flushFunction;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+
+    private final BlockingQueue<PendingSave<T>> queue;
+    private final Semaphore inFlight;
+    private final Thread flusher;
+
+    private PendingSave<T> carried;
+
+    private DistributionSummary sizeSummary;
+    private Timer latencyTimer;
+
+    /**
+     * It creates a new GroupCommitter with the given parameters.
+     *
+     * @param name the name of the saved Entities class, used for the flusher thread and metrics
+     * @param flushFunction the function saving a batch of Entities in a single transaction, returning
+     * the saved Entities in the same order
+     * @param settings the group commit settings
+     */
+    public GroupCommitter(String name, Function<List<T>, CompletableFuture<List<Versioned<T>>>> flushFunction, FaunaRepositoryProperties.GroupCommit settings) {
+        this.name = name;
+        this.flushFunction = flushFunction;
+        this.maxBatchSize = settings.getMaxBatchSize();
+        this.maxLingerNanos = settings.getMaxLinger().toNanos();
+        this.queue = new LinkedBlockingQueue<>(settings.getMaxQueued());
+        this.inFlight = new Semaphore(settings.getMaxInFlight());
+
+        this.flusher = new Thread(this::run, "fauna-group-commit-" + name);
+        this.flusher.setDaemon(true);
+    }
+
+    public void start() {
+        flusher.start();
+    }
+
+    /**
+     * It stops flushing. Saves still queued are
+     * failed with a {@link CancellationException}.
+     */
+    public void stop() {
+        flusher.interrupt();
+
+        List<PendingSave<T>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(save -> save.result.completeExceptionally(new CancellationException("Group commit stopped")));
+    }
+
+    /**
+     * It queues the given Entity for being saved with the next flush.
+     *
+     * @param entity the Entity to save
+     * @return the saved Entity along with its version, once flushed
+     */
+    public CompletableFuture<Versioned<T>> submit(T entity) {
+        PendingSave<T> save = new PendingSave<>(entity);
+
+        if(!queue.offer(save)) {
+            save.result.completeExceptionally(new RejectedExecutionException("Too many queued saves for " + name));
+        }
+
+        return save.result;
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        sizeSummary = DistributionSummary.builder("fauna.repository.group-commit.size")
+            .tag("class", name)
+            .description("Entities per flush")
+            .register(registry);
+
+        latencyTimer = Timer.builder("fauna.repository.group-commit.latency")
+            .tag("class", name)
+            .description("Time spent per flush")
+            .register(registry);
+
+        Gauge.builder("fauna.repository.group-commit.queued", queue, BlockingQueue::size)
+            .tag("class", name)
+            .description("Saves waiting to be flushed")
+            .register(registry);
+    }
+
+    private void run() {
+        try {
+            while(!Thread.currentThread().isInterrupted()) {
+                List<PendingSave<T>> batch = nextBatch();
+                inFlight.acquire();
+
+                // Saves may well have expired while waiting for a free slot
+                List<PendingSave<T>> live = dropExpired(batch);
+                if(live.isEmpty()) inFlight.release();
+                else flush(live);
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * It waits for the first save, and then for more saves until
+     * either the batch is full or the first one has lingered enough.
+     */
+    private List<PendingSave<T>> nextBatch() throws InterruptedException {
+        List<PendingSave<T>> batch = new ArrayList<>(maxBatchSize);
+        Set<String> ids = new HashSet<>();
+
+        PendingSave<T> first = carried != null ? carried : queue.take();
+        carried = null;
+        batch.add(first);
+        ids.add(first.entity.getId());
+
+        long deadline = first.queuedNanos + maxLingerNanos;
+        while(batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            PendingSave<T> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if(next == null) break;
+
+            if(!ids.add(next.entity.getId())) {
+                carried = next;
+                break;
+            }
+            batch.add(next);
+        }
+
+        return batch;
+    }
+
+    /**
+     * It fails the saves of the given batch past their deadline, and returns the other ones.
+     */
+    private List<PendingSave<T>> dropExpired(List<PendingSave<T>> batch) {
+        List<PendingSave<T>> live = new ArrayList<>(batch.size());
+        for(PendingSave<T> save : batch) {
+            if(save.deadline != null && save.deadline.isExpired()) save.result.completeExceptionally(save.deadline.exceeded());
+            else live.add(save);
+        }
+        return live;
+    }
+
+    private void flush(List<PendingSave<T>> batch) {
+        if(sizeSummary != null) sizeSummary.record(batch.size());
+        long start = System.nanoTime();
+
+        QueryCost batchCost = new QueryCost();
+        Context context = QueryCostContext.withRequest(batch.get(0).context, batchCost);
+
+        // The flush commits the saves of all the requests in it, hence it is bound by none of their deadlines
+        CompletableFuture<List<Versioned<T>>> saved;
+        DeadlineContext.clear();
+        try(Scope ignored = context.makeCurrent()) {
+            saved = flushFunction.apply(batch.stream().map(save -> save.entity).collect(Collectors.toList()));
+        } catch(RuntimeException e) {
+            saved = new CompletableFuture<>();
+            saved.completeExceptionally(e);
+        }
+
+        saved.whenComplete((results, throwable) -> {
+            inFlight.release();
+            if(latencyTimer != null) latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            // Charged ahead of completing the saves, so that it is in by the time their responses complete
+            for(int i = 0; i < batch.size(); i++) {
+                int share = i;
+                QueryCostContext.request(batch.get(i).context).ifPresent(cost -> cost.addShare(batchCost, share, batch.size()));
+            }
+
+            if(throwable != null) logger.debug("Failed to flush [{}] saves for [{}]", batch.size(), name, throwable);
+
+            for(int i = 0; i < batch.size(); i++) {
+                PendingSave<T> save = batch.get(i);
+
+                // Restored for the stages composed on top of the save, as the query would do
+                Deadline previous = DeadlineContext.get().orElse(null);
+                DeadlineContext.set(save.deadline);
+                try {
+                    if(throwable != null) save.result.completeExceptionally(throwable);
+                    else save.result.complete(results.get(i));
+                } finally {
+                    DeadlineContext.set(previous);
+                }
+            }
+        });
+    }
+
+    private static class PendingSave<T extends Entity> {
+
+        private final T entity;
+        private final long queuedNanos = System.nanoTime();
+        private final CompletableFuture<Versioned<T>> result = new CompletableFuture<>();
+        private final Context context = Context.current();
+        private final Deadline deadline = DeadlineContext.get().orElse(null);
+
+        private PendingSave(T entity) {
+            this.entity = entity;
+            if(deadline != null) deadline.bind(result);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.faunadb.persistence.common;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * <p>A local, short-lived cache of the results of the writes made for each idempotency key.</p>
+ *
+ * <p>Replays of a key seen within the last {@code ttl} are answered with the result of
+ * the first write, without querying Fauna. Concurrent replays of a key whose write is still
+ * in flight join it instead of issuing their own. Failed writes are not cached, so that
+ * they can be retried. Replays of a key with another fingerprint, i.e. for another write,
+ * fail with an {@link IdempotencyKeyReusedException}.</p>
+ *
+ * <p>It only saves round trips. Keys are still checked against Fauna once they
+ * have expired or been evicted, which remains the source of truth.</p>
+ *
+ * @param <R> the type of the write results
+ */
+public class IdempotencyKeyCache<R> {
+
+    private final long ttlMillis;
+    private final int maxSize;
+    private final Map<String, Entry<R>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * It creates a new IdempotencyKeyCache with the given parameters.
+     *
+     * @param ttlMillis the time to keep the results of each key
+     * @param maxSize the max number of keys to keep
+     */
+    public IdempotencyKeyCache(long ttlMillis, int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * It returns the result of the write made for the given key if
+     * still cached, or else makes the write and caches its result.
+     *
+     * @param key the idempotency key, scoped by the caller as needed
+     * @param fingerprint the fingerprint of the write, e.g. a hash of its payload
+     * @param write the write to make if the key is not cached
+     * @return the result of the write made for the given key, or a failed
+     * result if the key was used for a write with another fingerprint
+     */
+    public CompletableFuture<R> computeIfAbsent(String key, String fingerprint, Supplier<CompletableFuture<R>> write) {
+        long now = System.currentTimeMillis();
+
+        Entry<R> created = new Entry<>(new CompletableFuture<>(), fingerprint, now + ttlMillis);
+        Entry<R> entry = entries.compute(key, (k, current) ->
+            current != null && !current.isExpired(now) ? current : created
+        );
+
+        if(entry != created) {
+            if(entry.fingerprint.equals(fingerprint)) return entry.result;
+
+            CompletableFuture<R> reused = new CompletableFuture<>();
+            reused.completeExceptionally(new IdempotencyKeyReusedException());
+            return reused;
+        }
+
+        if(entries.size() > maxSize) makeRoom(now);
+
+        write.get().whenComplete((r, t) -> {
+            if(t != null) {
+                entries.remove(key, created);
+                created.result.completeExceptionally(t);
+            } else {
+                created.result.complete(r);
+            }
+        });
+
+        return created.result;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * It removes the expired keys. If there are still too many of them,
+     * arbitrary completed ones are removed as well.
+     */
+    private void makeRoom(long now) {
+        entries.entrySet().removeIf(e -> e.getValue().isExpired(now));
+
+        entries.entrySet().stream()
+            .filter(e -> e.getValue().result.isDone())
+            .limit(Math.max(0, entries.size() - maxSize))
+            .map(Map.Entry::getKey)
+            .forEach(entries::remove);
+    }
+
+    private static class Entry<R> {
+
+        private final CompletableFuture<R> result;
+        private final String fingerprint;
+        private final long expiresAt;
+
+        private Entry(CompletableFuture<R> result, String fingerprint, long expiresAt) {
+            this.result = result;
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.faunadb.persistence.common;
+
+/**
+ * It signals that an idempotency key has been reused
+ * for a write other than the one it was first used for.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyReusedException() {
+        super("Idempotency key was used for a different request");
+    }
+}
@@ -0,0 +1,152 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.model.common.Page;
+import com.faunadb.model.common.PaginationOptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A local, in-memory index from terms to the sorted set
+ * of Ids of the Entities matching each of them.</p>
+ *
+ * <p>Ids are kept in the same order Fauna sorts the Refs covered by an Index
+ * without values, i.e. by their numeric Id, so that Pages built from a local
+ * index line up with the ones Fauna would return.</p>
+ *
+ * <p>It is safe for concurrent use. Entries for the same term
+ * can be added and removed concurrently without locking.</p>
+ */
+public class LocalIndex {
+
+    /**
+     * It compares Ids the way Fauna sorts Refs, that is numerically
+     * for the Ids generated by NewId, and lexicographically otherwise.
+     */
+    public static final Comparator<String> ID_ORDER =
+        Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    /**
+     * Page size Fauna uses when none is given.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 64;
+
+    private final ConcurrentMap<String, NavigableSet<String>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * It adds the given Id under the given term.
+     *
+     * @param term the term to index the Id under
+     * @param id the Id of the Entity matching the term
+     */
+    public void add(String term, String id) {
+        entries.compute(term, (t, ids) -> {
+            NavigableSet<String> termIds = ids != null ? ids : new ConcurrentSkipListSet<>(ID_ORDER);
+            if(termIds.add(id)) size.incrementAndGet();
+            return termIds;
+        });
+    }
+
+    /**
+     * It removes the given Id from the given term.
+     *
+     * @param term the term the Id is indexed under
+     * @param id the Id of the Entity no longer matching the term
+     */
+    public void remove(String term, String id) {
+        entries.computeIfPresent(term, (t, ids) -> {
+            if(ids.remove(id)) size.decrementAndGet();
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * It returns the sorted Ids of the Entities matching the given term.
+     *
+     * @param term the term to look up
+     * @return a read-only view of the sorted Ids, empty if none
+     */
+    public NavigableSet<String> get(String term) {
+        NavigableSet<String> ids = entries.get(term);
+        return ids != null ? Collections.unmodifiableNavigableSet(ids) : Collections.emptyNavigableSet();
+    }
+
+    /**
+     * <p>It returns a {@link Page} of the sorted Ids of the Entities
+     * matching the given term, for the given {@link PaginationOptions}.</p>
+     *
+     * <p>Pages and cursors follow the same rules as Fauna's Paginate, so
+     * that they can be used interchangeably with the ones returned by the
+     * Index the local index mirrors: the after cursor is inclusive,
+     * the before cursor is exclusive, and a cursor is only present
+     * if there are more Ids in its direction.</p>
+     *
+     * @param term the term to look up
+     * @param po the {@link PaginationOptions} to determine which {@link Page} of Ids to return
+     * @return a {@link Page} of Ids
+     *
+     * @see <a href="https://docs.fauna.com/fauna/current/reference/queryapi/read/paginate">Paginate</a>
+     */
+    public Page<String> page(String term, PaginationOptions po) {
+        NavigableSet<String> ids = get(term);
+        int size = po.getSize().orElse(DEFAULT_PAGE_SIZE);
+
+        List<String> data = new ArrayList<>(Math.min(size, ids.size()));
+        Optional<String> before = Optional.empty();
+        Optional<String> after = Optional.empty();
+
+        if(po.getBefore().isPresent() && !po.getAfter().isPresent()) {
+            Iterator<String> previous = ids.headSet(po.getBefore().get(), false).descendingIterator();
+            while(data.size() < size && previous.hasNext()) data.add(previous.next());
+            Collections.reverse(data);
+
+            if(previous.hasNext()) before = Optional.of(data.get(0));
+            if(ids.ceiling(po.getBefore().get()) != null) after = po.getBefore();
+        } else {
+            NavigableSet<String> tail = po.getAfter().map(from -> ids.tailSet(from, true)).orElse(ids);
+            Iterator<String> next = tail.iterator();
+            while(data.size() < size && next.hasNext()) data.add(next.next());
+
+            if(next.hasNext()) after = Optional.of(next.next());
+            if(!data.isEmpty() && ids.lower(data.get(0)) != null) before = Optional.of(data.get(0));
+        }
+
+        return new Page<>(data, before, after);
+    }
+
+    /**
+     * It returns the number of distinct terms in the index.
+     *
+     * @return the number of terms
+     */
+    public int terms() {
+        return entries.size();
+    }
+
+    /**
+     * It returns the number of term and Id pairs in the index.
+     *
+     * @return the number of entries
+     */
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * It removes all the entries from the index.
+     */
+    public void clear() {
+        entries.clear();
+        size.set(0);
+    }
+}
@@ -0,0 +1,143 @@
+package com.faunadb.persistence.common;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>It adds up the usage Fauna reports for the queries charged to it,
+ * as read from the headers of its responses, see {@link FaunaCostRequestFilter}.</p>
+ *
+ * <p>Charges are passed on to the parents of the QueryCost, if any, so that a
+ * single query can be accounted for both to the Repository operation issuing it
+ * and to the request it is issued for. It is safe to charge from several threads
+ * at once, as the queries of a single request may well complete concurrently.</p>
+ */
+public class QueryCost {
+
+    private final QueryCost[] parents;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder readOps = new LongAdder();
+    private final LongAdder writeOps = new LongAdder();
+    private final LongAdder computeOps = new LongAdder();
+    private final LongAdder queryTime = new LongAdder();
+    private final LongAdder storageBytesRead = new LongAdder();
+    private final LongAdder storageBytesWrite = new LongAdder();
+
+    /**
+     * It creates a new QueryCost passing on its charges to the given parents.
+     *
+     * @param parents the QueryCosts to pass on the charges to, null ones being skipped
+     */
+    public QueryCost(QueryCost... parents) {
+        this.parents = parents;
+    }
+
+    /**
+     * It counts a call, i.e. an invocation of the operation
+     * or a request to the endpoint being accounted for.
+     */
+    public void count() {
+        calls.increment();
+    }
+
+    /**
+     * It charges the usage reported by Fauna for a single query.
+     *
+     * @param readOps the read ops consumed
+     * @param writeOps the write ops consumed
+     * @param computeOps the compute ops consumed
+     * @param queryTime the time Fauna spent on the query, in milliseconds
+     * @param storageBytesRead the bytes read from storage
+     * @param storageBytesWrite the bytes written to storage
+     */
+    public void charge(long readOps, long writeOps, long computeOps, long queryTime, long storageBytesRead, long storageBytesWrite) {
+        this.queries.increment();
+        this.readOps.add(readOps);
+        this.writeOps.add(writeOps);
+        this.computeOps.add(computeOps);
+        this.queryTime.add(queryTime);
+        this.storageBytesRead.add(storageBytesRead);
+        this.storageBytesWrite.add(storageBytesWrite);
+
+        for(QueryCost parent : parents) {
+            if(parent != null) parent.charge(readOps, writeOps, computeOps, queryTime, storageBytesRead, storageBytesWrite);
+        }
+    }
+
+    /**
+     * It adds up the usage charged to the given QueryCost so far, calls left apart.
+     *
+     * @param other the QueryCost to add up
+     */
+    public void add(QueryCost other) {
+        queries.add(other.getQueries());
+        readOps.add(other.getReadOps());
+        writeOps.add(other.getWriteOps());
+        computeOps.add(other.getComputeOps());
+        queryTime.add(other.getQueryTime());
+        storageBytesRead.add(other.getStorageBytesRead());
+        storageBytesWrite.add(other.getStorageBytesWrite());
+    }
+
+    /**
+     * <p>It adds up the given share of the usage charged to the given QueryCost
+     * so far, calls left apart, e.g. for splitting the cost of a query among
+     * the requests it was issued for.</p>
+     *
+     * <p>Each usage is split as evenly as integers allow, so that the shares
+     * from 0 to {@code shares - 1} add up to the whole of it.</p>
+     *
+     * @param other the QueryCost to add up a share of
+     * @param share the index of the share to add up, from 0 to {@code shares - 1}
+     * @param shares the number of shares the usage is split into
+     */
+    public void addShare(QueryCost other, int share, int shares) {
+        queries.add(share(other.getQueries(), share, shares));
+        readOps.add(share(other.getReadOps(), share, shares));
+        writeOps.add(share(other.getWriteOps(), share, shares));
+        computeOps.add(share(other.getComputeOps(), share, shares));
+        queryTime.add(share(other.getQueryTime(), share, shares));
+        storageBytesRead.add(share(other.getStorageBytesRead(), share, shares));
+        storageBytesWrite.add(share(other.getStorageBytesWrite(), share, shares));
+    }
+
+    private static long share(long total, int share, int shares) {
+        return total / shares + (share < total % shares ? 1 : 0);
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    public long getReadOps() {
+        return readOps.sum();
+    }
+
+    public long getWriteOps() {
+        return writeOps.sum();
+    }
+
+    public long getComputeOps() {
+        return computeOps.sum();
+    }
+
+    /**
+     * @return the time Fauna spent on the queries, in milliseconds
+     */
+    public long getQueryTime() {
+        return queryTime.sum();
+    }
+
+    public long getStorageBytesRead() {
+        return storageBytesRead.sum();
+    }
+
+    public long getStorageBytesWrite() {
+        return storageBytesWrite.sum();
+    }
+}
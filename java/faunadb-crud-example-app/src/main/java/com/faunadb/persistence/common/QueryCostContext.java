@@ -0,0 +1,62 @@
+package com.faunadb.persistence.common;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+
+import java.util.Optional;
+
+/**
+ * <p>It carries the {@link QueryCost}s to charge the Fauna usage to along with
+ * the OpenTelemetry {@link Context}: the one of the request being served, set
+ * by the web layer, and the one of the query being sent, set by
+ * {@link FaunaRepository#query}.</p>
+ *
+ * <p>Unlike {@link FaunaTenantContext} and {@link DeadlineContext}, it rides on the
+ * OpenTelemetry context rather than on a thread local, as the context is what is
+ * propagated to the HTTP client when a query is sent, queued queries included.</p>
+ */
+public final class QueryCostContext {
+
+    private static final ContextKey<QueryCost> REQUEST_COST = ContextKey.named("fauna-request-cost");
+    private static final ContextKey<QueryCost> QUERY_COST = ContextKey.named("fauna-query-cost");
+
+    private QueryCostContext() {
+    }
+
+    /**
+     * It returns the cost of the request the given context belongs to, if accounted for.
+     *
+     * @param context the context to look into
+     * @return the cost of the request or an empty result if not accounted for
+     */
+    public static Optional<QueryCost> request(Context context) {
+        return Optional.ofNullable(context.get(REQUEST_COST));
+    }
+
+    /**
+     * It returns the cost of the query being sent from the current context, if accounted for.
+     *
+     * @return the cost of the query or an empty result if not accounted for
+     */
+    public static Optional<QueryCost> query() {
+        return Optional.ofNullable(Context.current().get(QUERY_COST));
+    }
+
+    /**
+     * @param context the context to extend
+     * @param cost the cost of the request being served
+     * @return a new context derived from the given one, carrying the given request cost
+     */
+    public static Context withRequest(Context context, QueryCost cost) {
+        return context.with(REQUEST_COST, cost);
+    }
+
+    /**
+     * @param context the context to extend
+     * @param cost the cost of the query being sent
+     * @return a new context derived from the given one, carrying the given query cost
+     */
+    public static Context withQuery(Context context, QueryCost cost) {
+        return context.with(QUERY_COST, cost);
+    }
+}
@@ -0,0 +1,35 @@
+package com.faunadb.persistence.common;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>It exposes what the queries issued so far cost in Fauna, by Repository
+ * operation and by REST endpoint, through the {@code costs} actuator endpoint,
+ * for judging query shapes on cost as well as on latency. Dividing by the
+ * calls gives the average cost of each.</p>
+ *
+ * <p>The costs add up the queries of all the tenants, hence the endpoint
+ * lives along with the metrics rather than with the REST API, and has to
+ * be exposed explicitly, to operators only.</p>
+ */
+@Component
+@Endpoint(id = "costs")
+public class QueryCostEndpoint {
+
+    @Autowired
+    private QueryCostRegistry costRegistry;
+
+    @ReadOperation
+    public Map<String, Object> costs() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("operations", costRegistry.getOperations());
+        result.put("endpoints", costRegistry.getEndpoints());
+        return result;
+    }
+}
@@ -0,0 +1,122 @@
+package com.faunadb.persistence.common;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * <p>It keeps the {@link QueryCost} of every Repository operation and of every
+ * REST endpoint, i.e. what the queries issued by each cost in Fauna so far.</p>
+ *
+ * <p>The following metrics are published for each, tagged by {@code class} and
+ * {@code operation} under {@code fauna.repository.cost}, and by {@code method}
+ * and {@code uri} under {@code fauna.endpoint.cost}:</p>
+ * <ul>
+ *     <li>{@code calls}: operation invocations, or requests</li>
+ *     <li>{@code queries}: queries Fauna reported a usage for</li>
+ *     <li>{@code read.ops}, {@code write.ops} and {@code compute.ops}: ops consumed</li>
+ *     <li>{@code query.time}: time Fauna spent on the queries</li>
+ *     <li>{@code storage.read} and {@code storage.write}: bytes read from and written to storage</li>
+ * </ul>
+ */
+@Component
+public class QueryCostRegistry implements MeterBinder {
+
+    @Autowired
+    private FaunaRepositoryProperties repositoryProperties;
+
+    private final Map<String, Map<String, QueryCost>> operations = new ConcurrentHashMap<>();
+    private final Map<String, QueryCost> endpoints = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry registry;
+
+    /**
+     * @return true if the cost of the queries is accounted for, false if not
+     */
+    public boolean isEnabled() {
+        return repositoryProperties.getCost().isEnabled();
+    }
+
+    /**
+     * It returns the cost of the given Repository operation, created on first use.
+     *
+     * @param className the name of the Fauna class backing the Repository
+     * @param operation the name of the Repository operation
+     * @return the cost of the operation
+     */
+    public QueryCost operation(String className, String operation) {
+        return operations.computeIfAbsent(className, c -> new ConcurrentHashMap<>())
+            .computeIfAbsent(operation, o -> register(new QueryCost(), "fauna.repository.cost", Tags.of("class", className, "operation", operation)));
+    }
+
+    /**
+     * It returns the cost of the given REST endpoint, created on first use.
+     *
+     * @param method the HTTP method of the endpoint
+     * @param route the route pattern of the endpoint, e.g. {@code /posts/{id}}
+     * @return the cost of the endpoint
+     */
+    public QueryCost endpoint(String method, String route) {
+        return endpoints.computeIfAbsent(method + " " + route,
+            e -> register(new QueryCost(), "fauna.endpoint.cost", Tags.of("method", method, "uri", route)));
+    }
+
+    /**
+     * @return the cost of every Repository operation so far, by class and operation name
+     */
+    public Map<String, Map<String, QueryCost>> getOperations() {
+        Map<String, Map<String, QueryCost>> view = new TreeMap<>();
+        operations.forEach((className, costs) -> view.put(className, new TreeMap<>(costs)));
+        return view;
+    }
+
+    /**
+     * @return the cost of every REST endpoint so far, by method and route
+     */
+    public Map<String, QueryCost> getEndpoints() {
+        return new TreeMap<>(endpoints);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+
+        operations.forEach((className, costs) -> costs.forEach((operation, cost) ->
+            register(cost, "fauna.repository.cost", Tags.of("class", className, "operation", operation))));
+        endpoints.forEach((key, cost) -> {
+            String[] endpoint = key.split(" ", 2);
+            register(cost, "fauna.endpoint.cost", Tags.of("method", endpoint[0], "uri", endpoint[1]));
+        });
+    }
+
+    private QueryCost register(QueryCost cost, String prefix, Tags tags) {
+        MeterRegistry registry = this.registry;
+        if(registry == null) return cost;
+
+        counter(registry, cost, prefix + ".calls", tags, null, "Operation invocations or requests accounted for", QueryCost::getCalls);
+        counter(registry, cost, prefix + ".queries", tags, null, "Queries Fauna reported a usage for", QueryCost::getQueries);
+        counter(registry, cost, prefix + ".read.ops", tags, null, "Read ops consumed in Fauna", QueryCost::getReadOps);
+        counter(registry, cost, prefix + ".write.ops", tags, null, "Write ops consumed in Fauna", QueryCost::getWriteOps);
+        counter(registry, cost, prefix + ".compute.ops", tags, null, "Compute ops consumed in Fauna", QueryCost::getComputeOps);
+        counter(registry, cost, prefix + ".query.time", tags, "milliseconds", "Time Fauna spent on the queries", QueryCost::getQueryTime);
+        counter(registry, cost, prefix + ".storage.read", tags, "bytes", "Bytes read from storage in Fauna", QueryCost::getStorageBytesRead);
+        counter(registry, cost, prefix + ".storage.write", tags, "bytes", "Bytes written to storage in Fauna", QueryCost::getStorageBytesWrite);
+        return cost;
+    }
+
+    private static void counter(MeterRegistry registry, QueryCost cost, String name, Tags tags, String baseUnit, String description, ToDoubleFunction<QueryCost> value) {
+        FunctionCounter.builder(name, cost, value)
+            .tags(tags)
+            .baseUnit(baseUnit)
+            .description(description)
+            .register(registry);
+    }
+}
@@ -0,0 +1,196 @@
+package com.faunadb.persistence.common;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.faunadb.client.query.Expr;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * <p>A prebuilt query shape with parameter slots.</p>
+ *
+ * <p>The query is built and serialized once, when the template is created.
+ * Binding it to the actual parameters only builds up the path from the root
+ * of the query down to each slot, while every part without slots is shared
+ * as it was serialized. This way, each call to a Repository operation only
+ * allocates and encodes its variable bits, e.g. Ids and cursors, instead
+ * of the whole {@link Expr} tree.</p>
+ *
+ * <p>Queries whose shape depends on the call, e.g. on which pagination
+ * cursors are given, need a template per shape.</p>
+ *
+ * <pre>{@code
+ * QueryTemplate find = QueryTemplate.of(Get(Ref(Class("posts"), QueryTemplate.param(0))));
+ * client.query(find.bind(Value(id)));
+ * }</pre>
+ */
+public final class QueryTemplate {
+
+    // Same as the FaunaClient one, which serializes queries through valueToTree as well
+    private static final ObjectMapper json = new ObjectMapper().findAndRegisterModules();
+
+    private static final String SLOT_KEY = "@template-param";
+
+    private final String name;
+    private final Part root;
+    private final int arity;
+
+    private QueryTemplate(String name, Part root, int arity) {
+        this.name = name;
+        this.root = root;
+        this.arity = arity;
+    }
+
+    /**
+     * It creates a parameter slot to build a template with.
+     *
+     * @param index the position of the parameter when binding the template
+     * @return an expression standing for the parameter
+     */
+    public static Expr param(int index) {
+        return new Slot(index);
+    }
+
+    /**
+     * It prebuilds a template out of the given query.
+     *
+     * @param query the query, with {@link #param(int)} slots for its parameters
+     * @return the template for the given query
+     */
+    public static QueryTemplate of(Expr query) {
+        return of(null, query);
+    }
+
+    /**
+     * It prebuilds a named template out of the given query.
+     *
+     * @param name the name of the query shape, e.g. for tracing the queries bound from it
+     * @param query the query, with {@link #param(int)} slots for its parameters
+     * @return the template for the given query
+     */
+    public static QueryTemplate of(String name, Expr query) {
+        int[] arity = {0};
+        Part root = compile(json.valueToTree(query), arity);
+        return new QueryTemplate(name, root, arity[0]);
+    }
+
+    /**
+     * It returns the name of the template the given query was bound from, if any.
+     *
+     * @param query the query to get the template name for
+     * @return an Optional result with the template name, empty for
+     * queries not bound from a named template
+     */
+    public static Optional<String> nameOf(Expr query) {
+        if(!(query instanceof Bound)) return Optional.empty();
+        return Optional.ofNullable(((Bound) query).template.name);
+    }
+
+    /**
+     * It binds the template to the given parameters.
+     *
+     * @param params the parameters, in the order of their slots
+     * @return the query ready to be issued
+     */
+    public Expr bind(Expr... params) {
+        if(params.length < arity) {
+            throw new IllegalArgumentException("Expected " + arity + " parameters but got " + params.length);
+        }
+        return new Bound(this, root.render(params));
+    }
+
+    private static Part compile(JsonNode node, int[] arity) {
+        if(node.isObject() && node.size() == 1 && node.has(SLOT_KEY)) {
+            int index = node.get(SLOT_KEY).asInt();
+            arity[0] = Math.max(arity[0], index + 1);
+            return params -> params[index];
+        }
+
+        if(!containsSlot(node)) {
+            return params -> node;
+        }
+
+        if(node.isObject()) {
+            List<String> keys = new ArrayList<>(node.size());
+            List<Part> parts = new ArrayList<>(node.size());
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while(fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                keys.add(field.getKey());
+                parts.add(compile(field.getValue(), arity));
+            }
+            return params -> {
+                Map<String, Object> rendered = new LinkedHashMap<>(keys.size() * 2);
+                for(int i = 0; i < keys.size(); i++) rendered.put(keys.get(i), parts.get(i).render(params));
+                return rendered;
+            };
+        }
+
+        List<Part> parts = new ArrayList<>(node.size());
+        node.forEach(element -> parts.add(compile(element, arity)));
+        return params -> {
+            List<Object> rendered = new ArrayList<>(parts.size());
+            for(Part part : parts) rendered.add(part.render(params));
+            return rendered;
+        };
+    }
+
+    private static boolean containsSlot(JsonNode node) {
+        if(node.isObject() && node.has(SLOT_KEY)) return true;
+        for(JsonNode child : node) {
+            if(containsSlot(child)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * A part of the query, rendered into something Jackson can serialize:
+     * either a shared JsonNode, a parameter, or a container of other parts.
+     */
+    @FunctionalInterface
+    private interface Part {
+        Object render(Expr[] params);
+    }
+
+    private static final class Slot extends Expr {
+
+        private final int index;
+
+        private Slot(int index) {
+            this.index = index;
+        }
+
+        @Override
+        @JsonValue
+        protected Object toJson() {
+            ObjectNode node = JsonNodeFactory.instance.objectNode();
+            node.put(SLOT_KEY, index);
+            return node;
+        }
+    }
+
+    private static final class Bound extends Expr {
+
+        private final QueryTemplate template;
+        private final Object body;
+
+        private Bound(QueryTemplate template, Object body) {
+            this.template = template;
+            this.body = body;
+        }
+
+        @Override
+        @JsonValue
+        protected Object toJson() {
+            return body;
+        }
+    }
+}
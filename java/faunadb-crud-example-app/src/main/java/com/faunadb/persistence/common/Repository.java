@@ -4,6 +4,7 @@ import com.faunadb.model.Post;
 import com.faunadb.model.common.Entity;
 import com.faunadb.model.common.Page;
 import com.faunadb.model.common.PaginationOptions;
+import com.faunadb.model.common.Versioned;
 
 import java.util.List;
 import java.util.Optional;
@@ -56,6 +57,42 @@ public interface Repository<T extends Entity> {
      */
     CompletableFuture<Optional<T>> find(String id);
 
+    /**
+     * It finds an Entity for the given Id along with its current version.
+     *
+     * @param id the Id of the Entity to be found
+     * @return the {@link Versioned} Entity if found or an empty result if not
+     */
+    CompletableFuture<Optional<Versioned<T>>> findVersioned(String id);
+
+    /**
+     * <p>It finds an Entity for the given Id only if its current
+     * version is none of the given ones.</p>
+     *
+     * <p>If the Entity has not been modified, that is its current version
+     * is one of the given ones, the {@link Versioned} result will come
+     * without the Entity.</p>
+     *
+     * @param id the Id of the Entity to be found
+     * @param versions the versions of the Entity already known by the caller
+     * @return the {@link Versioned} Entity if found or an empty result if not
+     */
+    CompletableFuture<Optional<Versioned<T>>> findIfModified(String id, List<Long> versions);
+
+    /**
+     * <p>It replaces the Entity with the same Id as the given one,
+     * only if the current version of the former is any of the given ones.</p>
+     *
+     * <p>If the current version of the Entity is none of them, no
+     * replacement takes place and the result fails with a
+     * {@link VersionConflictException}.</p>
+     *
+     * @param entity the Entity to replace with
+     * @param versions the expected current versions of the Entity
+     * @return the replaced {@link Versioned} Entity if found or an empty result if not
+     */
+    CompletableFuture<Optional<Versioned<T>>> replaceIfMatch(T entity, List<Long> versions);
+
     /**
      * It retrieves a {@link Page} of {@link Post} entities
      * for the given {@link PaginationOptions}.
@@ -74,4 +111,17 @@ public interface Repository<T extends Entity> {
      * @return the removed Entity if found or an empty result if not
      */
     CompletableFuture<Optional<T>> remove(String id);
+
+    /**
+     * <p>It removes all the Entities matching the given
+     * terms on the given Index.</p>
+     *
+     * <p>Entities are removed in batches, each of them taking place
+     * within a single transaction, until none is left matching.</p>
+     *
+     * @param index the name of the Index to match Entities on
+     * @param terms the terms to match, in the order the Index defines them
+     * @return the number of Entities removed
+     */
+    CompletableFuture<Long> removeWhere(String index, List<String> terms);
 }
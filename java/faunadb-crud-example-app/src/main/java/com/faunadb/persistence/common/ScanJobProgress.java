@@ -0,0 +1,250 @@
+package com.faunadb.persistence.common;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * <p>The progress of a {@link ScanUpdateJob}, partition by partition.</p>
+ *
+ * <p>It is both what the job is checkpointed as, so that it can resume
+ * where each partition was left, and what it is reported as.</p>
+ */
+public class ScanJobProgress {
+
+    /**
+     * The states a job goes through.
+     */
+    public enum State { PLANNING, RUNNING, COMPLETED, STOPPED, FAILED }
+
+    private String job;
+    private State state = State.PLANNING;
+    private long startedAt;
+    private long elapsedMillis;
+    private long scannedAtStart;
+    private String failure;
+    private List<Partition> partitions = new ArrayList<>();
+
+    public ScanJobProgress() {
+    }
+
+    public ScanJobProgress(String job) {
+        this.job = job;
+    }
+
+    /**
+     * It copies the given progress, so that it can be reported
+     * while the job keeps running.
+     *
+     * @param progress the progress to copy
+     */
+    public ScanJobProgress(ScanJobProgress progress) {
+        this.job = progress.job;
+        this.state = progress.state;
+        this.startedAt = progress.startedAt;
+        this.elapsedMillis = progress.elapsedMillis;
+        this.scannedAtStart = progress.scannedAtStart;
+        this.failure = progress.failure;
+        this.partitions = progress.partitions.stream().map(Partition::new).collect(Collectors.toList());
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    public void setJob(String job) {
+        this.job = job;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    /**
+     * @return the time the current run of the job started at, in milliseconds since the epoch
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * @return the time the current run of the job has been running for
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return the Entities already scanned when the current run of the job started, if resumed
+     */
+    public long getScannedAtStart() {
+        return scannedAtStart;
+    }
+
+    public void setScannedAtStart(long scannedAtStart) {
+        this.scannedAtStart = scannedAtStart;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public void setFailure(String failure) {
+        this.failure = failure;
+    }
+
+    public List<Partition> getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(List<Partition> partitions) {
+        this.partitions = partitions;
+    }
+
+    @JsonIgnore
+    public boolean isCompleted() {
+        return state == State.COMPLETED;
+    }
+
+    public long getPartitionsDone() {
+        return partitions.stream().filter(Partition::isDone).count();
+    }
+
+    public long getScanned() {
+        return partitions.stream().mapToLong(Partition::getScanned).sum();
+    }
+
+    public long getUpdated() {
+        return partitions.stream().mapToLong(Partition::getUpdated).sum();
+    }
+
+    public long getSkipped() {
+        return partitions.stream().mapToLong(Partition::getSkipped).sum();
+    }
+
+    /**
+     * @return the Entities scanned per second by the current run of the job
+     */
+    public double getThroughput() {
+        return elapsedMillis > 0 ? (getScanned() - scannedAtStart) * 1000.0 / elapsedMillis : 0;
+    }
+
+    /**
+     * <p>A range of the class Index, scanned on its own.</p>
+     *
+     * <p>It goes from its {@code from} Id, inclusive, up to its {@code to}
+     * Id, exclusive, and it has been scanned up to its {@code cursor}.</p>
+     */
+    public static class Partition {
+
+        private String from;
+        private String to;
+        private String cursor;
+        private boolean done;
+        private long scanned;
+        private long updated;
+        private long skipped;
+
+        public Partition() {
+        }
+
+        public Partition(String from, String to) {
+            this.from = from;
+            this.to = to;
+            this.cursor = from;
+        }
+
+        public Partition(Partition partition) {
+            this.from = partition.from;
+            this.to = partition.to;
+            this.cursor = partition.cursor;
+            this.done = partition.done;
+            this.scanned = partition.scanned;
+            this.updated = partition.updated;
+            this.skipped = partition.skipped;
+        }
+
+        /**
+         * @return the Id the partition starts at, null for the start of the Index
+         */
+        public String getFrom() {
+            return from;
+        }
+
+        public void setFrom(String from) {
+            this.from = from;
+        }
+
+        /**
+         * @return the Id the partition ends before, null for the end of the Index
+         */
+        public String getTo() {
+            return to;
+        }
+
+        public void setTo(String to) {
+            this.to = to;
+        }
+
+        /**
+         * @return the Id to resume scanning the partition from, null for its start
+         */
+        public String getCursor() {
+            return cursor;
+        }
+
+        public void setCursor(String cursor) {
+            this.cursor = cursor;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        public void setDone(boolean done) {
+            this.done = done;
+        }
+
+        public long getScanned() {
+            return scanned;
+        }
+
+        public void setScanned(long scanned) {
+            this.scanned = scanned;
+        }
+
+        public long getUpdated() {
+            return updated;
+        }
+
+        public void setUpdated(long updated) {
+            this.updated = updated;
+        }
+
+        /**
+         * @return the Entities left as they were, for having been modified
+         * by someone else over and over, or removed meanwhile
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public void setSkipped(long skipped) {
+            this.skipped = skipped;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.faunadb.persistence.common;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.faunadb.model.common.Entity;
+import com.faunadb.model.common.Page;
+import com.faunadb.model.common.Versioned;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <p>A job applying a transformation to every Entity of a {@link FaunaRepository},
+ * e.g. for backfills and data fixes.</p>
+ *
+ * <p>The class Index is first split into partitions of about {@code partitionSize}
+ * Entities each, reading the Index only. Up to {@code parallelism} partitions are then
+ * scanned at once, each of them chunk by chunk: a chunk of {@code chunkSize} Entities is
+ * read in a single query, transformed, and the Entities which changed are written back
+ * in a single query as well, see {@link FaunaRepository#saveAllIfMatch(List)}.</p>
+ *
+ * <p>Writes only succeed if the Entity has not been modified since it was read, so that
+ * the job never overwrites someone else's write. Entities modified meanwhile are read and
+ * transformed again, up to {@code maxConflictRetries} times, and skipped afterwards.
+ * Hence, the transformation must be idempotent, and return an empty result for
+ * Entities which need no change, e.g. those already transformed.</p>
+ *
+ * <p>The progress of every partition is checkpointed into a file after every
+ * chunk. A job started again after being stopped, or after a crash, resumes
+ * each partition from there instead of starting over.</p>
+ *
+ * <p>The following metrics are published, tagged by job name:</p>
+ * <ul>
+ *     <li>{@code fauna.jobs.scanned}: Entities scanned</li>
+ *     <li>{@code fauna.jobs.updated}: Entities written back</li>
+ * </ul>
+ *
+ * <p>Note that jobs always run with the default secret.</p>
+ *
+ * @param <T> the type of the Entities to transform
+ */
+public class ScanUpdateJob<T extends Entity> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanUpdateJob.class);
+
+    private static final ObjectMapper json = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final String name;
+    private final FaunaRepository<T> repository;
+    private final Function<T, Optional<T>> transform;
+    private final FaunaRepositoryProperties.Jobs settings;
+
+    private ScanJobProgress progress;
+    private volatile boolean stopping = false;
+    private ExecutorService executor;
+
+    private Counter scannedCounter;
+    private Counter updatedCounter;
+
+    /**
+     * It creates a new ScanUpdateJob with the given parameters.
+     *
+     * @param name the job name, used for checkpointing, threads and metrics
+     * @param repository the Repository whose Entities to transform
+     * @param transform the transformation, returning the updated Entity, or an empty result to leave it as it is
+     * @param settings the job settings
+     */
+    public ScanUpdateJob(String name, FaunaRepository<T> repository, Function<T, Optional<T>> transform, FaunaRepositoryProperties.Jobs settings) {
+        this.name = name;
+        this.repository = repository;
+        this.transform = transform;
+        this.settings = settings;
+        this.progress = readCheckpoint().orElseGet(() -> new ScanJobProgress(name));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        scannedCounter = Counter.builder("fauna.jobs.scanned")
+            .tag("job", name)
+            .description("Entities scanned")
+            .register(registry);
+
+        updatedCounter = Counter.builder("fauna.jobs.updated")
+            .tag("job", name)
+            .description("Entities written back")
+            .register(registry);
+    }
+
+    /**
+     * It returns a snapshot of the job progress.
+     *
+     * @return the current progress
+     */
+    public synchronized ScanJobProgress getProgress() {
+        if(isRunning()) progress.setElapsedMillis(System.currentTimeMillis() - progress.getStartedAt());
+        return new ScanJobProgress(progress);
+    }
+
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * It starts the job in the background. If its last run did not complete, it resumes
+     * from its last checkpoint. Otherwise, it starts over with a new split.
+     *
+     * @return the progress at start
+     * @throws IllegalStateException if the job is already running
+     */
+    public synchronized ScanJobProgress start() {
+        if(isRunning()) throw new IllegalStateException("Job [" + name + "] is already running");
+
+        boolean resumed = !progress.getPartitions().isEmpty() && !progress.isCompleted();
+        if(!resumed) progress = new ScanJobProgress(name);
+
+        progress.setState(resumed ? ScanJobProgress.State.RUNNING : ScanJobProgress.State.PLANNING);
+        progress.setStartedAt(System.currentTimeMillis());
+        progress.setElapsedMillis(0);
+        progress.setScannedAtStart(progress.getScanned());
+        progress.setFailure(null);
+        stopping = false;
+
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, settings.getParallelism()), r -> {
+            Thread thread = new Thread(r, "fauna-job-" + name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        logger.info("{} job [{}]", resumed ? "Resuming" : "Starting", name);
+
+        Thread thread = new Thread(this::run, "fauna-job-" + name);
+        thread.setDaemon(true);
+        thread.start();
+
+        return getProgress();
+    }
+
+    /**
+     * It stops the job. Partitions finish their current chunk first,
+     * so that the job can be resumed from its last checkpoint.
+     */
+    public void stop() {
+        stopping = true;
+    }
+
+    private void run() {
+        try {
+            if(progress.getState() == ScanJobProgress.State.PLANNING) plan();
+
+            List<CompletableFuture<Void>> scans =
+                progress.getPartitions().stream()
+                    .filter(partition -> !partition.isDone())
+                    .map(partition -> CompletableFuture.runAsync(() -> scan(partition), executor))
+                    .collect(Collectors.toList());
+
+            CompletableFuture.allOf(scans.toArray(new CompletableFuture<?>[0])).join();
+            finish(stopping ? ScanJobProgress.State.STOPPED : ScanJobProgress.State.COMPLETED, null);
+        } catch(Exception e) {
+            logger.warn("Failed job [{}]", name, e);
+            finish(ScanJobProgress.State.FAILED, e.getCause() != null ? e.getCause().toString() : e.toString());
+        }
+    }
+
+    /**
+     * It splits the class Index into partitions of about {@code partitionSize}
+     * Entities each, by walking the Index from split point to split point.
+     */
+    private void plan() throws Exception {
+        List<ScanJobProgress.Partition> partitions = new ArrayList<>();
+
+        Optional<String> from = Optional.empty();
+        do {
+            Optional<String> to = repository.findSplitPoint(from, settings.getPartitionSize()).get();
+            partitions.add(new ScanJobProgress.Partition(from.orElse(null), to.orElse(null)));
+            from = to;
+        } while(from.isPresent() && !stopping);
+
+        // A partial split would leave the rest of the Index out, it is started over instead
+        if(stopping) return;
+
+        synchronized(this) {
+            progress.setPartitions(partitions);
+            progress.setState(ScanJobProgress.State.RUNNING);
+            writeCheckpoint();
+        }
+
+        logger.info("Split job [{}] into [{}] partitions", name, partitions.size());
+    }
+
+    private void scan(ScanJobProgress.Partition partition) {
+        Optional<String> to = Optional.ofNullable(partition.getTo());
+
+        try {
+            while(!stopping) {
+                Page<Versioned<T>> chunk = repository.findRange(Optional.ofNullable(partition.getCursor()), to, settings.getChunkSize()).get();
+                int[] written = update(chunk.getData());
+
+                synchronized(this) {
+                    partition.setScanned(partition.getScanned() + chunk.getData().size());
+                    partition.setUpdated(partition.getUpdated() + written[0]);
+                    partition.setSkipped(partition.getSkipped() + written[1]);
+                    partition.setCursor(chunk.getAfter().orElse(null));
+                    partition.setDone(!chunk.getAfter().isPresent());
+                    writeCheckpoint();
+                }
+
+                if(scannedCounter != null) scannedCounter.increment(chunk.getData().size());
+                if(updatedCounter != null) updatedCounter.increment(written[0]);
+
+                if(partition.isDone()) break;
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+        } catch(Exception e) {
+            // Other partitions stop as well, the job can be resumed once the cause is fixed
+            stopping = true;
+            throw new IllegalStateException("Failed to scan partition from [" + partition.getCursor() + "]", e);
+        }
+    }
+
+    /**
+     * It transforms the given Entities and writes back the changed ones,
+     * reading and transforming again those modified meanwhile.
+     *
+     * @return the number of Entities written back and skipped
+     */
+    private int[] update(List<Versioned<T>> entities) throws Exception {
+        int updated = 0;
+        List<Versioned<T>> pending = transform(entities);
+
+        for(int attempt = 0; !pending.isEmpty() && attempt <= settings.getMaxConflictRetries(); attempt++) {
+            if(attempt > 0) pending = transform(reread(pending));
+
+            List<Optional<Versioned<T>>> saved = repository.saveAllIfMatch(pending).get();
+
+            List<Versioned<T>> conflicts = new ArrayList<>();
+            for(int i = 0; i < saved.size(); i++) {
+                if(saved.get(i).isPresent()) updated++;
+                else conflicts.add(pending.get(i));
+            }
+            pending = conflicts;
+        }
+
+        if(!pending.isEmpty()) {
+            logger.warn("Skipped [{}] Entities modified meanwhile in job [{}]", pending.size(), name);
+        }
+
+        return new int[] { updated, pending.size() };
+    }
+
+    private List<Versioned<T>> transform(List<Versioned<T>> entities) {
+        List<Versioned<T>> changed = new ArrayList<>();
+        for(Versioned<T> versioned : entities) {
+            versioned.getEntity()
+                .flatMap(transform)
+                .ifPresent(entity -> changed.add(new Versioned<>(entity, versioned.getVersion())));
+        }
+        return changed;
+    }
+
+    private List<Versioned<T>> reread(List<Versioned<T>> conflicts) throws Exception {
+        List<CompletableFuture<Optional<Versioned<T>>>> reads =
+            conflicts.stream()
+                .map(versioned -> repository.findVersioned(versioned.getEntity().get().getId()))
+                .collect(Collectors.toList());
+
+        List<Versioned<T>> current = new ArrayList<>();
+        for(CompletableFuture<Optional<Versioned<T>>> read : reads) read.get().ifPresent(current::add);
+        return current;
+    }
+
+    private synchronized void finish(ScanJobProgress.State state, String failure) {
+        progress.setState(state);
+        progress.setFailure(failure);
+        progress.setElapsedMillis(System.currentTimeMillis() - progress.getStartedAt());
+        writeCheckpoint();
+
+        executor.shutdown();
+        executor = null;
+
+        logger.info("Job [{}] {} after scanning [{}] and updating [{}] Entities in [{}] ms",
+            name, state, progress.getScanned(), progress.getUpdated(), progress.getElapsedMillis());
+    }
+
+    private Path checkpointPath() {
+        return Paths.get(settings.getCheckpointDirectory(), name + ".job.json");
+    }
+
+    private Optional<ScanJobProgress> readCheckpoint() {
+        Path path = checkpointPath();
+        if(!Files.exists(path)) return Optional.empty();
+
+        try {
+            ScanJobProgress checkpoint = json.readValue(path.toFile(), ScanJobProgress.class);
+            // A run interrupted by a crash is resumed as any stopped one
+            if(!checkpoint.isCompleted()) checkpoint.setState(ScanJobProgress.State.STOPPED);
+            return Optional.of(checkpoint);
+        } catch(IOException e) {
+            logger.warn("Invalid checkpoint for job [{}] at [{}], starting over", name, path, e);
+            return Optional.empty();
+        }
+    }
+
+    private void writeCheckpoint() {
+        Path path = checkpointPath();
+        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            json.writeValue(tmpPath.toFile(), progress);
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException e) {
+            logger.warn("Failed to checkpoint job [{}] at [{}]", name, path, e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.client.FaunaClient;
+import com.faunadb.client.query.Expr;
+import com.faunadb.client.types.Value;
+import com.faunadb.tracing.Tracing;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>It wraps the {@link FaunaClient} used on behalf of a single tenant.</p>
+ *
+ * <p>Every tenant gets its own bounded number of in-flight queries. Once
+ * reached, further queries are queued without blocking the calling thread
+ * and sent as soon as a previous one completes. If the queue is also full,
+ * the query fails fast with a {@link RejectedExecutionException}. This way,
+ * a single noisy tenant cannot monopolize the shared connection pool. Only
+ * queries finding no free slot count as queued, hence a max of zero queued
+ * queries rejects those, while the others are still sent right away.</p>
+ *
+ * <p>Once closed, e.g. when evicted from the {@link FaunaClientRegistry},
+ * it rejects new queries with a {@link RejectedExecutionException} as well,
+ * while the ones already accepted are still sent. The registry itself issues
+ * queries through {@link #tryQuery}, so as to tell them apart and retry them
+ * on the client replacing this one.</p>
+ *
+ * <p>On completion, the tenant secret is restored into the {@link FaunaTenantContext}
+ * so that any stage composed on top of the result queries for the same tenant.</p>
+ *
+ * <p>Queued queries are sent with the tracing context they were issued with,
+ * and the time they spent queued is recorded on the current span. Queries
+ * whose result has been failed meanwhile, e.g. by a {@link Deadline}, are
+ * not sent at all.</p>
+ */
+public class TenantFaunaClient implements AutoCloseable {
+
+    private final FaunaClient client;
+    private final String secret;
+    private final int maxQueuedQueries;
+
+    private final Semaphore permits;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger accepting = new AtomicInteger();
+    private final AtomicBoolean closing = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private volatile long lastUsedNanos = System.nanoTime();
+
+    /**
+     * It creates a new TenantFaunaClient with the given parameters.
+     *
+     * @param client the client to send the queries through
+     * @param secret the tenant secret – null for the default tenant
+     * @param maxConcurrentQueries the max number of queries in flight, -1 for unbounded
+     * @param maxQueuedQueries the max number of queries waiting for a free slot
+     */
+    public TenantFaunaClient(FaunaClient client, String secret, int maxConcurrentQueries, int maxQueuedQueries) {
+        this.client = client;
+        this.secret = secret;
+        this.maxQueuedQueries = maxQueuedQueries;
+        this.permits = maxConcurrentQueries > 0 ? new Semaphore(maxConcurrentQueries) : null;
+    }
+
+    /**
+     * It issues the given query on behalf of the current tenant.
+     *
+     * @param expr the query to issue
+     * @return the query result
+     */
+    public CompletableFuture<Value> query(Expr expr) {
+        CompletableFuture<Value> result = tryQuery(expr);
+        if(result == null) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(new RejectedExecutionException("Client closed for the current tenant"));
+        }
+        return result;
+    }
+
+    /**
+     * It issues the given query on behalf of the current tenant, unless closed.
+     *
+     * @param expr the query to issue
+     * @return the query result, or null if the client is closed
+     */
+    CompletableFuture<Value> tryQuery(Expr expr) {
+        CompletableFuture<Value> result = new CompletableFuture<>();
+        lastUsedNanos = System.nanoTime();
+
+        // Counted until running or queued, so that the client is not closed meanwhile
+        accepting.incrementAndGet();
+        try {
+            if(closing.get()) return null;
+
+            // Sent right away if there is a free slot and nothing queued ahead
+            if(permits == null || pending.isEmpty() && permits.tryAcquire()) {
+                running.incrementAndGet();
+                execute(expr, result);
+                return result;
+            }
+
+            if(queued.incrementAndGet() > maxQueuedQueries) {
+                queued.decrementAndGet();
+                result.completeExceptionally(new RejectedExecutionException("Too many queued queries for the current tenant"));
+                return result;
+            }
+
+            long queuedNanos = System.nanoTime();
+            pending.add(Context.current().wrap(() -> {
+                Span.current().setAttribute(Tracing.FAUNA_QUEUE_TIME, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedNanos));
+                execute(expr, result);
+            }));
+            drain();
+
+            return result;
+        } finally {
+            accepting.decrementAndGet();
+            closeIfIdle();
+        }
+    }
+
+    public FaunaClient getClient() {
+        return client;
+    }
+
+    public int getRunningQueries() {
+        return running.get();
+    }
+
+    public int getQueuedQueries() {
+        return queued.get();
+    }
+
+    /**
+     * @return the time, from {@link System#nanoTime()}, of the last query issued
+     */
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    /**
+     * @return true if there is no query in flight nor queued, false if not
+     */
+    boolean isIdle() {
+        return accepting.get() == 0 && running.get() == 0 && queued.get() == 0;
+    }
+
+    /**
+     * It rejects any further query, and closes the underlying {@link FaunaClient}
+     * as soon as there are no more queries in flight or queued.
+     */
+    @Override
+    public void close() {
+        closing.set(true);
+        closeIfIdle();
+    }
+
+    private void execute(Expr expr, CompletableFuture<Value> result) {
+        // Already failed while queued, e.g. past its deadline
+        if(result.isDone()) {
+            running.decrementAndGet();
+            if(permits != null) permits.release();
+            closeIfIdle();
+            return;
+        }
+
+        client.query(expr).whenComplete((value, throwable) -> {
+            running.decrementAndGet();
+            if(permits != null) {
+                permits.release();
+                drain();
+            }
+            closeIfIdle();
+            complete(result, value, throwable);
+        });
+    }
+
+    private void drain() {
+        while(!pending.isEmpty() && permits.tryAcquire()) {
+            Runnable next = pending.poll();
+            if(next == null) {
+                permits.release();
+                break;
+            }
+            running.incrementAndGet();
+            queued.decrementAndGet();
+            next.run();
+        }
+    }
+
+    private void complete(CompletableFuture<Value> result, Value value, Throwable throwable) {
+        String previousSecret = FaunaTenantContext.getSecret().orElse(null);
+        FaunaTenantContext.setSecret(secret);
+        try {
+            if(throwable != null) result.completeExceptionally(throwable);
+            else result.complete(value);
+        } finally {
+            FaunaTenantContext.setSecret(previousSecret);
+        }
+    }
+
+    private void closeIfIdle() {
+        if(closing.get() && isIdle() && closed.compareAndSet(false, true)) {
+            client.close();
+        }
+    }
+}
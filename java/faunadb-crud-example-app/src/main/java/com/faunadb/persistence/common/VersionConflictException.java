@@ -0,0 +1,27 @@
+package com.faunadb.persistence.common;
+
+/**
+ * It signals that a conditional write has not been performed
+ * because the stored Entity version does not match the expected one.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+    private final long currentVersion;
+
+    public VersionConflictException(String id, long currentVersion) {
+        super("Entity [" + id + "] is at version [" + currentVersion + "]");
+        this.id = id;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
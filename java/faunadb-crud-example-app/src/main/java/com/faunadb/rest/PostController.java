@@ -8,46 +8,82 @@ import com.faunadb.model.CreateReplacePostData;
 import com.faunadb.model.Post;
 import com.faunadb.model.common.Page;
 import com.faunadb.model.common.PaginationOptions;
+import com.faunadb.model.common.Versioned;
+import com.faunadb.persistence.common.DeadlineExceededException;
+import com.faunadb.persistence.common.FaunaRepositoryProperties;
+import com.faunadb.persistence.common.IdempotencyKeyReusedException;
+import com.faunadb.persistence.common.VersionConflictException;
+import com.faunadb.rest.common.BinaryFormatsConfig;
+import com.faunadb.rest.common.ETags;
 import com.faunadb.services.PostService;
+import com.faunadb.tracing.Traced;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * REST controller for the {@link Post} entity.
  */
+@Traced
 @RestController
 public class PostController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     @Autowired
     private PostService postService;
 
+    @Autowired
+    private FaunaRepositoryProperties repositoryProperties;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter;
+
     @PostMapping(value = "/posts")
-    public CompletableFuture<ResponseEntity> createPost(HttpEntity<String> httpEntity) throws IOException {
-        String requestBody = httpEntity.getBody();
+    public CompletableFuture<ResponseEntity> createPost(
+            HttpEntity<byte[]> httpEntity,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) Optional<String> idempotencyKey) throws IOException {
+        byte[] requestBody = httpEntity.getBody() != null ? httpEntity.getBody() : new byte[0];
+        ObjectMapper mapper = objectMapperFor(httpEntity.getHeaders().getContentType());
 
         // Create single Post
-        if(isCreateReplacePostData(requestBody)) {
-            CreateReplacePostData data = deserializeCreateReplacePostData(requestBody);
+        if(isCreateReplacePostData(mapper, requestBody)) {
+            CreateReplacePostData data = deserializeCreateReplacePostData(mapper, requestBody);
             CompletableFuture<ResponseEntity> result =
-                postService.createPost(data)
+                idempotencyKey
+                    .map(key -> postService.createPost(data, key))
+                    .orElseGet(() -> postService.createPost(data))
                     .thenApply(post -> new ResponseEntity(post, HttpStatus.CREATED));
             return result;
         }
 
         // Create several Posts
-        if(isCreateReplacePostDataList(requestBody)) {
-            List<CreateReplacePostData> data = deserializeCreateReplacePostDataList(requestBody);
+        if(isCreateReplacePostDataList(mapper, requestBody)) {
+            List<CreateReplacePostData> data = deserializeCreateReplacePostDataList(mapper, requestBody);
             CompletableFuture<ResponseEntity> result =
                 postService.createSeveralPosts(data)
                     .thenApply(post -> new ResponseEntity(post, HttpStatus.CREATED));
@@ -58,12 +94,40 @@ public class PostController {
     }
 
     @GetMapping("/posts/{id}")
-    public CompletableFuture<ResponseEntity> retrievePost(@PathVariable("id") String id) {
+    public CompletableFuture<ResponseEntity> retrievePost(
+            @PathVariable("id") String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) Optional<String> ifNoneMatch) {
+        // Any current version matches the wildcard, so only whether the Post exists matters
+        if(ifNoneMatch.isPresent() && ETags.isWildcard(ifNoneMatch.get())) {
+            CompletableFuture<ResponseEntity> result =
+                postService.retrieveVersionedPost(id)
+                    .thenApply(optionalPost ->
+                        optionalPost
+                            .map(versionedPost -> toVersionedResponse(Versioned.notModified(versionedPost.getVersion())))
+                            .orElseGet(() -> new ResponseEntity(HttpStatus.NOT_FOUND))
+                );
+            return result;
+        }
+
+        List<Long> knownVersions = ifNoneMatch.map(ETags::parseWeak).orElse(Collections.emptyList());
+
+        // Conditional retrieval, only send the Post back if modified
+        if(!knownVersions.isEmpty()) {
+            CompletableFuture<ResponseEntity> result =
+                postService.retrievePostIfModified(id, knownVersions)
+                    .thenApply(optionalPost ->
+                        optionalPost
+                            .map(this::toVersionedResponse)
+                            .orElseGet(() -> new ResponseEntity(HttpStatus.NOT_FOUND))
+                );
+            return result;
+        }
+
         CompletableFuture<ResponseEntity> result =
-            postService.retrievePost(id)
+            postService.retrieveVersionedPost(id)
                 .thenApply(optionalPost ->
                     optionalPost
-                        .map(post -> new ResponseEntity(post, HttpStatus.OK))
+                        .map(this::toVersionedResponse)
                         .orElseGet(() -> new ResponseEntity(HttpStatus.NOT_FOUND))
             );
         return result;
@@ -90,8 +154,44 @@ public class PostController {
         return result;
     }
 
+    @GetMapping("/posts/search")
+    public CompletableFuture<Page<Post>> searchPosts(
+            @RequestParam("q") String query,
+            @RequestParam("size") Optional<Integer> size,
+            @RequestParam("before") Optional<String> before,
+            @RequestParam("after") Optional<String> after) {
+        PaginationOptions po = new PaginationOptions(size, before, after);
+        CompletableFuture<Page<Post>> result = postService.searchPosts(query, po);
+        return result;
+    }
+
     @PutMapping(value = "/posts/{id}")
-    public CompletableFuture<ResponseEntity> replacePost(@PathVariable("id") String id, @RequestBody CreateReplacePostData data) {
+    public CompletableFuture<ResponseEntity> replacePost(
+            @PathVariable("id") String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) Optional<String> ifMatch,
+            @RequestBody CreateReplacePostData data) {
+
+        // Conditional replacement, only replace the Post if not modified meanwhile, i.e. if any of the tags matches
+        if(ifMatch.isPresent() && !ETags.isWildcard(ifMatch.get())) {
+            List<Long> expectedVersions = ETags.parseStrong(ifMatch.get());
+
+            CompletableFuture<ResponseEntity> result =
+                postService.replacePostIfMatch(id, data, expectedVersions)
+                    .thenApply(optionalPost ->
+                        optionalPost
+                            .map(this::toVersionedResponse)
+                            .orElseGet(() -> new ResponseEntity(HttpStatus.NOT_FOUND))
+                    )
+                    .exceptionally(t -> {
+                        if(t.getCause() instanceof VersionConflictException) {
+                            long currentVersion = ((VersionConflictException) t.getCause()).getCurrentVersion();
+                            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ETags.of(currentVersion)).build();
+                        }
+                        throw t instanceof CompletionException ? (CompletionException) t : new CompletionException(t);
+                    });
+            return result;
+        }
+
         CompletableFuture<ResponseEntity> result =
             postService.replacePost(id, data)
                 .thenApply(optionalPost ->
@@ -117,16 +217,141 @@ public class PostController {
     }
 
     /**
-     * It verifies if the given JSON payload can be
+     * <p>It deletes all the Posts matching the given title, server-side and in batches.</p>
+     *
+     * <p>Progress is streamed back as one JSON line per batch, with the number of
+     * Posts deleted so far, followed by a last line once done or failed.</p>
+     *
+     * <p>Being an admin operation, it is only available if enabled through
+     * {@code fauna-db.repository.bulk-removal.enabled}. The deletion is cancelled
+     * before its next batch once {@code fauna-db.repository.bulk-removal.timeout}
+     * has passed, or as soon as the client is found to be gone.</p>
+     *
+     * @param title title to delete Posts by
+     * @return a streamed {@code 200 - OK} response with the progress of the deletion,
+     * or a {@code 404 - Not Found} response if not enabled
+     */
+    @DeleteMapping(value = "/admin/posts", params = {"title"})
+    public ResponseEntity<ResponseBodyEmitter> deletePostsByTitle(@RequestParam("title") String title) {
+        FaunaRepositoryProperties.BulkRemoval settings = repositoryProperties.getBulkRemoval();
+        if(!settings.isEnabled()) return ResponseEntity.notFound().build();
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(settings.getTimeout().toMillis());
+        AtomicLong deleted = new AtomicLong();
+        AtomicReference<CompletableFuture<Long>> deletion = new AtomicReference<>();
+
+        CompletableFuture<Long> result =
+            postService.deletePostsByTitle(title, count -> {
+                deleted.set(count);
+                if(!sendProgress(emitter, Collections.singletonMap("deleted", count))) cancel(deletion.get());
+            });
+        deletion.set(result);
+
+        emitter.onTimeout(() -> result.cancel(false));
+        emitter.onError(throwable -> result.cancel(false));
+
+        result.whenComplete((count, throwable) -> {
+            Map<String, Object> last = new LinkedHashMap<>();
+            last.put("deleted", throwable == null ? count : deleted.get());
+            last.put("done", throwable == null);
+            if(throwable != null) last.put("error", (throwable instanceof CompletionException ? throwable.getCause() : throwable).getMessage());
+
+            sendProgress(emitter, last);
+            emitter.complete();
+        });
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_STREAM_JSON).body(emitter);
+    }
+
+    /**
+     * It sends the given progress as a JSON line, if the client is still there.
+     *
+     * @return true if sent, false if the client is gone or the response already completed
+     */
+    private boolean sendProgress(ResponseBodyEmitter emitter, Map<String, Object> progress) {
+        try {
+            emitter.send(objectMapper.writeValueAsString(progress) + "\n", MediaType.APPLICATION_STREAM_JSON);
+            return true;
+        } catch(IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private static void cancel(CompletableFuture<?> future) {
+        // Not set yet if the very first batch completed synchronously
+        if(future != null) future.cancel(false);
+    }
+
+    /**
+     * It answers the requests dropped for having exceeded their deadline,
+     * see {@link com.faunadb.rest.common.DeadlineFilter}.
+     *
+     * @return a {@code 504 - Gateway Timeout} response
+     */
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity handleDeadlineExceeded() {
+        return new ResponseEntity(HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    /**
+     * It answers the creates replaying an idempotency key with a
+     * different Post than the one the key was first used for.
+     *
+     * @return a {@code 422 - Unprocessable Entity} response
+     */
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity handleIdempotencyKeyReused() {
+        return new ResponseEntity(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    /**
+     * It builds up a response for the given {@link Versioned} {@link Post}
+     * including its entity tag and last modification time. If the Post
+     * has not been modified, a response without body is built up.
+     *
+     * @param versionedPost the Versioned Post to respond with
+     * @return a {@code 200 - OK} response with the Post, or a {@code 304 - Not Modified}
+     * response if the Post has not been modified
+     */
+    private ResponseEntity toVersionedResponse(Versioned<Post> versionedPost) {
+        ResponseEntity.BodyBuilder response =
+            ResponseEntity
+                .status(versionedPost.isModified() ? HttpStatus.OK : HttpStatus.NOT_MODIFIED)
+                .eTag(ETags.of(versionedPost.getVersion()))
+                .lastModified(ETags.lastModified(versionedPost.getVersion()));
+
+        return versionedPost.getEntity()
+            .map(post -> response.body(post))
+            .orElseGet(() -> response.build());
+    }
+
+    /**
+     * It picks the {@link ObjectMapper} to deserialize request payloads
+     * of the given content type with. Payloads are taken for JSON unless
+     * they are declared as any of the {@link BinaryFormatsConfig} formats.
+     *
+     * @param contentType the content type of the request payload, if declared
+     * @return the ObjectMapper for the given content type
+     */
+    private ObjectMapper objectMapperFor(MediaType contentType) {
+        if(contentType == null) return objectMapper;
+        if(BinaryFormatsConfig.APPLICATION_CBOR.includes(contentType)) return cborHttpMessageConverter.getObjectMapper();
+        if(BinaryFormatsConfig.APPLICATION_SMILE.includes(contentType)) return smileHttpMessageConverter.getObjectMapper();
+        return objectMapper;
+    }
+
+    /**
+     * It verifies if the given payload can be
      * deserialized into a {@link CreateReplacePostData} object.
      *
-     * @param json the JSON payload to verify
-     * @return true if the given JSON payload can be deserialize into a a {@link CreateReplacePostData} object, false if not
-     * @throws IOException if there's any error with the given JSON payload
+     * @param mapper the ObjectMapper for the payload format
+     * @param payload the payload to verify
+     * @return true if the given payload can be deserialize into a a {@link CreateReplacePostData} object, false if not
+     * @throws IOException if there's any error with the given payload
      */
-    private Boolean isCreateReplacePostData(String json) throws IOException {
+    private Boolean isCreateReplacePostData(ObjectMapper mapper, byte[] payload) throws IOException {
         try {
-            objectMapper.readValue(json, CreateReplacePostData.class);
+            mapper.readValue(payload, CreateReplacePostData.class);
             return true;
         } catch (JsonParseException | JsonMappingException e) {
             return false;
@@ -134,16 +359,17 @@ public class PostController {
     }
 
     /**
-     * It verifies if the given JSON payload can be
+     * It verifies if the given payload can be
      * deserialized into a {@link List} of {@link CreateReplacePostData} object.
      *
-     * @param json the JSON payload to verify
-     * @return true if the given JSON payload can be deserialize into a {@link List} of {@link CreateReplacePostData} objects, false if not
-     * @throws IOException if there's any error with the given JSON payload
+     * @param mapper the ObjectMapper for the payload format
+     * @param payload the payload to verify
+     * @return true if the given payload can be deserialize into a {@link List} of {@link CreateReplacePostData} objects, false if not
+     * @throws IOException if there's any error with the given payload
      */
-    private Boolean isCreateReplacePostDataList(String json) throws IOException {
+    private Boolean isCreateReplacePostDataList(ObjectMapper mapper, byte[] payload) throws IOException {
         try {
-            objectMapper.readValue(json, new TypeReference<List<CreateReplacePostData>>(){});
+            mapper.readValue(payload, new TypeReference<List<CreateReplacePostData>>(){});
             return true;
         } catch (JsonParseException | JsonMappingException e) {
             return false;
@@ -151,24 +377,26 @@ public class PostController {
     }
 
     /**
-     * It deserializes the given JSON payload into a {@link CreateReplacePostData} object.
+     * It deserializes the given payload into a {@link CreateReplacePostData} object.
      *
-     * @param json the JSON payload to deserialize
-     * @return a {@link CreateReplacePostData} deserialized from the given JSON payload
-     * @throws IOException if there's any error with the given JSON payload
+     * @param mapper the ObjectMapper for the payload format
+     * @param payload the payload to deserialize
+     * @return a {@link CreateReplacePostData} deserialized from the given payload
+     * @throws IOException if there's any error with the given payload
      */
-    private CreateReplacePostData deserializeCreateReplacePostData(String json) throws IOException {
-        return objectMapper.readValue(json, CreateReplacePostData.class);
+    private CreateReplacePostData deserializeCreateReplacePostData(ObjectMapper mapper, byte[] payload) throws IOException {
+        return mapper.readValue(payload, CreateReplacePostData.class);
     }
 
     /**
-     * It deserializes the given JSON payload into a {@link List} of {@link CreateReplacePostData} objects.
+     * It deserializes the given payload into a {@link List} of {@link CreateReplacePostData} objects.
      *
-     * @param json the JSON payload to deserialize
-     * @return a {@link List} of {@link CreateReplacePostData} objects deserialized from the given JSON payload
-     * @throws IOException if there's any error with the given JSON payload
+     * @param mapper the ObjectMapper for the payload format
+     * @param payload the payload to deserialize
+     * @return a {@link List} of {@link CreateReplacePostData} objects deserialized from the given payload
+     * @throws IOException if there's any error with the given payload
      */
-    private List<CreateReplacePostData> deserializeCreateReplacePostDataList(String json) throws IOException {
-        return objectMapper.readValue(json, new TypeReference<List<CreateReplacePostData>>(){});
+    private List<CreateReplacePostData> deserializeCreateReplacePostDataList(ObjectMapper mapper, byte[] payload) throws IOException {
+        return mapper.readValue(payload, new TypeReference<List<CreateReplacePostData>>(){});
     }
 }
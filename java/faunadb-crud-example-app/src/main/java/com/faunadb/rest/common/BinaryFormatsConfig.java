@@ -0,0 +1,65 @@
+package com.faunadb.rest.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * <p>It sets up the compact binary formats the API can be
+ * spoken in besides JSON, i.e. CBOR and Smile.</p>
+ *
+ * <p>Both are picked through regular content negotiation, i.e. the {@code Content-Type}
+ * header for requests and the {@code Accept} header for responses. JSON remains
+ * the default whenever clients do not ask for any of them.</p>
+ *
+ * <p>The converters replace the ones Spring MVC registers by default for these
+ * formats, so that they share the application Jackson settings, e.g. the
+ * {@code spring.jackson.default-property-inclusion}, with JSON.</p>
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    public static final MediaType APPLICATION_CBOR = new MediaType("application", "cbor");
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    /**
+     * It initiates a converter for CBOR payloads.
+     *
+     * @return a {@link MappingJackson2CborHttpMessageConverter} sharing the application Jackson settings
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        ObjectMapper objectMapper = new ObjectMapper(new CBORFactory());
+        objectMapperBuilder.configure(objectMapper);
+        return binary(new MappingJackson2CborHttpMessageConverter(objectMapper));
+    }
+
+    /**
+     * It initiates a converter for Smile payloads.
+     *
+     * @return a {@link MappingJackson2SmileHttpMessageConverter} sharing the application Jackson settings
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        ObjectMapper objectMapper = new ObjectMapper(new SmileFactory());
+        objectMapperBuilder.configure(objectMapper);
+        return binary(new MappingJackson2SmileHttpMessageConverter(objectMapper));
+    }
+
+    private static <C extends AbstractJackson2HttpMessageConverter> C binary(C converter) {
+        // No charset applies to binary formats, hence none in the Content-Type
+        converter.setDefaultCharset(null);
+        return converter;
+    }
+}
@@ -0,0 +1,88 @@
+package com.faunadb.rest.common;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * <p>A bounded local cache of compressed response bodies,
+ * keyed by the digest of their uncompressed content.</p>
+ *
+ * <p>Being keyed by content, an entry can never be stale: a body that
+ * changed in any way gets a key of its own. Hot responses, e.g. the first
+ * page of Posts requested over and over, are thus compressed once and
+ * served already compressed afterwards, while the content behind them
+ * is still retrieved as usual.</p>
+ *
+ * <p>When full, the least recently used entries are dropped to make room
+ * for new ones.</p>
+ */
+public class CompressedBodyCache {
+
+    private final long maxBytes;
+    private final Map<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    public CompressedBodyCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * It builds up the cache key for the given uncompressed body.
+     *
+     * @param contentType the content type of the body
+     * @param body the buffer holding the body
+     * @param length the length of the body in the buffer
+     * @return the cache key for the given body
+     */
+    public static String key(String contentType, byte[] body, int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(body, 0, length);
+            return contentType + ":" + Base64.getEncoder().encodeToString(digest.digest());
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * It returns the compressed body for the given key if cached.
+     *
+     * @param key the key of the uncompressed body
+     * @return an Optional result with the compressed body, empty if not cached
+     */
+    public synchronized Optional<byte[]> get(String key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    /**
+     * It caches the given compressed body, unless it alone exceeds the max size.
+     *
+     * @param key the key of the uncompressed body
+     * @param compressed the compressed body
+     */
+    public synchronized void put(String key, byte[] compressed) {
+        if(compressed.length > maxBytes) return;
+
+        byte[] previous = entries.put(key, compressed);
+        bytes += compressed.length - (previous != null ? previous.length : 0);
+
+        Iterator<byte[]> eldest = entries.values().iterator();
+        while(bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,346 @@
+package com.faunadb.rest.common;
+
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>It gzips the body of a response on its way out,
+ * on behalf of the {@link CompressionFilter}.</p>
+ *
+ * <p>The body is buffered until it is known whether it is worth compressing. Bodies
+ * under the min size, or not among the content types to compress, go out as they
+ * are. Bodies that fit in the cache entry size are compressed as a whole, through
+ * the cache if cacheable. Larger bodies are compressed while streamed, so that
+ * they are never held in memory at once.</p>
+ *
+ * <p>Whatever is buffered is only written out, and the response only committed,
+ * once the body is complete or grows past the buffer, so that the encoding
+ * headers can still be set.</p>
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private enum State { PENDING, BUFFERING, STREAMING, PASSTHROUGH, FINISHED }
+
+    private final CompressionFilter filter;
+    private final boolean cacheable;
+    private final int bufferSize;
+
+    private State state = State.PENDING;
+    private boolean disabled = false;
+    private long contentLength = -1;
+
+    private Buffer buffer;
+    private GZIPOutputStream gzip;
+    private CountingOutputStream counting;
+    private long streamedBytes = 0;
+    private long streamedNanos = 0;
+
+    private CompressingOutputStream outputStream;
+    private PrintWriter writer;
+
+    /**
+     * It creates a new CompressingResponseWrapper with the given parameters.
+     *
+     * @param response the response to compress the body of
+     * @param filter the filter the settings and metrics are taken from
+     * @param cacheable whether the compressed body can be taken from and kept in the cache
+     */
+    CompressingResponseWrapper(HttpServletResponse response, CompressionFilter filter, boolean cacheable) {
+        super(response);
+        this.filter = filter;
+        this.cacheable = cacheable && filter.getCache() != null;
+        this.bufferSize = this.cacheable ? filter.getMaxCachedBodySize() : filter.getMinResponseSize();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if(writer != null) throw new IllegalStateException("getWriter() has already been called");
+        if(outputStream == null) outputStream = new CompressingOutputStream();
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if(writer == null) {
+            if(outputStream != null) throw new IllegalStateException("getOutputStream() has already been called");
+            outputStream = new CompressingOutputStream();
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if(state == State.PASSTHROUGH) super.setContentLengthLong(len);
+        else contentLength = len;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if(HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) setContentLengthLong(Long.parseLong(value));
+        else super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if(HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) setContentLengthLong(Long.parseLong(value));
+        else super.addHeader(name, value);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        disabled = true;
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        disabled = true;
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if(writer != null) writer.flush();
+        if(state == State.STREAMING || state == State.PASSTHROUGH) {
+            if(outputStream != null) outputStream.flush();
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if(state == State.BUFFERING) buffer.reset();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if(state == State.BUFFERING) buffer.reset();
+        contentLength = -1;
+    }
+
+    /**
+     * It writes out whatever is left of the body. It has to be
+     * called once the response is complete, and it has no effect
+     * if called more than once.
+     *
+     * @throws IOException if the body cannot be written out
+     */
+    void finish() throws IOException {
+        if(writer != null) writer.flush();
+
+        switch(state) {
+            case PENDING:
+                if(contentLength >= 0) super.setContentLengthLong(contentLength);
+                break;
+            case BUFFERING:
+                finishBuffered();
+                break;
+            case STREAMING:
+                long start = System.nanoTime();
+                gzip.finish();
+                streamedNanos += System.nanoTime() - start;
+                filter.recordStreamed(streamedBytes, counting.count, streamedNanos);
+                break;
+            default:
+                break;
+        }
+        state = State.FINISHED;
+    }
+
+    private boolean isCompressible() {
+        if(disabled) return false;
+        if(getStatus() < 200 || getStatus() >= 300 || getStatus() == SC_NO_CONTENT || getStatus() == SC_PARTIAL_CONTENT) return false;
+        if(getHeader(HttpHeaders.CONTENT_ENCODING) != null) return false;
+        return filter.isCompressible(getContentType());
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        if(state == State.PENDING) {
+            if(isCompressible()) {
+                state = State.BUFFERING;
+                buffer = new Buffer(Math.min(bufferSize, 8192));
+            } else {
+                state = State.PASSTHROUGH;
+                if(contentLength >= 0) super.setContentLengthLong(contentLength);
+            }
+        }
+
+        switch(state) {
+            case BUFFERING:
+                if(buffer.size() + len <= bufferSize) {
+                    buffer.write(b, off, len);
+                } else {
+                    startStreaming();
+                    writeStreamed(b, off, len);
+                }
+                break;
+            case STREAMING:
+                writeStreamed(b, off, len);
+                break;
+            case PASSTHROUGH:
+                getResponse().getOutputStream().write(b, off, len);
+                break;
+            default:
+                throw new IOException("Response already finished");
+        }
+    }
+
+    private void startStreaming() throws IOException {
+        setEncodingHeaders();
+        counting = new CountingOutputStream(getResponse().getOutputStream());
+        gzip = newGzip(counting);
+        state = State.STREAMING;
+
+        long start = System.nanoTime();
+        gzip.write(buffer.array(), 0, buffer.size());
+        streamedNanos += System.nanoTime() - start;
+        streamedBytes += buffer.size();
+        buffer = null;
+    }
+
+    private void writeStreamed(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        gzip.write(b, off, len);
+        streamedNanos += System.nanoTime() - start;
+        streamedBytes += len;
+    }
+
+    private void finishBuffered() throws IOException {
+        OutputStream out = getResponse().getOutputStream();
+
+        if(buffer.size() < filter.getMinResponseSize()) {
+            filter.recordSkipped();
+            super.setContentLengthLong(buffer.size());
+            out.write(buffer.array(), 0, buffer.size());
+            return;
+        }
+
+        byte[] compressed = null;
+        String key = null;
+        if(cacheable) {
+            key = CompressedBodyCache.key(getContentType(), buffer.array(), buffer.size());
+            compressed = filter.getCache().get(key).orElse(null);
+            if(compressed != null) filter.recordCached(buffer.size(), compressed.length);
+        }
+
+        if(compressed == null) {
+            long start = System.nanoTime();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, buffer.size() / 4));
+            try(GZIPOutputStream whole = newGzip(bytes)) {
+                whole.write(buffer.array(), 0, buffer.size());
+            }
+            compressed = bytes.toByteArray();
+            filter.recordCompressed(buffer.size(), compressed.length, System.nanoTime() - start);
+            if(key != null) filter.getCache().put(key, compressed);
+        }
+
+        setEncodingHeaders();
+        super.setContentLengthLong(compressed.length);
+        out.write(compressed);
+    }
+
+    private void setEncodingHeaders() {
+        super.setHeader(HttpHeaders.CONTENT_ENCODING, CompressionFilter.GZIP);
+    }
+
+    private GZIPOutputStream newGzip(OutputStream out) throws IOException {
+        int level = filter.getLevel();
+        return new GZIPOutputStream(out, 8192, true) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        private final byte[] single = new byte[1];
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            CompressingResponseWrapper.this.write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            CompressingResponseWrapper.this.write(b, off, len);
+        }
+
+        /**
+         * It flushes what has been written so far, unless it is still being
+         * buffered, in which case flushing would commit the response too early.
+         */
+        @Override
+        public void flush() throws IOException {
+            if(state == State.STREAMING) gzip.flush();
+            else if(state == State.PASSTHROUGH) getResponse().getOutputStream().flush();
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException("Non-blocking writes are not supported for compressed responses");
+        }
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+
+        private Buffer(int size) {
+            super(size);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private long count = 0;
+
+        private CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.faunadb.rest.common;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.servlet.DispatcherType;
+
+/**
+ * It registers the {@link CompressionFilter}.
+ */
+@Configuration
+public class CompressionConfig {
+
+    /**
+     * It registers the {@link CompressionFilter} for async dispatches besides
+     * regular requests, as most responses are written from the async
+     * dispatch of a CompletableFuture result.
+     *
+     * @param compressionFilter the filter to register
+     * @return the registration for the given filter
+     */
+    @Bean
+    public FilterRegistrationBean<CompressionFilter> compressionFilterRegistration(CompressionFilter compressionFilter) {
+        FilterRegistrationBean<CompressionFilter> registration = new FilterRegistrationBean<>(compressionFilter);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
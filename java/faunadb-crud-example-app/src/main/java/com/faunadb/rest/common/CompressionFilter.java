@@ -0,0 +1,227 @@
+package com.faunadb.rest.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * <p>It gzips the responses for the clients accepting it, through
+ * a {@link CompressingResponseWrapper}.</p>
+ *
+ * <p>Only responses of the configured content types and of at least
+ * {@code compression.min-response-size} are compressed, as compressing small
+ * bodies costs more CPU than the bytes it saves are worth. Bodies of up to
+ * {@code compression.cache.max-entry-size} are compressed at once, and those of
+ * GET requests are kept compressed in a {@link CompressedBodyCache}, so that hot
+ * Pages are not compressed again on every hit. Larger bodies, e.g. big Pages or
+ * bulk creation results, are compressed while streamed.</p>
+ *
+ * <p>The wrapped response is carried over the async dispatch of the controller
+ * methods returning a CompletableFuture, and only finished at the end of it.
+ * Hence, it is registered for async dispatches as well, by {@link CompressionConfig}.</p>
+ *
+ * <p>The following metrics are published:</p>
+ * <ul>
+ *     <li>{@code compression.responses}: responses by outcome, either {@code compressed},
+ *     {@code streamed}, {@code cached} or {@code skipped} for being too small</li>
+ *     <li>{@code compression.bytes.in}: uncompressed size of the compressed responses</li>
+ *     <li>{@code compression.bytes.out}: compressed size of the compressed responses</li>
+ *     <li>{@code compression.time}: time spent compressing</li>
+ *     <li>{@code compression.cache.size} and {@code compression.cache.bytes}: compressed bodies cached</li>
+ * </ul>
+ */
+@Component
+public class CompressionFilter extends OncePerRequestFilter implements MeterBinder {
+
+    static final String GZIP = "gzip";
+
+    @Autowired
+    private CompressionProperties properties;
+
+    private List<MediaType> mimeTypes;
+    private CompressedBodyCache cache;
+
+    private Counter compressedCounter;
+    private Counter streamedCounter;
+    private Counter cachedCounter;
+    private Counter skippedCounter;
+    private Counter bytesInCounter;
+    private Counter bytesOutCounter;
+    private Timer compressionTimer;
+
+    @PostConstruct
+    public void init() {
+        mimeTypes = properties.getMimeTypes().stream().map(MediaType::parseMediaType).collect(Collectors.toList());
+        if(properties.getCache().isEnabled()) cache = new CompressedBodyCache(properties.getCache().getMaxSize().toBytes());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        compressedCounter = responseCounter(registry, "compressed");
+        streamedCounter = responseCounter(registry, "streamed");
+        cachedCounter = responseCounter(registry, "cached");
+        skippedCounter = responseCounter(registry, "skipped");
+
+        bytesInCounter = Counter.builder("compression.bytes.in")
+            .baseUnit("bytes")
+            .description("Uncompressed size of the compressed responses")
+            .register(registry);
+
+        bytesOutCounter = Counter.builder("compression.bytes.out")
+            .baseUnit("bytes")
+            .description("Compressed size of the compressed responses")
+            .register(registry);
+
+        compressionTimer = Timer.builder("compression.time")
+            .description("Time spent compressing responses")
+            .register(registry);
+
+        if(cache != null) {
+            Gauge.builder("compression.cache.size", cache, CompressedBodyCache::size)
+                .description("Compressed bodies cached")
+                .register(registry);
+
+            Gauge.builder("compression.cache.bytes", cache, CompressedBodyCache::bytes)
+                .baseUnit("bytes")
+                .description("Size of the compressed bodies cached")
+                .register(registry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        // Async dispatch of a request already being compressed
+        CompressingResponseWrapper compressing = WebUtils.getNativeResponse(response, CompressingResponseWrapper.class);
+        if(compressing != null) {
+            filterChain.doFilter(request, response);
+            if(!isAsyncStarted(request)) compressing.finish();
+            return;
+        }
+
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if(HttpMethod.HEAD.matches(request.getMethod()) || !acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        compressing = new CompressingResponseWrapper(response, this, HttpMethod.GET.matches(request.getMethod()));
+        filterChain.doFilter(request, compressing);
+        if(!isAsyncStarted(request)) compressing.finish();
+    }
+
+    /**
+     * It verifies if the given Accept-Encoding header value accepts gzip,
+     * either explicitly or through the wildcard, with a non-zero quality.
+     *
+     * @param header the value of an Accept-Encoding header
+     * @return true if the given value accepts gzip, false if not
+     */
+    static boolean acceptsGzip(String header) {
+        if(header == null) return false;
+
+        Boolean wildcard = null;
+        for(String coding : header.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            boolean accepted = parts.length < 2 || !isZeroQuality(parts[1]);
+
+            if(GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) return accepted;
+            if("*".equals(name)) wildcard = accepted;
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static boolean isZeroQuality(String param) {
+        String[] pair = param.trim().split("=");
+        if(pair.length != 2 || !"q".equalsIgnoreCase(pair[0].trim())) return false;
+        try {
+            return Double.parseDouble(pair[1].trim()) == 0;
+        } catch(NumberFormatException e) {
+            return false;
+        }
+    }
+
+    boolean isCompressible(String contentType) {
+        if(contentType == null) return false;
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        return mimeTypes.stream().anyMatch(type -> type.includes(mediaType));
+    }
+
+    int getMinResponseSize() {
+        return (int) properties.getMinResponseSize().toBytes();
+    }
+
+    int getMaxCachedBodySize() {
+        return (int) Math.max(properties.getCache().getMaxEntrySize().toBytes(), properties.getMinResponseSize().toBytes());
+    }
+
+    int getLevel() {
+        return properties.getLevel();
+    }
+
+    CompressedBodyCache getCache() {
+        return cache;
+    }
+
+    void recordCompressed(long bytesIn, long bytesOut, long nanos) {
+        record(compressedCounter, bytesIn, bytesOut);
+        if(compressionTimer != null) compressionTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordStreamed(long bytesIn, long bytesOut, long nanos) {
+        record(streamedCounter, bytesIn, bytesOut);
+        if(compressionTimer != null) compressionTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordCached(long bytesIn, long bytesOut) {
+        record(cachedCounter, bytesIn, bytesOut);
+    }
+
+    void recordSkipped() {
+        if(skippedCounter != null) skippedCounter.increment();
+    }
+
+    private void record(Counter responses, long bytesIn, long bytesOut) {
+        if(responses == null) return;
+        responses.increment();
+        bytesInCounter.increment(bytesIn);
+        bytesOutCounter.increment(bytesOut);
+    }
+
+    private static Counter responseCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("compression.responses")
+            .tag("outcome", outcome)
+            .description("Responses by compression outcome")
+            .register(registry);
+    }
+}
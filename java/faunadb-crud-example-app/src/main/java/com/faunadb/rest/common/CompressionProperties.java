@@ -0,0 +1,122 @@
+package com.faunadb.rest.common;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * It contains the settings for compressing responses.
+ *
+ * @see CompressionFilter
+ */
+@Component
+@ConfigurationProperties(prefix = "compression")
+public class CompressionProperties {
+
+    /**
+     * Whether responses are compressed at all.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Min size of a response body for it to be compressed.
+     */
+    private DataSize minResponseSize = DataSize.ofKilobytes(2);
+
+    /**
+     * Compression level, from 1 for the fastest to 9 for the smallest.
+     */
+    private int level = 6;
+
+    /**
+     * Content types of the responses to compress.
+     */
+    private List<String> mimeTypes = Arrays.asList("application/json", "application/cbor", "application/x-jackson-smile");
+
+    /**
+     * Settings for the cache of compressed response bodies.
+     */
+    private Cache cache = new Cache();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public DataSize getMinResponseSize() {
+        return minResponseSize;
+    }
+
+    public void setMinResponseSize(DataSize minResponseSize) {
+        this.minResponseSize = minResponseSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public List<String> getMimeTypes() {
+        return mimeTypes;
+    }
+
+    public void setMimeTypes(List<String> mimeTypes) {
+        this.mimeTypes = mimeTypes;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Settings for the cache of compressed response bodies.
+     *
+     * @see CompressedBodyCache
+     */
+    public static class Cache {
+
+        /**
+         * Max total size of the compressed bodies kept, zero to disable the cache.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(16);
+
+        /**
+         * Max size of an uncompressed body for it to be cached. Larger
+         * bodies are compressed while streamed instead.
+         */
+        private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public DataSize getMaxEntrySize() {
+            return maxEntrySize;
+        }
+
+        public void setMaxEntrySize(DataSize maxEntrySize) {
+            this.maxEntrySize = maxEntrySize;
+        }
+
+        public boolean isEnabled() {
+            return maxSize.toBytes() > 0 && maxEntrySize.toBytes() > 0;
+        }
+    }
+}
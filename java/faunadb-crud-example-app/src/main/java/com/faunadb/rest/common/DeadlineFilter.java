@@ -0,0 +1,103 @@
+package com.faunadb.rest.common;
+
+import com.faunadb.persistence.common.Deadline;
+import com.faunadb.persistence.common.DeadlineContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * <p>It binds every request to a {@link Deadline}, which the Fauna queries
+ * issued on its behalf are bound to as well, see {@link DeadlineContext}.</p>
+ *
+ * <p>The timeout is taken from the {@code deadline.header} header, in milliseconds,
+ * up to {@code deadline.max-timeout}, so that clients can tell how long they are
+ * willing to wait for. Otherwise, it defaults to {@code deadline.reads} for GET
+ * and HEAD requests, and to {@code deadline.writes} for any other.</p>
+ *
+ * <p>The deadline is cancelled as soon as the async processing of the request times
+ * out or fails, so that the pending work for it is dropped right away rather than once
+ * the deadline passes. Note that the container only reports a client disconnecting
+ * as a failure once it notices, which for Tomcat is not before writing the response;
+ * until then, the deadline bounds the work done for nobody.</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 4)
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineFilter.class);
+
+    @Autowired
+    private DeadlineProperties properties;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Deadline deadline = Deadline.after(timeoutOf(request));
+
+        DeadlineContext.set(deadline);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            DeadlineContext.clear();
+        }
+
+        if(isAsyncStarted(request)) {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    deadline.cancel();
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                    deadline.cancel();
+                }
+
+                @Override
+                public void onComplete(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        }
+    }
+
+    private Duration timeoutOf(HttpServletRequest request) {
+        String header = request.getHeader(properties.getHeader());
+        if(header != null) {
+            try {
+                Duration timeout = Duration.ofMillis(Long.parseLong(header.trim()));
+                if(!timeout.isNegative()) {
+                    return timeout.compareTo(properties.getMaxTimeout()) > 0 ? properties.getMaxTimeout() : timeout;
+                }
+            } catch(NumberFormatException e) {
+                // Falls back to the default timeout below
+            }
+            logger.warn("Invalid request timeout provided: [{}]", header);
+        }
+
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        return read ? properties.getReads() : properties.getWrites();
+    }
+}
@@ -0,0 +1,81 @@
+package com.faunadb.rest.common;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * It contains the settings for the deadlines of the requests.
+ *
+ * @see DeadlineFilter
+ */
+@Component
+@ConfigurationProperties(prefix = "deadline")
+public class DeadlineProperties {
+
+    /**
+     * Whether requests are bound by a deadline at all.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Header the client can set its own timeout with, in milliseconds.
+     */
+    private String header = "X-Request-Timeout";
+
+    /**
+     * Max timeout a client can set for itself.
+     */
+    private Duration maxTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Timeout of GET and HEAD requests not setting their own.
+     */
+    private Duration reads = Duration.ofSeconds(5);
+
+    /**
+     * Timeout of any other request not setting its own.
+     */
+    private Duration writes = Duration.ofSeconds(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public Duration getMaxTimeout() {
+        return maxTimeout;
+    }
+
+    public void setMaxTimeout(Duration maxTimeout) {
+        this.maxTimeout = maxTimeout;
+    }
+
+    public Duration getReads() {
+        return reads;
+    }
+
+    public void setReads(Duration reads) {
+        this.reads = reads;
+    }
+
+    public Duration getWrites() {
+        return writes;
+    }
+
+    public void setWrites(Duration writes) {
+        this.writes = writes;
+    }
+}
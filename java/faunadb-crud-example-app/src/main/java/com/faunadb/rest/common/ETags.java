@@ -0,0 +1,106 @@
+package com.faunadb.rest.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * <p>It converts between Entity versions and HTTP entity tags.</p>
+ *
+ * <p>An Entity version is the Fauna document timestamp, which changes
+ * on every write to the document. Hence, it can be used as a strong
+ * entity tag, e.g. {@code "1551987105592472"}, and as the last
+ * modification time of the Entity.</p>
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc7232">Conditional Requests</a>
+ */
+public final class ETags {
+
+    private static final String WILDCARD = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETags() {
+    }
+
+    /**
+     * It builds up a strong entity tag for the given version.
+     *
+     * @param version the Entity version
+     * @return a strong entity tag
+     */
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * It returns the last modification time in milliseconds for the given version.
+     *
+     * @param version the Entity version, that is a timestamp in microseconds
+     * @return the last modification time in milliseconds since the epoch
+     */
+    public static long lastModified(long version) {
+        return version / 1000;
+    }
+
+    /**
+     * It verifies if the given conditional header value matches any entity tag.
+     *
+     * @param header the value of an If-Match or If-None-Match header
+     * @return true if the given value is the wildcard, false if not
+     */
+    public static boolean isWildcard(String header) {
+        return WILDCARD.equals(header.trim());
+    }
+
+    /**
+     * <p>It parses the versions contained in the given If-Match header value.</p>
+     *
+     * <p>Only strong entity tags are taken, as If-Match requires a strong
+     * comparison: a weak entity tag never matches. Entity tags not issued by
+     * this service are ignored.</p>
+     *
+     * @param header the value of an If-Match header
+     * @return the versions of the strong entity tags contained in the given header value
+     *
+     * @see <a href="https://tools.ietf.org/html/rfc7232#section-3.1">If-Match</a>
+     */
+    public static List<Long> parseStrong(String header) {
+        return parse(header, false);
+    }
+
+    /**
+     * <p>It parses the versions contained in the given If-None-Match header value.</p>
+     *
+     * <p>Weak entity tags are taken as well, as If-None-Match requires a
+     * weak comparison. Entity tags not issued by this service are ignored.</p>
+     *
+     * @param header the value of an If-None-Match header
+     * @return the versions of the entity tags contained in the given header value
+     *
+     * @see <a href="https://tools.ietf.org/html/rfc7232#section-3.2">If-None-Match</a>
+     */
+    public static List<Long> parseWeak(String header) {
+        return parse(header, true);
+    }
+
+    private static List<Long> parse(String header, boolean weak) {
+        List<Long> versions = new ArrayList<>();
+        for(String tag : header.split(",")) {
+            toVersion(tag.trim(), weak).ifPresent(versions::add);
+        }
+        return versions;
+    }
+
+    private static Optional<Long> toVersion(String tag, boolean weak) {
+        if(tag.startsWith(WEAK_PREFIX) && !weak) return Optional.empty();
+
+        String opaqueTag = tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+        if(opaqueTag.length() < 2 || !opaqueTag.startsWith("\"") || !opaqueTag.endsWith("\"")) return Optional.empty();
+
+        try {
+            return Optional.of(Long.parseLong(opaqueTag.substring(1, opaqueTag.length() - 1)));
+        } catch(NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.faunadb.rest.common;
 
 import com.faunadb.client.FaunaClient;
+import com.faunadb.persistence.common.FaunaClientProperties;
+import com.faunadb.persistence.common.FaunaTenantContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +24,9 @@ public class FaunaFilter implements Filter {
     @Autowired
     protected FaunaClient faunaClient;
 
+    @Autowired
+    protected FaunaClientProperties faunaProperties;
+
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
         HttpServletRequest request = (HttpServletRequest) servletRequest;
@@ -40,7 +45,18 @@ public class FaunaFilter implements Filter {
             }
         });
 
-        filterChain.doFilter(request, response);
+        // Extract the tenant secret from Request if enabled
+        FaunaClientProperties.Tenancy tenancy = faunaProperties.getTenancy();
+        if(tenancy.isEnabled()) {
+            Optional<String> secretHeader = Optional.ofNullable(request.getHeader(tenancy.getSecretHeader()));
+            secretHeader.filter(secret -> !secret.isEmpty()).ifPresent(FaunaTenantContext::setSecret);
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            FaunaTenantContext.clear();
+        }
 
         // TODO: call client for getting lastTxtTime when API is ready (ENG-812)
         // Get updated lastTxnTime from Client and add it into the Response
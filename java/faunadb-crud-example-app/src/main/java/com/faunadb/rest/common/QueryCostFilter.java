@@ -0,0 +1,87 @@
+package com.faunadb.rest.common;
+
+import com.faunadb.persistence.common.QueryCost;
+import com.faunadb.persistence.common.QueryCostContext;
+import com.faunadb.persistence.common.QueryCostRegistry;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * <p>It accounts for what every request costs in Fauna, charging the usage of
+ * all the queries issued on its behalf to the endpoint it was routed to, e.g.
+ * {@code GET /posts/{id}}, see {@link QueryCostRegistry}.</p>
+ *
+ * <p>The cost is charged once the response is complete, so the usage of queries
+ * still in flight by then, e.g. dropped past the deadline of the request, only
+ * counts towards their Repository operation. Requests not routed to any endpoint
+ * are not accounted for.</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class QueryCostFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private QueryCostRegistry costRegistry;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !costRegistry.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        QueryCost cost = new QueryCost();
+
+        try(Scope ignored = QueryCostContext.withRequest(Context.current(), cost).makeCurrent()) {
+            filterChain.doFilter(request, response);
+        }
+
+        // Taken before any error dispatch overrides it
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if(route == null) return;
+
+        String method = request.getMethod();
+        if(isAsyncStarted(request)) {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    charge(method, route.toString(), cost);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        } else {
+            charge(method, route.toString(), cost);
+        }
+    }
+
+    private void charge(String method, String route, QueryCost cost) {
+        QueryCost endpointCost = costRegistry.endpoint(method, route);
+        endpointCost.count();
+        endpointCost.add(cost);
+    }
+}
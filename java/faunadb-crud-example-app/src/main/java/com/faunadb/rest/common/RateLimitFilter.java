@@ -0,0 +1,347 @@
+package com.faunadb.rest.common;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>It rate limits the requests of each client through {@link TokenBuckets},
+ * so that a single client cannot exhaust Fauna nor the service on its own.</p>
+ *
+ * <p>Clients are told apart by the {@code rate-limit.client-header} header, the
+ * tenant secret by default, or by their IP address otherwise. Each client gets a
+ * bucket per endpoint class, with limits of its own: reads, writes of a single
+ * Post, and bulk creation of Posts, which takes a token per Post created rather
+ * than per request.</p>
+ *
+ * <p>As the client header is not authenticated, a client could get a new bucket
+ * for every request by sending a new value each time. Hence, requests identified
+ * by the header are limited by {@code rate-limit.per-ip} on top, whatever their
+ * endpoint class. That limit is checked first, before any body is read.</p>
+ *
+ * <p>Requests beyond the limit are rejected with a {@code 429 - Too Many Requests}
+ * response, telling through the {@code Retry-After} header how many seconds to
+ * wait for. Bulk requests larger than the whole bucket could ever hold are rejected
+ * with a {@code 413 - Payload Too Large} response instead, as waiting would not do.
+ * So are bodies larger than {@code rate-limit.max-body-size}, which are not read
+ * any further, or at all if their declared length is already beyond it.</p>
+ *
+ * <p>The following metrics are published:</p>
+ * <ul>
+ *     <li>{@code rate-limit.requests}: requests by endpoint class and outcome,
+ *     either {@code allowed} or {@code limited}, the ones limited by IP address
+ *     counted under the {@code per_ip} class</li>
+ *     <li>{@code rate-limit.clients}: buckets currently kept</li>
+ * </ul>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class RateLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    /**
+     * The classes of endpoints limited on their own, along
+     * with the limit per IP address on top of them.
+     */
+    enum EndpointClass {
+        READS, WRITES, BULK, PER_IP;
+
+        private final String keyPrefix = name().toLowerCase() + ":";
+        private final String overflowKey = keyPrefix + "*";
+    }
+
+    private static final String BULK_PATH = "/posts";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter;
+
+    private TokenBuckets buckets;
+    private ScheduledExecutorService evictor;
+
+    private final Map<EndpointClass, Counter> allowedCounters = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> limitedCounters = new EnumMap<>(EndpointClass.class);
+
+    @PostConstruct
+    public void init() {
+        buckets = new TokenBuckets(properties.getMaxClients());
+        if(!properties.isEnabled()) return;
+
+        long idleTimeout = Math.max(1, properties.getIdleTimeout().toNanos());
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rate-limit-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(() -> buckets.evictIdle(System.nanoTime() - idleTimeout), idleTimeout, idleTimeout, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if(evictor != null) evictor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for(EndpointClass endpointClass : EndpointClass.values()) {
+            allowedCounters.put(endpointClass, requestCounter(registry, endpointClass, "allowed"));
+            limitedCounters.put(endpointClass, requestCounter(registry, endpointClass, "limited"));
+        }
+
+        Gauge.builder("rate-limit.clients", buckets, TokenBuckets::size)
+            .description("Rate limit buckets kept, one per client and endpoint class")
+            .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if(!properties.isEnabled()) return true;
+
+        String path = urlPathHelper.getPathWithinApplication(request);
+        return properties.getPaths().stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String clientKey = request.getHeader(properties.getClientHeader());
+        if(clientKey != null && !clientKey.isEmpty()) {
+            EndpointClass ipClass = EndpointClass.PER_IP;
+            RateLimitProperties.Limit ipLimit = limitOf(ipClass);
+            long wait = buckets.tryAcquire(ipClass.keyPrefix + request.getRemoteAddr(), ipClass.overflowKey, ipLimit.getCapacity(), ipLimit.getRate(), 1, System.nanoTime());
+            if(wait != 0) {
+                reject(response, ipClass, wait);
+                return;
+            }
+            increment(allowedCounters, ipClass);
+        }
+
+        EndpointClass endpointClass = EndpointClass.WRITES;
+        int weight = 1;
+
+        if(HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())) {
+            endpointClass = EndpointClass.READS;
+        } else if(HttpMethod.POST.matches(request.getMethod()) && BULK_PATH.equals(urlPathHelper.getPathWithinApplication(request))) {
+            // The body is read here to weigh bulk creation by the number of Posts, and replayed afterwards
+            long maxBodySize = properties.getMaxBodySize().toBytes();
+            byte[] body = request.getContentLengthLong() > maxBodySize ? null : readBody(request.getInputStream(), maxBodySize);
+            if(body == null) {
+                reject(response, EndpointClass.BULK, TokenBuckets.NEVER);
+                return;
+            }
+            request = new CachedBodyRequest(request, body);
+
+            int items = countItems(jsonFactoryFor(request.getContentType()), body);
+            if(items >= 0) {
+                endpointClass = EndpointClass.BULK;
+                weight = Math.max(1, items);
+            }
+        }
+
+        RateLimitProperties.Limit limit = limitOf(endpointClass);
+        String client = clientKey != null && !clientKey.isEmpty() ? "key:" + clientKey : "ip:" + request.getRemoteAddr();
+        long wait = buckets.tryAcquire(endpointClass.keyPrefix + client, endpointClass.overflowKey, limit.getCapacity(), limit.getRate(), weight, System.nanoTime());
+
+        if(wait == 0) {
+            increment(allowedCounters, endpointClass);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        reject(response, endpointClass, wait);
+    }
+
+    private void reject(HttpServletResponse response, EndpointClass endpointClass, long wait) {
+        increment(limitedCounters, endpointClass);
+        if(wait == TokenBuckets.NEVER) {
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (wait + 999_999_999L) / 1_000_000_000L)));
+    }
+
+    /**
+     * It counts the items of the array the given body consists of.
+     *
+     * @param factory the factory for the format of the body
+     * @param body the body to count the items of
+     * @return the number of items, or -1 if the body is not a valid array
+     */
+    public static int countItems(JsonFactory factory, byte[] body) {
+        try(JsonParser parser = factory.createParser(body)) {
+            if(parser.nextToken() != JsonToken.START_ARRAY) return -1;
+
+            int count = 0;
+            JsonToken token;
+            while((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if(token == null) return -1;
+                parser.skipChildren();
+                count++;
+            }
+            return count;
+        } catch(IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * It reads the given body up to the given size.
+     *
+     * @return the body, or null if larger than the given size
+     */
+    private static byte[] readBody(InputStream in, long maxBytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+        int read;
+        while((read = in.read(buffer)) != -1) {
+            if(out.size() + read > maxBytes) return null;
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private RateLimitProperties.Limit limitOf(EndpointClass endpointClass) {
+        switch(endpointClass) {
+            case READS: return properties.getReads();
+            case BULK: return properties.getBulk();
+            case PER_IP: return properties.getPerIp();
+            default: return properties.getWrites();
+        }
+    }
+
+    /**
+     * It picks the factory to parse request payloads of the given content type
+     * with, as {@link com.faunadb.rest.PostController} does.
+     */
+    private JsonFactory jsonFactoryFor(String contentType) {
+        if(contentType == null) return objectMapper.getFactory();
+
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch(InvalidMediaTypeException e) {
+            return objectMapper.getFactory();
+        }
+        if(BinaryFormatsConfig.APPLICATION_CBOR.includes(mediaType)) return cborHttpMessageConverter.getObjectMapper().getFactory();
+        if(BinaryFormatsConfig.APPLICATION_SMILE.includes(mediaType)) return smileHttpMessageConverter.getObjectMapper().getFactory();
+        return objectMapper.getFactory();
+    }
+
+    private static void increment(Map<EndpointClass, Counter> counters, EndpointClass endpointClass) {
+        Counter counter = counters.get(endpointClass);
+        if(counter != null) counter.increment();
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, EndpointClass endpointClass, String outcome) {
+        return Counter.builder("rate-limit.requests")
+            .tag("class", endpointClass.name().toLowerCase())
+            .tag("outcome", outcome)
+            .description("Rate limited requests by endpoint class and outcome")
+            .register(registry);
+    }
+
+    /**
+     * A request whose body has already been read, replaying it.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Non-blocking reads are not supported for replayed bodies");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(), encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.faunadb.rest.common;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * It contains the settings for rate limiting the requests of each client.
+ *
+ * @see RateLimitFilter
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Whether requests are rate limited at all.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Header identifying the client, e.g. by its API key. Clients without it are identified by their IP address.
+     * As its value is not authenticated, clients identified by it are limited by their IP address as well, see perIp.
+     */
+    private String clientHeader = "X-Fauna-Secret";
+
+    /**
+     * Ant-style patterns of the request paths to rate limit.
+     */
+    private List<String> paths = Arrays.asList("/posts", "/posts/**");
+
+    /**
+     * Max number of buckets to keep, one per client and endpoint class. Beyond it, new clients share a bucket per endpoint class.
+     */
+    private int maxClients = 100000;
+
+    /**
+     * Time the bucket of a client is kept for once full again, i.e. once the client has been idle long enough.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(1);
+
+    /**
+     * Limit for reads, i.e. GET and HEAD requests.
+     */
+    private Limit reads = new Limit(200, 100);
+
+    /**
+     * Limit for writes of a single Post.
+     */
+    private Limit writes = new Limit(50, 20);
+
+    /**
+     * Limit for bulk Post creation, in Posts rather than requests.
+     */
+    private Limit bulk = new Limit(1000, 200);
+
+    /**
+     * Limit per IP address for requests of clients identified by the client header, whatever the endpoint class,
+     * so that sending a new header value with each request does not get around the limits.
+     */
+    private Limit perIp = new Limit(1000, 500);
+
+    /**
+     * Max size of the Post creation bodies read for weighing them, larger ones are rejected without being read further.
+     */
+    private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getClientHeader() {
+        return clientHeader;
+    }
+
+    public void setClientHeader(String clientHeader) {
+        this.clientHeader = clientHeader;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<String> paths) {
+        this.paths = paths;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Limit getReads() {
+        return reads;
+    }
+
+    public void setReads(Limit reads) {
+        this.reads = reads;
+    }
+
+    public Limit getWrites() {
+        return writes;
+    }
+
+    public void setWrites(Limit writes) {
+        this.writes = writes;
+    }
+
+    public Limit getBulk() {
+        return bulk;
+    }
+
+    public void setBulk(Limit bulk) {
+        this.bulk = bulk;
+    }
+
+    public Limit getPerIp() {
+        return perIp;
+    }
+
+    public void setPerIp(Limit perIp) {
+        this.perIp = perIp;
+    }
+
+    public DataSize getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    public void setMaxBodySize(DataSize maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * It contains the token bucket settings for an endpoint class.
+     */
+    public static class Limit {
+
+        /**
+         * Max burst, i.e. tokens a client can spend at once after being idle.
+         */
+        private int capacity;
+
+        /**
+         * Tokens given back per second.
+         */
+        private double rate;
+
+        public Limit() {
+        }
+
+        public Limit(int capacity, double rate) {
+            this.capacity = capacity;
+            this.rate = rate;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.faunadb.rest.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A bounded set of token buckets, one per key, e.g. per client and endpoint class.</p>
+ *
+ * <p>Each bucket holds up to {@code capacity} tokens, refilled at {@code rate}
+ * tokens per second, and a request takes as many tokens as its weight. Rather than
+ * the tokens themselves, a bucket only keeps the time at which it would be full
+ * again, from which the tokens left are derived (i.e. the generic cell rate
+ * algorithm). Hence, taking tokens is a single compare-and-set on a long, without
+ * locks nor a refill thread.</p>
+ *
+ * <p>Buckets live in a {@link ConcurrentHashMap}, whose lookups take no lock and
+ * whose inserts only lock the bin they go into, so that concurrent requests for
+ * different keys do not contend. A full bucket is just like a missing one, hence
+ * buckets full for a while are evicted by {@link #evictIdle}, which is meant to
+ * run in the background rather than on behalf of any request. A bucket is only
+ * evicted if still full when re-checked under the lock of its key, and it is then
+ * retired for good, so that tokens taken concurrently from it are never lost:
+ * requests holding a retired bucket look it up again. Once there are
+ * {@code maxSize} buckets, requests for new keys share the overflow bucket given
+ * along with the key, e.g. one per endpoint class, until room is made.</p>
+ */
+public class TokenBuckets {
+
+    /**
+     * The result of a request denied for good, as heavier than the bucket capacity.
+     */
+    public static final long NEVER = Long.MAX_VALUE;
+
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    private final int maxSize;
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> overflowBuckets = new ConcurrentHashMap<>();
+
+    public TokenBuckets(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * It takes the given number of tokens from the bucket for the given key, if available.
+     *
+     * @param key the key of the bucket
+     * @param overflowKey the key of the bucket to share with other keys if there is no room for a new one,
+     * which has to go with the same capacity and rate whatever the key
+     * @param capacity the max number of tokens in the bucket
+     * @param rate the tokens added to the bucket per second
+     * @param weight the number of tokens to take
+     * @param now the current time, from {@link System#nanoTime()}
+     * @return 0 if the tokens were taken, otherwise the nanoseconds to wait for enough tokens,
+     * or {@link #NEVER} if the bucket cannot hold that many
+     */
+    public long tryAcquire(String key, String overflowKey, int capacity, double rate, int weight, long now) {
+        if(weight > capacity) return NEVER;
+
+        long interval = (long) (1_000_000_000L / rate);
+        long tolerance = interval * capacity;
+
+        AtomicLong bucket = bucket(key, overflowKey, now);
+        while(true) {
+            long fullAt = bucket.get();
+            if(fullAt == RETIRED) {
+                bucket = bucket(key, overflowKey, now);
+                continue;
+            }
+
+            long newFullAt = Math.max(fullAt, now) + interval * weight;
+            long wait = newFullAt - now - tolerance;
+            if(wait > 0) return wait;
+            if(bucket.compareAndSet(fullAt, newFullAt)) return 0;
+        }
+    }
+
+    /**
+     * It evicts the buckets which have been full since before the given time.
+     *
+     * @param fullSince the time, from {@link System#nanoTime()}, the buckets to evict have been full since
+     */
+    public void evictIdle(long fullSince) {
+        for(Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            if(!isFullSince(entry.getValue().get(), fullSince)) continue;
+
+            // Tokens may have been taken since, hence checked again while no new bucket can be put for the key
+            buckets.computeIfPresent(entry.getKey(), (key, bucket) -> retire(bucket, fullSince) ? null : bucket);
+        }
+    }
+
+    /**
+     * @return the number of buckets kept, overflow buckets left apart
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    private static boolean isFullSince(long fullAt, long fullSince) {
+        return fullAt != RETIRED && fullAt - fullSince <= 0;
+    }
+
+    /**
+     * It retires the given bucket if still full since the given time, so that
+     * acquisitions in flight look up a new bucket rather than take tokens from it.
+     */
+    private static boolean retire(AtomicLong bucket, long fullSince) {
+        long fullAt = bucket.get();
+        return isFullSince(fullAt, fullSince) && bucket.compareAndSet(fullAt, RETIRED);
+    }
+
+    private AtomicLong bucket(String key, String overflowKey, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if(bucket != null) return bucket;
+
+        // No room is made here, as looking for it takes a scan of all the buckets
+        if(buckets.size() >= maxSize) return overflowBuckets.computeIfAbsent(overflowKey, k -> new AtomicLong(now));
+
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+}
@@ -0,0 +1,126 @@
+package com.faunadb.rest.common;
+
+import com.faunadb.tracing.Tracing;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * <p>It starts a server span for every request, which the spans of the
+ * controller, service and Fauna queries handling it are nested into.</p>
+ *
+ * <p>The span continues the caller trace, if any, from its W3C {@code traceparent}
+ * header. It lasts until the response is complete, including its serialization,
+ * and it is named after the matched route, e.g. {@code GET /posts/{id}}.</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class TracingFilter extends OncePerRequestFilter {
+
+    private static final TextMapGetter<HttpServletRequest> HEADER_GETTER = new TextMapGetter<HttpServletRequest>() {
+        @Override
+        public Iterable<String> keys(HttpServletRequest request) {
+            return Collections.list(request.getHeaderNames());
+        }
+
+        @Override
+        public String get(HttpServletRequest request, String key) {
+            return request == null ? null : request.getHeader(key);
+        }
+    };
+
+    @Autowired
+    private OpenTelemetry openTelemetry;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Context parent = openTelemetry.getPropagators().getTextMapPropagator().extract(Context.root(), request, HEADER_GETTER);
+
+        Span span =
+            tracer.spanBuilder(request.getMethod())
+                .setParent(parent)
+                .setSpanKind(SpanKind.SERVER)
+                .setAttribute("http.method", request.getMethod())
+                .setAttribute("http.target", request.getRequestURI())
+                .startSpan();
+
+        if(!span.isRecording()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try(Scope ignored = span.makeCurrent()) {
+            filterChain.doFilter(request, response);
+        } catch(IOException | ServletException | RuntimeException e) {
+            Tracing.end(span, e);
+            throw e;
+        }
+
+        // Taken before any error dispatch overrides it
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+        if(request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    end(span, request.getMethod(), route, response);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    span.setStatus(StatusCode.ERROR, "Timeout");
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                    if(event.getThrowable() != null) span.recordException(event.getThrowable());
+                    span.setStatus(StatusCode.ERROR);
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        } else {
+            end(span, request.getMethod(), route, response);
+        }
+    }
+
+    private void end(Span span, String method, Object route, HttpServletResponse response) {
+        if(route != null) {
+            span.updateName(method + " " + route);
+            span.setAttribute("http.route", route.toString());
+        }
+
+        span.setAttribute(Tracing.HTTP_STATUS_CODE, (long) response.getStatus());
+        if(response.getStatus() >= 500) span.setStatus(StatusCode.ERROR);
+
+        String contentLength = response.getHeader("Content-Length");
+        if(contentLength != null) span.setAttribute("http.response_content_length", Long.parseLong(contentLength));
+
+        span.end();
+    }
+}
@@ -4,25 +4,34 @@ import com.faunadb.model.CreateReplacePostData;
 import com.faunadb.model.Post;
 import com.faunadb.model.common.Page;
 import com.faunadb.model.common.PaginationOptions;
+import com.faunadb.model.common.Versioned;
 import com.faunadb.persistence.PostRepository;
+import com.faunadb.services.common.PaginationPolicy;
+import com.faunadb.tracing.Traced;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
  * Domain Service for the {@link Post} entity.
  */
+@Traced
 @Service
 public class PostService {
 
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private PaginationPolicy paginationPolicy;
+
     /**
      * It builds up a new {@link Post} entity with the
      * given {@link CreateReplacePostData} and a generated
@@ -40,6 +49,21 @@ public class PostService {
         return result;
     }
 
+    /**
+     * It builds up a new {@link Post} entity with the given
+     * {@link CreateReplacePostData} and saves it into the repository,
+     * unless a Post has already been created for the given idempotency
+     * key, in which case that one is returned instead.
+     *
+     * @param data the data to create the new Post entity
+     * @param idempotencyKey the client supplied key identifying the create
+     * @return the new created Post entity, or the one already created for the given key
+     */
+    public CompletableFuture<Post> createPost(CreateReplacePostData data, String idempotencyKey) {
+        Post post = new Post(null, data.getTitle(), data.getTags());
+        return postRepository.createIdempotently(post, idempotencyKey);
+    }
+
     /**
      * It builds up a several {@link Post} entities with the
      * given {@link CreateReplacePostData} objects and generated
@@ -73,27 +97,66 @@ public class PostService {
         return postRepository.find(id);
     }
 
+    /**
+     * It retrieves a {@link Post} by its Id from the
+     * repository along with its current version.
+     *
+     * @param id the Id of the Post to retrieve
+     * @return an Optional result with the requested {@link Versioned} Post if any
+     */
+    public CompletableFuture<Optional<Versioned<Post>>> retrieveVersionedPost(String id) {
+        return postRepository.findVersioned(id);
+    }
+
+    /**
+     * It retrieves a {@link Post} by its Id from the repository
+     * only if it has been modified since any of the given versions.
+     *
+     * @param id the Id of the Post to retrieve
+     * @param versions the versions of the Post already known by the caller
+     * @return an Optional result with the requested {@link Versioned} Post if any,
+     * which comes without the Post if it has not been modified
+     */
+    public CompletableFuture<Optional<Versioned<Post>>> retrievePostIfModified(String id, List<Long> versions) {
+        return postRepository.findIfModified(id, versions);
+    }
+
     /**
      * It retrieves a {@link Page} of {@link Post} entities from
-     * the repository for the given {@link PaginationOptions}.
+     * the repository for the given {@link PaginationOptions},
+     * limited by the {@link PaginationPolicy}.
      *
      * @param po the {@link PaginationOptions} to determine which {@link Page} of results to return
      * @return a {@link Page} of Entities
      */
     public CompletableFuture<Page<Post>> retrievePosts(PaginationOptions po) {
-        return postRepository.findAll(po);
+        return paginationPolicy.paginate("findAll", po, postRepository::findAll);
     }
 
     /**
      * It retrieves a {@link Page} of {@link Post} entities
-     * from the repository matching the given title.
+     * from the repository matching the given title,
+     * limited by the {@link PaginationPolicy}.
      *
      * @param title title to find Posts by
      * @param po the {@link PaginationOptions} to determine which {@link Page} of results to return
      * @return a {@link Page} of {@link Post} entities
      */
     public CompletableFuture<Page<Post>> retrievePostsByTitle(String title, PaginationOptions po){
-        return postRepository.findByTitle(title, po);
+        return paginationPolicy.paginate("findByTitle", po, limited -> postRepository.findByTitle(title, limited));
+    }
+
+    /**
+     * It retrieves a {@link Page} of {@link Post} entities from
+     * the repository whose title contains every term of the given query,
+     * limited by the {@link PaginationPolicy}.
+     *
+     * @param query the terms to search Posts by
+     * @param po the {@link PaginationOptions} to determine which {@link Page} of results to return
+     * @return a {@link Page} of {@link Post} entities
+     */
+    public CompletableFuture<Page<Post>> searchPosts(String query, PaginationOptions po) {
+        return paginationPolicy.paginate("search", po, limited -> postRepository.search(query, limited));
     }
 
     /**
@@ -115,6 +178,23 @@ public class PostService {
         return result;
     }
 
+    /**
+     * It replaces the {@link Post} for the given Id with the given
+     * {@link CreateReplacePostData} if any, only if its current version
+     * is any of the given ones. Lookup and replacement take place within
+     * a single transaction.
+     *
+     * @param id the Id of the Post to replace
+     * @param data the data to replace the Post with
+     * @param versions the expected current versions of the Post
+     * @return an Optional result with the replaced {@link Versioned} Post if any,
+     * or a failing result with a {@link com.faunadb.persistence.common.VersionConflictException}
+     * if the current version of the Post is none of them
+     */
+    public CompletableFuture<Optional<Versioned<Post>>> replacePostIfMatch(String id, CreateReplacePostData data, List<Long> versions) {
+        return postRepository.replaceIfMatch(new Post(id, data.getTitle(), data.getTags()), versions);
+    }
+
     /**
      * It deletes a {@link Post} from the repository for the given Id.
      *
@@ -125,4 +205,16 @@ public class PostService {
         return postRepository.remove(id);
     }
 
+    /**
+     * It deletes all the {@link Post} entities from the
+     * repository matching the given title, in batches.
+     *
+     * @param title title to delete Posts by
+     * @param progress the consumer of the number of Posts deleted so far, called after each batch
+     * @return the number of Posts deleted
+     */
+    public CompletableFuture<Long> deletePostsByTitle(String title, LongConsumer progress) {
+        return postRepository.removeWhere("posts_by_title", Collections.singletonList(title), progress);
+    }
+
 }
@@ -0,0 +1,233 @@
+package com.faunadb.services.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.faunadb.model.common.Page;
+import com.faunadb.model.common.PaginationOptions;
+import com.faunadb.tracing.Tracing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.opentelemetry.api.trace.Span;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * <p>It enforces server side limits on the size of the
+ * {@link Page}s retrieved on behalf of the clients.</p>
+ *
+ * <p>The size requested for a Page is capped by {@code pagination.max-size}, and
+ * by as many elements as fit in {@code pagination.max-page-bytes} given the average
+ * size observed so far for the serialized elements. If no size is requested, the
+ * size used adapts to keep the time to retrieve a Page under
+ * {@code pagination.target-latency}: it is halved once {@code pagination.shrink-after}
+ * Pages in a row take longer, and slowly grown back while full Pages take less than
+ * half of it.</p>
+ *
+ * <p>The adaptive state is kept per operation, e.g. {@code findAll} or {@code search},
+ * as Pages cost differently to retrieve from one operation to the other: a slow
+ * search must not shrink the Pages of a cheap listing.</p>
+ *
+ * <p>As it runs on every Page retrieved, the bookkeeping takes no lock: the state
+ * is kept in atomics updated by compare-and-set. The element size is only sampled,
+ * from the first element of one Page out of {@value #SAMPLE_INTERVAL}, as serializing
+ * it again is not free.</p>
+ *
+ * <p>Capping the size does not lose any elements, as the Page then
+ * comes with an after cursor pointing to the first one left out.</p>
+ *
+ * <p>The following metrics are published, the first two tagged by {@code operation}:</p>
+ * <ul>
+ *     <li>{@code pagination.default-size}: current size for Pages with no size requested</li>
+ *     <li>{@code pagination.element-bytes}: average size observed for the serialized elements</li>
+ *     <li>{@code pagination.truncated}: Pages retrieved with less elements than requested</li>
+ * </ul>
+ */
+@Component
+public class PaginationPolicy implements MeterBinder {
+
+    private static final double SMOOTHING = 0.2;
+    private static final int SAMPLE_INTERVAL = 16;
+
+    @Autowired
+    private PaginationProperties properties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, OperationState> operations = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry registry;
+    private Counter truncatedCounter;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        operations.forEach(this::register);
+
+        truncatedCounter = Counter.builder("pagination.truncated")
+            .description("Pages retrieved with less elements than requested")
+            .register(registry);
+    }
+
+    /**
+     * It retrieves a {@link Page} through the given function, with the given
+     * {@link PaginationOptions} limited by the current policy of the operation.
+     *
+     * @param operation the name of the operation retrieving the Page, e.g. {@code findAll}
+     * @param po the {@link PaginationOptions} requested
+     * @param retrieve the function retrieving a Page for the given PaginationOptions
+     * @param <T> the type of the elements in the Page
+     * @return the retrieved Page, along with an after cursor if capped
+     */
+    public <T> CompletableFuture<Page<T>> paginate(String operation, PaginationOptions po, Function<PaginationOptions, CompletableFuture<Page<T>>> retrieve) {
+        OperationState state = state(operation);
+        PaginationOptions limited = limit(state, po);
+        int size = limited.getSize().get();
+        long start = System.nanoTime();
+
+        Span.current().setAttribute(Tracing.PAGE_SIZE, (long) size);
+
+        CompletableFuture<Page<T>> result =
+            retrieve.apply(limited)
+                .thenApply(page -> {
+                    record(state, page, size, !po.getSize().isPresent(), System.nanoTime() - start);
+                    return page;
+                });
+
+        return result;
+    }
+
+    /**
+     * It returns the given {@link PaginationOptions} with their
+     * size limited by the current policy of the operation.
+     *
+     * @param operation the name of the operation retrieving the Page
+     * @param po the {@link PaginationOptions} requested
+     * @return new PaginationOptions, always with a size
+     */
+    public PaginationOptions limit(String operation, PaginationOptions po) {
+        return limit(state(operation), po);
+    }
+
+    /**
+     * @param operation the name of the operation retrieving Pages
+     * @return the current size of the operation for Pages with no size requested
+     */
+    public int getDefaultSize(String operation) {
+        return state(operation).defaultSize.get();
+    }
+
+    /**
+     * @param operation the name of the operation retrieving Pages
+     * @return the average size observed for the elements serialized by the operation
+     */
+    public double getElementBytes(String operation) {
+        return state(operation).getElementBytes();
+    }
+
+    private OperationState state(String operation) {
+        return operations.computeIfAbsent(operation, o -> register(o, new OperationState(Math.min(properties.getDefaultSize(), properties.getMaxSize()))));
+    }
+
+    private OperationState register(String operation, OperationState state) {
+        MeterRegistry registry = this.registry;
+        if(registry == null) return state;
+
+        Gauge.builder("pagination.default-size", state, s -> s.defaultSize.get())
+            .tags(Tags.of("operation", operation))
+            .description("Current size for Pages with no size requested")
+            .register(registry);
+
+        Gauge.builder("pagination.element-bytes", state, OperationState::getElementBytes)
+            .tags(Tags.of("operation", operation))
+            .baseUnit("bytes")
+            .description("Average size observed for the serialized elements")
+            .register(registry);
+        return state;
+    }
+
+    private PaginationOptions limit(OperationState state, PaginationOptions po) {
+        int size = po.getSize().orElse(state.defaultSize.get());
+        int limit = Math.min(properties.getMaxSize(), maxSizeByBytes(state));
+        int limited = Math.max(1, Math.min(size, limit));
+
+        if(limited < size && truncatedCounter != null) truncatedCounter.increment();
+
+        return new PaginationOptions(Optional.of(limited), po.getBefore(), po.getAfter());
+    }
+
+    private int maxSizeByBytes(OperationState state) {
+        double bytes = state.getElementBytes();
+        if(bytes <= 0) return Integer.MAX_VALUE;
+        return (int) Math.max(1, properties.getMaxPageBytes().toBytes() / bytes);
+    }
+
+    /**
+     * It updates the average element size from the first element of the
+     * given Page if sampled, and adapts the default size to the time it took.
+     */
+    private void record(OperationState state, Page<?> page, int size, boolean defaulted, long elapsedNanos) {
+        boolean sampled = state.pages.getAndIncrement() % SAMPLE_INTERVAL == 0 || state.getElementBytes() <= 0;
+        if(sampled && !page.getData().isEmpty()) {
+            try {
+                state.recordElementBytes(objectMapper.writeValueAsBytes(page.getData().get(0)).length);
+            } catch(JsonProcessingException e) {
+                // Elements that cannot be serialized will fail later on anyway
+            }
+        }
+
+        long targetNanos = properties.getTargetLatency().toNanos();
+        if(!defaulted || targetNanos <= 0) return;
+
+        if(elapsedNanos > targetNanos) {
+            // A single slow Page may be a hiccup rather than a too large size
+            if(state.slowPages.incrementAndGet() < properties.getShrinkAfter()) return;
+            state.slowPages.set(0);
+            state.defaultSize.set(Math.max(properties.getMinDefaultSize(), size / 2));
+        } else {
+            state.slowPages.set(0);
+            if(elapsedNanos < targetNanos / 2 && page.getData().size() >= size) {
+                state.defaultSize.updateAndGet(current -> Math.min(properties.getMaxSize(), Math.max(size, current) + Math.max(1, size / 8)));
+            }
+        }
+    }
+
+    /**
+     * It holds the adaptive state of a single operation.
+     */
+    private static final class OperationState {
+
+        private final AtomicInteger defaultSize;
+        private final AtomicLong elementBytes = new AtomicLong(Double.doubleToLongBits(0));
+        private final AtomicLong pages = new AtomicLong();
+        private final AtomicInteger slowPages = new AtomicInteger();
+
+        private OperationState(int defaultSize) {
+            this.defaultSize = new AtomicInteger(defaultSize);
+        }
+
+        private double getElementBytes() {
+            return Double.longBitsToDouble(elementBytes.get());
+        }
+
+        private void recordElementBytes(int bytes) {
+            while(true) {
+                long current = elementBytes.get();
+                double average = Double.longBitsToDouble(current);
+                double updated = average <= 0 ? bytes : average + SMOOTHING * (bytes - average);
+                if(elementBytes.compareAndSet(current, Double.doubleToLongBits(updated))) return;
+            }
+        }
+    }
+}
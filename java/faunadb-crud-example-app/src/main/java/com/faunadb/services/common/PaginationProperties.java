@@ -0,0 +1,93 @@
+package com.faunadb.services.common;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * It contains the settings enforced by the {@link PaginationPolicy}.
+ */
+@Component
+@ConfigurationProperties(prefix = "pagination")
+public class PaginationProperties {
+
+    /**
+     * Max number of elements per page, whatever the size requested.
+     */
+    private int maxSize = 1000;
+
+    /**
+     * Max estimated size of the elements per page.
+     */
+    private DataSize maxPageBytes = DataSize.ofMegabytes(1);
+
+    /**
+     * Number of elements per page when no size is requested, to start adapting from.
+     */
+    private int defaultSize = 64;
+
+    /**
+     * Lower bound for the adapted number of elements per page when no size is requested.
+     */
+    private int minDefaultSize = 8;
+
+    /**
+     * Time to retrieve a page the default size adapts to, zero for a fixed default size.
+     */
+    private Duration targetLatency = Duration.ofMillis(200);
+
+    /**
+     * Number of pages in a row slower than the target latency before the size used when none is requested is halved.
+     */
+    private int shrinkAfter = 3;
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public DataSize getMaxPageBytes() {
+        return maxPageBytes;
+    }
+
+    public void setMaxPageBytes(DataSize maxPageBytes) {
+        this.maxPageBytes = maxPageBytes;
+    }
+
+    public int getDefaultSize() {
+        return defaultSize;
+    }
+
+    public void setDefaultSize(int defaultSize) {
+        this.defaultSize = defaultSize;
+    }
+
+    public int getMinDefaultSize() {
+        return minDefaultSize;
+    }
+
+    public void setMinDefaultSize(int minDefaultSize) {
+        this.minDefaultSize = minDefaultSize;
+    }
+
+    public Duration getTargetLatency() {
+        return targetLatency;
+    }
+
+    public void setTargetLatency(Duration targetLatency) {
+        this.targetLatency = targetLatency;
+    }
+
+    public int getShrinkAfter() {
+        return shrinkAfter;
+    }
+
+    public void setShrinkAfter(int shrinkAfter) {
+        this.shrinkAfter = shrinkAfter;
+    }
+}
@@ -0,0 +1,112 @@
+package com.faunadb.tracing;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>It exports the traces that were not sampled but turned out to be slow.</p>
+ *
+ * <p>Spans of traces which were not sampled are still recorded, and kept aside
+ * until the local root span of their trace ends, e.g. the one for the incoming
+ * request. If the root span took longer than the threshold, the whole trace is
+ * exported. Otherwise, it is dropped. Hence, the tail latency outliers are traced
+ * regardless of the sample ratio, at the cost of recording every request.</p>
+ *
+ * <p>At most {@code maxTraces} traces are kept aside at once. Traces whose local root
+ * span does not end within a minute, e.g. because spans outlive it, are dropped.</p>
+ */
+public class SlowTraceSpanProcessor implements SpanProcessor {
+
+    private static final long MAX_PENDING_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final SpanExporter exporter;
+    private final long thresholdNanos;
+    private final int maxTraces;
+
+    private final Map<String, PendingTrace> pending = new ConcurrentHashMap<>();
+
+    /**
+     * It creates a new SlowTraceSpanProcessor with the given parameters.
+     *
+     * @param exporter the exporter to export the slow traces with, which is not shut down along with this processor
+     * @param thresholdNanos the duration of the local root span above which traces are exported
+     * @param maxTraces the max number of traces to keep aside at once
+     */
+    public SlowTraceSpanProcessor(SpanExporter exporter, long thresholdNanos, int maxTraces) {
+        this.exporter = exporter;
+        this.thresholdNanos = thresholdNanos;
+        this.maxTraces = maxTraces;
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        // Sampled traces are exported as usual
+        if(span.getSpanContext().isSampled()) return;
+
+        String traceId = span.getSpanContext().getTraceId();
+        boolean localRoot = !span.getParentSpanContext().isValid() || span.getParentSpanContext().isRemote();
+
+        if(!localRoot) {
+            if(pending.size() >= maxTraces && !pending.containsKey(traceId)) dropStale();
+            if(pending.size() < maxTraces) pending.computeIfAbsent(traceId, id -> new PendingTrace()).add(span.toSpanData());
+            return;
+        }
+
+        PendingTrace trace = pending.remove(traceId);
+        if(span.getLatencyNanos() < thresholdNanos) return;
+
+        List<SpanData> spans = trace != null ? trace.drain() : new ArrayList<>();
+        spans.add(span.toSpanData());
+        exporter.export(spans);
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        pending.clear();
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private void dropStale() {
+        long now = System.nanoTime();
+        pending.values().removeIf(trace -> now - trace.startNanos > MAX_PENDING_NANOS);
+    }
+
+    private static class PendingTrace {
+
+        private final long startNanos = System.nanoTime();
+        private final List<SpanData> spans = new ArrayList<>();
+
+        synchronized void add(SpanData span) {
+            spans.add(span);
+        }
+
+        synchronized List<SpanData> drain() {
+            return new ArrayList<>(spans);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.faunadb.tracing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>It marks a bean whose asynchronous methods, i.e. those returning
+ * a {@link java.util.concurrent.CompletionStage}, get a span each.</p>
+ *
+ * <p>The span lasts until the returned stage completes, and it is the
+ * current one while the method runs, so that the spans started meanwhile
+ * are nested into it.</p>
+ *
+ * @see TracingBeanPostProcessor
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Traced {
+}
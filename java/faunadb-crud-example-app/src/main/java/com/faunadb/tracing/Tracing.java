@@ -0,0 +1,72 @@
+package com.faunadb.tracing;
+
+import com.faunadb.model.common.Page;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+
+/**
+ * It contains the span attributes recorded by the application,
+ * along with helpers for ending spans of asynchronous operations.
+ */
+public final class Tracing {
+
+    public static final AttributeKey<Long> RESULT_COUNT = AttributeKey.longKey("result.count");
+    public static final AttributeKey<Boolean> RESULT_FOUND = AttributeKey.booleanKey("result.found");
+    public static final AttributeKey<Long> PAGE_SIZE = AttributeKey.longKey("pagination.size");
+    public static final AttributeKey<Long> HTTP_STATUS_CODE = AttributeKey.longKey("http.status_code");
+
+    public static final AttributeKey<String> DB_SYSTEM = AttributeKey.stringKey("db.system");
+    public static final AttributeKey<String> DB_OPERATION = AttributeKey.stringKey("db.operation");
+    public static final AttributeKey<String> FAUNA_CLASS = AttributeKey.stringKey("fauna.class");
+    public static final AttributeKey<String> FAUNA_QUERY_SHAPE = AttributeKey.stringKey("fauna.query.shape");
+    public static final AttributeKey<Long> FAUNA_QUEUE_TIME = AttributeKey.longKey("fauna.queue.time_ms");
+    public static final AttributeKey<Long> FAUNA_QUERY_TIME = AttributeKey.longKey("fauna.query.time_ms");
+    public static final AttributeKey<Long> FAUNA_RESPONSE_BYTES = AttributeKey.longKey("fauna.response.bytes");
+
+    private Tracing() {
+    }
+
+    /**
+     * It records the size of the given result on the given span,
+     * for the result types the application deals with.
+     *
+     * @param span the span to record the result on
+     * @param result the result of the traced operation
+     */
+    public static void recordResult(Span span, Object result) {
+        if(result instanceof ResponseEntity) {
+            ResponseEntity<?> response = (ResponseEntity<?>) result;
+            span.setAttribute(HTTP_STATUS_CODE, (long) response.getStatusCodeValue());
+            result = response.getBody();
+        }
+
+        if(result instanceof Page) {
+            span.setAttribute(RESULT_COUNT, (long) ((Page<?>) result).getData().size());
+        } else if(result instanceof Collection) {
+            span.setAttribute(RESULT_COUNT, (long) ((Collection<?>) result).size());
+        } else if(result instanceof Optional) {
+            span.setAttribute(RESULT_FOUND, ((Optional<?>) result).isPresent());
+        }
+    }
+
+    /**
+     * It ends the given span, flagging it as failed if there is a failure.
+     *
+     * @param span the span to end
+     * @param throwable the failure of the traced operation, if any
+     */
+    public static void end(Span span, Throwable throwable) {
+        if(throwable != null) {
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            span.recordException(cause);
+            span.setStatus(StatusCode.ERROR, cause.getClass().getSimpleName());
+        }
+        span.end();
+    }
+}
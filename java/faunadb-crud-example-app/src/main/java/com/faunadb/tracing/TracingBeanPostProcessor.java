@@ -0,0 +1,81 @@
+package com.faunadb.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>It proxies the beans marked as {@link Traced}, so that each of their
+ * asynchronous methods gets a span named after the class and method.</p>
+ *
+ * <p>On completion, the span records the size of the result, e.g. the number of
+ * elements in a {@link com.faunadb.model.common.Page}, or the failure if any.</p>
+ *
+ * <p>Beans are left as they are if tracing is disabled.</p>
+ */
+@Component
+public class TracingBeanPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<TracingProperties> properties;
+    private final ObjectProvider<Tracer> tracer;
+
+    public TracingBeanPostProcessor(ObjectProvider<TracingProperties> properties, ObjectProvider<Tracer> tracer) {
+        this.properties = properties;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> type = ClassUtils.getUserClass(bean);
+        if(AnnotationUtils.findAnnotation(type, Traced.class) == null || !properties.getObject().isEnabled()) {
+            return bean;
+        }
+
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new TracingInterceptor(tracer.getObject(), type.getSimpleName()));
+        return proxyFactory.getProxy(type.getClassLoader());
+    }
+
+    private static class TracingInterceptor implements MethodInterceptor {
+
+        private final Tracer tracer;
+        private final String className;
+
+        private TracingInterceptor(Tracer tracer, String className) {
+            this.tracer = tracer;
+            this.className = className;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if(!CompletionStage.class.isAssignableFrom(invocation.getMethod().getReturnType())) {
+                return invocation.proceed();
+            }
+
+            Span span = tracer.spanBuilder(className + "." + invocation.getMethod().getName()).startSpan();
+
+            try(Scope ignored = span.makeCurrent()) {
+                CompletionStage<?> result = (CompletionStage<?>) invocation.proceed();
+                result.whenComplete((value, throwable) -> {
+                    Tracing.recordResult(span, value);
+                    Tracing.end(span, throwable);
+                });
+                return result;
+            } catch(Throwable t) {
+                Tracing.end(span, t);
+                throw t;
+            }
+        }
+    }
+}
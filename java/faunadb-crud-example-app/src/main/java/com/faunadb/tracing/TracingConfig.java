@@ -0,0 +1,130 @@
+package com.faunadb.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+
+import java.util.List;
+
+@Configuration
+public class TracingConfig {
+
+    private static final String INSTRUMENTATION_NAME = "com.faunadb.crud-example-app";
+    private static final int MAX_SLOW_TRACES = 1000;
+
+    @Autowired
+    private TracingProperties tracingProperties;
+
+    /**
+     * <p>It initiates a singleton {@link OpenTelemetry} instance
+     * using the settings defined at {@link TracingProperties}.</p>
+     *
+     * <p>Requests are sampled at the configured ratio, unless the caller already
+     * decided through a W3C {@code traceparent} header. If a slow threshold is
+     * set, the requests which were not sampled are traced nonetheless when they
+     * turn out to be slow, see {@link SlowTraceSpanProcessor}.</p>
+     *
+     * <p>If tracing is disabled, it is a no-op instance.</p>
+     *
+     * @return a singleton {@link OpenTelemetry} instance
+     */
+    @Bean
+    @Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+    public OpenTelemetry openTelemetry() {
+        if(!tracingProperties.isEnabled()) {
+            return OpenTelemetry.noop();
+        }
+
+        SpanExporter exporter = spanExporter();
+        long slowThresholdNanos = tracingProperties.getSlowThreshold().toNanos();
+        Sampler sampler = Sampler.parentBased(Sampler.traceIdRatioBased(tracingProperties.getSampleRatio()));
+
+        SdkTracerProviderBuilder tracerProvider =
+            SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(
+                    Attributes.of(AttributeKey.stringKey("service.name"), tracingProperties.getServiceName()))))
+                .addSpanProcessor(BatchSpanProcessor.builder(exporter).build());
+
+        if(slowThresholdNanos > 0) {
+            sampler = new RecordingSampler(sampler);
+            tracerProvider.addSpanProcessor(new SlowTraceSpanProcessor(exporter, slowThresholdNanos, MAX_SLOW_TRACES));
+        }
+
+        OpenTelemetrySdk openTelemetry =
+            OpenTelemetrySdk.builder()
+                .setTracerProvider(tracerProvider.setSampler(sampler).build())
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+
+        return openTelemetry;
+    }
+
+    /**
+     * It initiates a singleton {@link Tracer} instance
+     * for the application to start its spans with.
+     *
+     * @return a singleton {@link Tracer} instance
+     */
+    @Bean
+    @Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+    public Tracer tracer() {
+        return openTelemetry().getTracer(INSTRUMENTATION_NAME);
+    }
+
+    private SpanExporter spanExporter() {
+        switch(tracingProperties.getExporter()) {
+            case OTLP:
+                return OtlpHttpSpanExporter.builder().setEndpoint(tracingProperties.getOtlpEndpoint()).build();
+            case LOGGING:
+            default:
+                return OtlpJsonLoggingSpanExporter.create();
+        }
+    }
+
+    /**
+     * A Sampler recording the spans the given one drops, without sampling them,
+     * so that the {@link SlowTraceSpanProcessor} gets to see them.
+     */
+    private static class RecordingSampler implements Sampler {
+
+        private final Sampler delegate;
+
+        private RecordingSampler(Sampler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                           Attributes attributes, List<LinkData> parentLinks) {
+            SamplingResult result = delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+            return result.getDecision() == SamplingDecision.DROP ? SamplingResult.recordOnly() : result;
+        }
+
+        @Override
+        public String getDescription() {
+            return "RecordingSampler{" + delegate.getDescription() + "}";
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.faunadb.tracing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * It contains the settings for tracing requests
+ * across the application layers and Fauna.
+ *
+ * @see TracingConfig
+ */
+@Component
+@ConfigurationProperties(prefix = "tracing")
+public class TracingProperties {
+
+    /**
+     * The ways spans can be exported.
+     */
+    public enum Exporter {
+        /**
+         * To an OpenTelemetry collector, over OTLP/HTTP.
+         */
+        OTLP,
+        /**
+         * As OTLP JSON lines, through the application logs.
+         */
+        LOGGING
+    }
+
+    /**
+     * Whether requests are traced at all.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Name of the service the spans are reported for.
+     */
+    private String serviceName = "crud-example-app";
+
+    /**
+     * Ratio of the requests to trace, unless the caller already decided.
+     */
+    private double sampleRatio = 0.1;
+
+    /**
+     * Duration above which requests are traced even if not sampled, zero to disable.
+     */
+    private Duration slowThreshold = Duration.ZERO;
+
+    /**
+     * How to export the spans.
+     */
+    private Exporter exporter = Exporter.LOGGING;
+
+    /**
+     * Collector endpoint to export the spans to, for the OTLP exporter.
+     */
+    private String otlpEndpoint = "http://localhost:4318/v1/traces";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public double getSampleRatio() {
+        return sampleRatio;
+    }
+
+    public void setSampleRatio(double sampleRatio) {
+        this.sampleRatio = sampleRatio;
+    }
+
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(Duration slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public Exporter getExporter() {
+        return exporter;
+    }
+
+    public void setExporter(Exporter exporter) {
+        this.exporter = exporter;
+    }
+
+    public String getOtlpEndpoint() {
+        return otlpEndpoint;
+    }
+
+    public void setOtlpEndpoint(String otlpEndpoint) {
+        this.otlpEndpoint = otlpEndpoint;
+    }
+}
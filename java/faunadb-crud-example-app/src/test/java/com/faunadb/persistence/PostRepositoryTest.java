@@ -0,0 +1,57 @@
+package com.faunadb.persistence;
+
+import com.faunadb.client.query.Expr;
+import org.junit.Test;
+
+import static com.faunadb.client.query.Language.Casefold;
+import static com.faunadb.client.query.Language.Index;
+import static com.faunadb.client.query.Language.Intersection;
+import static com.faunadb.client.query.Language.Lambda;
+import static com.faunadb.client.query.Language.Map;
+import static com.faunadb.client.query.Language.Match;
+import static com.faunadb.client.query.Language.NGram;
+import static com.faunadb.client.query.Language.Value;
+import static com.faunadb.client.query.Language.Var;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PostRepositoryTest {
+
+    @Test
+    public void splitsSearchQueriesIntoDistinctTerms() {
+        assertThat(PostRepository.searchTerms("  cat \t and\nother  cat ")).containsExactly("cat", "and", "other");
+    }
+
+    @Test
+    public void findsNoTermsInBlankSearchQueries() {
+        assertThat(PostRepository.searchTerms("")).isEmpty();
+        assertThat(PostRepository.searchTerms(" \t ")).isEmpty();
+    }
+
+    @Test
+    public void matchesTermsByTheirTrigrams() {
+        assertThat(PostRepository.matchTerm("marvels").toString()).isEqualTo(ngramsMatch("marvels", 3).toString());
+    }
+
+    @Test
+    public void matchesShortTermsAsAWhole() {
+        assertThat(PostRepository.matchTerm("at").toString()).isEqualTo(ngramsMatch("at", 2).toString());
+        assertThat(PostRepository.matchTerm("a").toString()).isEqualTo(ngramsMatch("a", 1).toString());
+    }
+
+    @Test
+    public void sizesNGramsByCodePoints() {
+        // Two code points, yet four chars
+        String term = "🐱🐶";
+
+        assertThat(PostRepository.matchTerm(term).toString()).isEqualTo(ngramsMatch(term, 2).toString());
+    }
+
+    private static Expr ngramsMatch(String term, long size) {
+        return Intersection(
+            Map(
+                NGram(Casefold(Value(term)), size, size),
+                Lambda(Value("ngram"), Match(Index(Value("posts_by_title_ngrams")), Var("ngram")))
+            )
+        );
+    }
+}
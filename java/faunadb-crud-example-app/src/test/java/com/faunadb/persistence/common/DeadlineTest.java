@@ -0,0 +1,67 @@
+package com.faunadb.persistence.common;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DeadlineTest {
+
+    @Test
+    public void tellsTheTimeLeft() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(10));
+
+        assertThat(deadline.isExpired()).isFalse();
+        assertThat(deadline.remainingNanos()).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(10));
+        assertThat(Deadline.after(Duration.ZERO).isExpired()).isTrue();
+    }
+
+    @Test
+    public void failsBoundFuturesStillPendingOnceItPasses() {
+        Deadline deadline = Deadline.after(Duration.ofMillis(50));
+
+        CompletableFuture<String> future = deadline.bind(new CompletableFuture<>());
+
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(DeadlineExceededException.class)
+            .hasMessageContaining("Request deadline of [50ms] exceeded");
+    }
+
+    @Test
+    public void leavesBoundFuturesCompletedInTime() throws Exception {
+        Deadline deadline = Deadline.after(Duration.ofMillis(50));
+
+        CompletableFuture<String> future = deadline.bind(new CompletableFuture<>());
+        future.complete("answered");
+        Thread.sleep(100);
+
+        assertThat(future).isCompletedWithValue("answered");
+    }
+
+    @Test
+    public void failsBoundFuturesOnceCancelled() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(10));
+        CompletableFuture<String> future = deadline.bind(new CompletableFuture<>());
+
+        deadline.cancel();
+
+        assertThat(deadline.isCancelled()).isTrue();
+        assertThat(deadline.isExpired()).isTrue();
+        assertThatThrownBy(future::join)
+            .hasCauseInstanceOf(DeadlineExceededException.class)
+            .hasMessageContaining("Request cancelled");
+    }
+
+    @Test
+    public void failsFuturesBoundOnceExpired() {
+        Deadline deadline = Deadline.after(Duration.ZERO);
+
+        CompletableFuture<String> future = deadline.bind(new CompletableFuture<>());
+
+        assertThat(future).hasFailedWithThrowableThat().isInstanceOf(DeadlineExceededException.class);
+    }
+}
@@ -0,0 +1,62 @@
+package com.faunadb.persistence.common;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DocumentVersionCacheTest {
+
+    @Test
+    public void keepsTheLatestVersion() {
+        DocumentVersionCache cache = new DocumentVersionCache(10);
+
+        cache.recordRead("1", 20);
+        cache.recordRead("1", 10);
+        cache.recordWrite("1", 15);
+
+        assertThat(cache.get("1")).contains(20L);
+        assertThat(cache.get("2")).isEmpty();
+    }
+
+    @Test
+    public void keepsRemovalsFromBeingUndoneByReads() {
+        DocumentVersionCache cache = new DocumentVersionCache(10);
+
+        cache.recordRead("1", 10);
+        cache.recordRemoval("1");
+        cache.recordRead("1", 20);
+
+        assertThat(cache.get("1")).isEmpty();
+    }
+
+    @Test
+    public void letsWritesFollowRemovals() {
+        DocumentVersionCache cache = new DocumentVersionCache(10);
+
+        cache.recordRemoval("1");
+        cache.recordWrite("1", 30);
+
+        assertThat(cache.get("1")).contains(30L);
+    }
+
+    @Test
+    public void forgetsInvalidatedIds() {
+        DocumentVersionCache cache = new DocumentVersionCache(10);
+
+        cache.recordRemoval("1");
+        cache.invalidate("1");
+        cache.recordRead("1", 10);
+
+        assertThat(cache.get("1")).contains(10L);
+    }
+
+    @Test
+    public void staysWithinItsMaxSize() {
+        DocumentVersionCache cache = new DocumentVersionCache(3);
+
+        for(int i = 0; i < 10; i++) cache.recordRead(String.valueOf(i), i);
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get("9")).contains(9L);
+    }
+}
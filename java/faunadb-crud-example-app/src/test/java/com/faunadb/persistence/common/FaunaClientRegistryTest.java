@@ -0,0 +1,129 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.client.FaunaClient;
+import com.faunadb.client.query.Expr;
+import com.faunadb.client.types.Value;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+import static com.faunadb.client.query.Language.Value;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FaunaClientRegistryTest {
+
+    private FaunaClientRegistry registry;
+
+    @Before
+    public void setUp() {
+        FaunaClient faunaClient = mock(FaunaClient.class);
+        when(faunaClient.newSessionClient(anyString())).thenAnswer(invocation -> {
+            FaunaClient sessionClient = mock(FaunaClient.class);
+            when(sessionClient.query(any(Expr.class))).thenReturn(new CompletableFuture<>());
+            return sessionClient;
+        });
+
+        FaunaClientProperties properties = new FaunaClientProperties();
+        properties.getTenancy().setMaxTenants(2);
+        properties.getTenancy().setMaxConcurrentQueries(1);
+        properties.getTenancy().setMaxQueuedQueries(0);
+
+        registry = new FaunaClientRegistry();
+        ReflectionTestUtils.setField(registry, "faunaClient", faunaClient);
+        ReflectionTestUtils.setField(registry, "faunaProperties", properties);
+        registry.init();
+    }
+
+    @After
+    public void tearDown() {
+        FaunaTenantContext.clear();
+    }
+
+    @Test
+    public void reusesTheClientOfEachTenant() {
+        assertThat(registry.forSecret("first")).isSameAs(registry.forSecret("first"));
+        assertThat(registry.forSecret("first")).isNotSameAs(registry.forSecret("second"));
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedIdleClient() {
+        TenantFaunaClient first = registry.forSecret("first");
+        TenantFaunaClient second = registry.forSecret("second");
+        queryFor("second");
+        queryFor("first");
+        completeAll(first, second);
+
+        registry.forSecret("third");
+
+        assertThat(registry.size()).isEqualTo(2);
+        assertThat(registry.forSecret("first")).isSameAs(first);
+        verify(second.getClient()).close();
+    }
+
+    @Test
+    public void keepsClientsWithQueriesInFlight() {
+        TenantFaunaClient first = registry.forSecret("first");
+        TenantFaunaClient second = registry.forSecret("second");
+        queryFor("first");
+        queryFor("second");
+
+        registry.forSecret("third");
+
+        assertThat(registry.size()).isEqualTo(3);
+        assertThat(registry.forSecret("first")).isSameAs(first);
+        assertThat(registry.forSecret("second")).isSameAs(second);
+        verify(first.getClient(), never()).close();
+        verify(second.getClient(), never()).close();
+    }
+
+    @Test
+    public void keepsTheConcurrencyLimitOfBusyTenantsWhileEvicting() {
+        queryFor("first");
+        registry.forSecret("second");
+        registry.forSecret("third");
+
+        assertThat(queryFor("first")).hasFailedWithThrowableThat().hasMessageContaining("Too many queued queries");
+    }
+
+    @Test
+    public void issuesQueriesAgainThroughTheReplacementOfAnEvictedClient() {
+        TenantFaunaClient evicted = registry.forSecret("evicted");
+        evicted.close();
+        registry = spy(registry);
+        doReturn(evicted).doCallRealMethod().when(registry).current();
+
+        CompletableFuture<Value> result = queryFor("first");
+
+        assertThat(result).isNotDone();
+        assertThat(registry.forSecret("first").getRunningQueries()).isEqualTo(1);
+        verify(evicted.getClient(), never()).query(any(Expr.class));
+    }
+
+    private CompletableFuture<Value> queryFor(String secret) {
+        FaunaTenantContext.setSecret(secret);
+        try {
+            return registry.query(Value(1));
+        } finally {
+            FaunaTenantContext.clear();
+        }
+    }
+
+    private static void completeAll(TenantFaunaClient... clients) {
+        // Each session client answers all its queries through the same future
+        for(TenantFaunaClient client : clients) {
+            client.getClient().query(Value(1)).complete(new Value.LongV(1));
+        }
+    }
+}
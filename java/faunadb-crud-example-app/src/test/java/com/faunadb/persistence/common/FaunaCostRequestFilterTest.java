@@ -0,0 +1,88 @@
+package com.faunadb.persistence.common;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.filter.FilterContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class FaunaCostRequestFilterTest {
+
+    private final FaunaCostRequestFilter filter = new FaunaCostRequestFilter();
+
+    private AsyncHandler<Object> handler;
+    private QueryCost operation;
+    private QueryCost cost;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        handler = mock(AsyncHandler.class);
+        operation = new QueryCost();
+        cost = new QueryCost(operation);
+    }
+
+    @Test
+    public void chargesTheUsageReportedByFauna() throws Exception {
+        HttpHeaders headers = new DefaultHttpHeaders()
+            .add("x-read-ops", "6")
+            .add("x-write-ops", "2")
+            .add("x-compute-ops", "1")
+            .add("x-query-time", " 14 ")
+            .add("x-storage-bytes-read", "240")
+            .add("x-storage-bytes-write", "128");
+
+        filtered().onHeadersReceived(headers);
+
+        assertThat(cost.getQueries()).isEqualTo(1);
+        assertThat(cost.getReadOps()).isEqualTo(6);
+        assertThat(cost.getWriteOps()).isEqualTo(2);
+        assertThat(cost.getComputeOps()).isEqualTo(1);
+        assertThat(cost.getQueryTime()).isEqualTo(14);
+        assertThat(cost.getStorageBytesRead()).isEqualTo(240);
+        assertThat(cost.getStorageBytesWrite()).isEqualTo(128);
+        assertThat(operation.getReadOps()).isEqualTo(6);
+        verify(handler).onHeadersReceived(headers);
+    }
+
+    @Test
+    public void countsMissingAndMalformedHeadersAsNothing() throws Exception {
+        filtered().onHeadersReceived(new DefaultHttpHeaders()
+            .add("x-query-time", "3")
+            .add("x-read-ops", "lots"));
+
+        assertThat(cost.getQueries()).isEqualTo(1);
+        assertThat(cost.getQueryTime()).isEqualTo(3);
+        assertThat(cost.getReadOps()).isZero();
+        assertThat(cost.getWriteOps()).isZero();
+    }
+
+    @Test
+    public void chargesNothingForResponsesWithNoUsage() throws Exception {
+        filtered().onHeadersReceived(new DefaultHttpHeaders().add("x-txn-time", "1551987105592000"));
+
+        assertThat(cost.getQueries()).isZero();
+    }
+
+    @Test
+    public void leavesRequestsSentOutsideOfAQueryAsTheyAre() throws Exception {
+        FilterContext<Object> ctx = new FilterContext.FilterContextBuilder<>().asyncHandler(handler).build();
+
+        assertThat(filter.filter(ctx)).isSameAs(ctx);
+    }
+
+    private AsyncHandler<Object> filtered() throws Exception {
+        FilterContext<Object> ctx = new FilterContext.FilterContextBuilder<>().asyncHandler(handler).build();
+
+        try(Scope ignored = QueryCostContext.withQuery(Context.current(), cost).makeCurrent()) {
+            return filter.filter(ctx).getAsyncHandler();
+        }
+    }
+}
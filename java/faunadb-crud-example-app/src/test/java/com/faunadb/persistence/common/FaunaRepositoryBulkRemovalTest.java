@@ -0,0 +1,105 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.client.query.Expr;
+import com.faunadb.client.types.Value;
+import com.faunadb.model.Post;
+import io.opentelemetry.api.OpenTelemetry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FaunaRepositoryBulkRemovalTest {
+
+    private FaunaRepository<Post> repository;
+    private FaunaClientRegistry clientRegistry;
+    private final List<Long> progress = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        clientRegistry = mock(FaunaClientRegistry.class);
+
+        FaunaRepositoryProperties properties = new FaunaRepositoryProperties();
+        properties.getBulkRemoval().setMaxRate(0);
+
+        repository = new FaunaRepository<Post>(Post.class, "posts", "all_posts") {};
+        repository.clientRegistry = clientRegistry;
+        repository.repositoryProperties = properties;
+        repository.tracer = OpenTelemetry.noop().getTracer("test");
+        repository.costRegistry = mock(QueryCostRegistry.class);
+        repository.initVersionCache();
+        repository.initBulkRemoval();
+    }
+
+    @After
+    public void tearDown() {
+        repository.stopBulkRemoval();
+    }
+
+    @Test
+    public void removesBatchesUntilThereAreNoMore() throws Exception {
+        when(clientRegistry.query(any(Expr.class))).thenReturn(
+            CompletableFuture.completedFuture(batch(true, "1", "2")),
+            CompletableFuture.completedFuture(batch(false, "3")));
+
+        long removed = removeAll().get(5, TimeUnit.SECONDS);
+
+        assertThat(removed).isEqualTo(3);
+        assertThat(progress).containsExactly(2L, 3L);
+    }
+
+    @Test
+    public void failsTheRemovalWhenHandlingABatchFails() {
+        when(clientRegistry.query(any(Expr.class))).thenReturn(CompletableFuture.completedFuture(batch(true, "1")));
+        repository.addWriteListener(changes -> {
+            throw new IllegalStateException("Listener failed");
+        });
+
+        CompletableFuture<Long> result = removeAll();
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void failsTheRemovalWhenABatchCannotBeDecoded() {
+        when(clientRegistry.query(any(Expr.class))).thenReturn(CompletableFuture.completedFuture(new Value.ObjectV(Collections.emptyMap())));
+
+        CompletableFuture<Long> result = removeAll();
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(RuntimeException.class);
+    }
+
+    private CompletableFuture<Long> removeAll() {
+        return repository.removeWhere("posts_by_title", Collections.singletonList("title"), progress::add);
+    }
+
+    private static Value batch(boolean more, String... ids) {
+        List<Value> removed = new ArrayList<>();
+        for(String id : ids) {
+            Map<String, Value> doc = new HashMap<>();
+            doc.put("ref", new Value.RefV(id, new Value.RefV("posts", Value.Native.CLASSES)));
+            doc.put("ts", new Value.LongV(10));
+            removed.add(new Value.ObjectV(doc));
+        }
+
+        Map<String, Value> batch = new HashMap<>();
+        batch.put("removed", new Value.ArrayV(removed));
+        batch.put("more", Value.BooleanV.valueOf(more));
+        return new Value.ObjectV(batch);
+    }
+}
@@ -0,0 +1,83 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.client.FaunaClient;
+import com.faunadb.client.query.Expr;
+import com.faunadb.client.types.Value;
+import com.faunadb.model.Post;
+import io.opentelemetry.api.OpenTelemetry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FaunaRepositoryTenancyTest {
+
+    private FaunaRepository<Post> repository;
+    private final List<Change<Post>> written = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        FaunaClient faunaClient = mock(FaunaClient.class);
+        when(faunaClient.query(any(Expr.class))).thenAnswer(invocation -> CompletableFuture.completedFuture(saved("1", 10)));
+
+        TenantFaunaClient defaultClient = new TenantFaunaClient(faunaClient, null, -1, 0);
+        TenantFaunaClient tenantClient = new TenantFaunaClient(faunaClient, "tenant", -1, 0);
+        FaunaClientRegistry clientRegistry = mock(FaunaClientRegistry.class);
+        when(clientRegistry.query(any(Expr.class))).thenAnswer(invocation ->
+            (FaunaTenantContext.getSecret().isPresent() ? tenantClient : defaultClient).query(invocation.getArgument(0)));
+
+        repository = new FaunaRepository<Post>(Post.class, "posts", "all_posts") {};
+        repository.clientRegistry = clientRegistry;
+        repository.repositoryProperties = new FaunaRepositoryProperties();
+        repository.tracer = OpenTelemetry.noop().getTracer("test");
+        repository.costRegistry = mock(QueryCostRegistry.class);
+        repository.initVersionCache();
+        repository.addWriteListener(written::addAll);
+    }
+
+    @After
+    public void tearDown() {
+        FaunaTenantContext.clear();
+    }
+
+    @Test
+    public void recordsWritesWithTheDefaultSecret() {
+        repository.save(new Post("1", "title", Arrays.asList("tag"))).join();
+
+        assertThat(repository.versionCache.get("1")).contains(10L);
+        assertThat(written).extracting(Change::getId).containsExactly("1");
+    }
+
+    @Test
+    public void keepsWritesWithOtherSecretsOutOfLocalState() {
+        FaunaTenantContext.setSecret("tenant");
+
+        repository.save(new Post("1", "title", Arrays.asList("tag"))).join();
+
+        assertThat(repository.versionCache.get("1")).isEmpty();
+        assertThat(written).isEmpty();
+    }
+
+    private static Value saved(String id, long ts) {
+        Map<String, Value> data = new HashMap<>();
+        data.put("id", new Value.StringV(id));
+        data.put("title", new Value.StringV("title"));
+        data.put("tags", new Value.ArrayV(Arrays.asList(new Value.StringV("tag"))));
+
+        Map<String, Value> doc = new HashMap<>();
+        doc.put("data", new Value.ObjectV(data));
+        doc.put("ts", new Value.LongV(ts));
+        return new Value.ObjectV(doc);
+    }
+}
@@ -0,0 +1,182 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.model.Post;
+import com.faunadb.model.common.Versioned;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GroupCommitterTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final List<Deadline> deadlines = new CopyOnWriteArrayList<>();
+
+    private GroupCommitter<Post> committer;
+
+    @After
+    public void tearDown() {
+        if(committer != null) committer.stop();
+        DeadlineContext.clear();
+    }
+
+    @Test
+    public void flushesConcurrentSavesTogether() throws Exception {
+        start(10, Duration.ofMillis(200), this::saveAll);
+
+        CompletableFuture<Versioned<Post>> first = committer.submit(post("1"));
+        CompletableFuture<Versioned<Post>> second = committer.submit(post("2"));
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getEntity().get().getId()).isEqualTo("1");
+        assertThat(second.get(5, TimeUnit.SECONDS).getEntity().get().getId()).isEqualTo("2");
+        assertThat(batches).containsExactly(ids("1", "2"));
+    }
+
+    @Test
+    public void keepsSavesForTheSameEntityInSeparateFlushes() throws Exception {
+        start(10, Duration.ofMillis(200), this::saveAll);
+
+        CompletableFuture<Versioned<Post>> first = committer.submit(post("1"));
+        CompletableFuture<Versioned<Post>> second = committer.submit(post("1"));
+
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertThat(batches).containsExactly(ids("1"), ids("1"));
+    }
+
+    @Test
+    public void failsExpiredSavesAndFlushesWithNoDeadline() throws Exception {
+        start(3, Duration.ofMillis(200), this::saveAll);
+
+        CompletableFuture<Versioned<Post>> expired = submitWithin(Deadline.after(Duration.ZERO), post("1"));
+        CompletableFuture<Versioned<Post>> first = submitWithin(Deadline.after(Duration.ofSeconds(10)), post("2"));
+        CompletableFuture<Versioned<Post>> second = submitWithin(Deadline.after(Duration.ofSeconds(20)), post("3"));
+
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> expired.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(DeadlineExceededException.class);
+        assertThat(batches).containsExactly(ids("2", "3"));
+        assertThat(deadlines).isEmpty();
+    }
+
+    @Test
+    public void answersBatchMatesOfSavesExpiredDuringTheFlush() throws Exception {
+        CompletableFuture<List<Versioned<Post>>> flushed = new CompletableFuture<>();
+        start(2, Duration.ofMillis(200), entities -> {
+            // Committed only once the first save has expired
+            new Thread(() -> {
+                try {
+                    Thread.sleep(300);
+                } catch(InterruptedException ignored) {
+                }
+                saveAll(entities).thenAccept(flushed::complete);
+            }).start();
+            return flushed;
+        });
+
+        Deadline later = Deadline.after(Duration.ofSeconds(10));
+        CompletableFuture<Versioned<Post>> expiring = submitWithin(Deadline.after(Duration.ofMillis(100)), post("1"));
+        CompletableFuture<Versioned<Post>> answered = submitWithin(later, post("2"));
+        CompletableFuture<Deadline> answeredWithin = answered.thenApply(saved -> DeadlineContext.get().orElse(null));
+
+        // Waited for first, as a thread waiting for the save may well run the stages on top of it
+        assertThat(answeredWithin.get(5, TimeUnit.SECONDS)).isSameAs(later);
+        assertThat(answered.get(5, TimeUnit.SECONDS).getEntity().get().getId()).isEqualTo("2");
+        assertThatThrownBy(() -> expiring.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(DeadlineExceededException.class);
+        assertThat(batches).containsExactly(ids("1", "2"));
+    }
+
+    @Test
+    public void chargesTheFlushCostToEachRequest() throws Exception {
+        start(2, Duration.ofMillis(200), entities -> {
+            QueryCostContext.request(Context.current()).ifPresent(cost -> cost.charge(0, 5, 0, 0, 0, 0));
+            return saveAll(entities);
+        });
+
+        QueryCost firstCost = new QueryCost();
+        QueryCost secondCost = new QueryCost();
+        CompletableFuture<Versioned<Post>> first = submitWithin(firstCost, post("1"));
+        CompletableFuture<Versioned<Post>> second = submitWithin(secondCost, post("2"));
+
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertThat(firstCost.getWriteOps() + secondCost.getWriteOps()).isEqualTo(5);
+        assertThat(firstCost.getWriteOps()).isEqualTo(3);
+    }
+
+    @Test
+    public void failsAllTheSavesOfAFailedFlush() {
+        start(2, Duration.ofMillis(200), entities -> {
+            CompletableFuture<List<Versioned<Post>>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("Transaction aborted"));
+            return failed;
+        });
+
+        CompletableFuture<Versioned<Post>> first = committer.submit(post("1"));
+        CompletableFuture<Versioned<Post>> second = committer.submit(post("2"));
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void rejectsSavesBeyondTheMaxQueued() {
+        FaunaRepositoryProperties.GroupCommit settings = new FaunaRepositoryProperties.GroupCommit();
+        settings.setMaxQueued(1);
+        committer = new GroupCommitter<>("posts", this::saveAll, settings);
+
+        committer.submit(post("1"));
+        CompletableFuture<Versioned<Post>> rejected = committer.submit(post("2"));
+
+        assertThat(rejected).hasFailedWithThrowableThat().isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private void start(int maxBatchSize, Duration maxLinger, Function<List<Post>, CompletableFuture<List<Versioned<Post>>>> flushFunction) {
+        FaunaRepositoryProperties.GroupCommit settings = new FaunaRepositoryProperties.GroupCommit();
+        settings.setMaxBatchSize(maxBatchSize);
+        settings.setMaxLinger(maxLinger);
+        committer = new GroupCommitter<>("posts", flushFunction, settings);
+        committer.start();
+    }
+
+    private CompletableFuture<List<Versioned<Post>>> saveAll(List<Post> posts) {
+        batches.add(posts.stream().map(Post::getId).collect(Collectors.toList()));
+        DeadlineContext.get().ifPresent(deadlines::add);
+        return CompletableFuture.completedFuture(posts.stream().map(post -> new Versioned<>(post, 1L)).collect(Collectors.toList()));
+    }
+
+    private CompletableFuture<Versioned<Post>> submitWithin(Deadline deadline, Post post) {
+        DeadlineContext.set(deadline);
+        try {
+            return committer.submit(post);
+        } finally {
+            DeadlineContext.clear();
+        }
+    }
+
+    private CompletableFuture<Versioned<Post>> submitWithin(QueryCost cost, Post post) {
+        try(Scope ignored = QueryCostContext.withRequest(Context.current(), cost).makeCurrent()) {
+            return committer.submit(post);
+        }
+    }
+
+    private static Post post(String id) {
+        return new Post(id, "Post " + id, Collections.singletonList("tag"));
+    }
+
+    private static List<String> ids(String... ids) {
+        return Arrays.asList(ids);
+    }
+}
@@ -0,0 +1,77 @@
+package com.faunadb.persistence.common;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdempotencyKeyCacheTest {
+
+    private final AtomicInteger writes = new AtomicInteger();
+
+    @Test
+    public void answersReplaysWithTheFirstResult() {
+        IdempotencyKeyCache<String> cache = new IdempotencyKeyCache<>(60_000, 10);
+
+        CompletableFuture<String> first = cache.computeIfAbsent("key", "hash", () -> write("created"));
+        CompletableFuture<String> replay = cache.computeIfAbsent("key", "hash", () -> write("created again"));
+
+        assertThat(first).isCompletedWithValue("created");
+        assertThat(replay).isCompletedWithValue("created");
+        assertThat(writes).hasValue(1);
+    }
+
+    @Test
+    public void joinsWritesStillInFlight() {
+        IdempotencyKeyCache<String> cache = new IdempotencyKeyCache<>(60_000, 10);
+        CompletableFuture<String> inFlight = new CompletableFuture<>();
+
+        CompletableFuture<String> first = cache.computeIfAbsent("key", "hash", () -> inFlight);
+        CompletableFuture<String> replay = cache.computeIfAbsent("key", "hash", () -> write("created again"));
+        inFlight.complete("created");
+
+        assertThat(first).isCompletedWithValue("created");
+        assertThat(replay).isCompletedWithValue("created");
+        assertThat(writes).hasValue(0);
+    }
+
+    @Test
+    public void rejectsReplaysWithAnotherFingerprint() {
+        IdempotencyKeyCache<String> cache = new IdempotencyKeyCache<>(60_000, 10);
+
+        cache.computeIfAbsent("key", "hash", () -> write("created"));
+        CompletableFuture<String> reused = cache.computeIfAbsent("key", "other hash", () -> write("created again"));
+
+        assertThat(reused).hasFailedWithThrowableThat().isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(writes).hasValue(1);
+    }
+
+    @Test
+    public void retriesFailedWrites() {
+        IdempotencyKeyCache<String> cache = new IdempotencyKeyCache<>(60_000, 10);
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("Unavailable"));
+
+        cache.computeIfAbsent("key", "hash", () -> failed);
+        CompletableFuture<String> retry = cache.computeIfAbsent("key", "other hash", () -> write("created"));
+
+        assertThat(retry).isCompletedWithValue("created");
+    }
+
+    @Test
+    public void writesAgainOnceExpired() {
+        IdempotencyKeyCache<String> cache = new IdempotencyKeyCache<>(-1, 10);
+
+        cache.computeIfAbsent("key", "hash", () -> write("created"));
+        cache.computeIfAbsent("key", "hash", () -> write("looked up"));
+
+        assertThat(writes).hasValue(2);
+    }
+
+    private CompletableFuture<String> write(String result) {
+        writes.incrementAndGet();
+        return CompletableFuture.completedFuture(result);
+    }
+}
@@ -0,0 +1,80 @@
+package com.faunadb.persistence.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryCostRegistryTest {
+
+    private FaunaRepositoryProperties properties;
+    private QueryCostRegistry costRegistry;
+    private MeterRegistry registry;
+
+    @Before
+    public void setUp() {
+        properties = new FaunaRepositoryProperties();
+        costRegistry = new QueryCostRegistry();
+        ReflectionTestUtils.setField(costRegistry, "repositoryProperties", properties);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void chargesQueriesToTheOperationAndToTheEndpoint() {
+        QueryCost save = costRegistry.operation("posts", "save");
+        QueryCost endpoint = costRegistry.endpoint("POST", "/posts");
+
+        new QueryCost(save, endpoint).charge(3, 1, 1, 7, 120, 64);
+        new QueryCost(costRegistry.operation("posts", "save"), endpoint).charge(3, 1, 1, 7, 120, 64);
+        new QueryCost(costRegistry.operation("posts", "nextId"), endpoint).charge(0, 0, 1, 7, 0, 0);
+
+        assertThat(save.getQueries()).isEqualTo(2);
+        assertThat(save.getReadOps()).isEqualTo(6);
+        assertThat(save.getStorageBytesWrite()).isEqualTo(128);
+        assertThat(endpoint.getQueries()).isEqualTo(3);
+        assertThat(endpoint.getComputeOps()).isEqualTo(3);
+        assertThat(endpoint.getQueryTime()).isEqualTo(21);
+    }
+
+    @Test
+    public void keepsTheCostsByClassAndOperation() {
+        costRegistry.operation("posts", "save").count();
+        costRegistry.operation("posts", "findAll").count();
+        costRegistry.operation("authors", "save").count();
+        costRegistry.endpoint("GET", "/posts/{id}").count();
+        costRegistry.endpoint("GET", "/posts/{id}").count();
+
+        Map<String, Map<String, QueryCost>> operations = costRegistry.getOperations();
+        assertThat(operations).containsOnlyKeys("authors", "posts");
+        assertThat(operations.get("posts")).containsOnlyKeys("findAll", "save");
+        assertThat(operations.get("posts").get("save")).isNotSameAs(operations.get("authors").get("save"));
+        assertThat(costRegistry.getEndpoints()).containsOnlyKeys("GET /posts/{id}");
+        assertThat(costRegistry.getEndpoints().get("GET /posts/{id}").getCalls()).isEqualTo(2);
+    }
+
+    @Test
+    public void publishesTheCostsCreatedBeforeAndAfterBinding() {
+        costRegistry.operation("posts", "save").charge(3, 1, 0, 7, 0, 0);
+        costRegistry.bindTo(registry);
+        costRegistry.endpoint("POST", "/posts").charge(2, 0, 0, 5, 0, 0);
+
+        assertThat(registry.get("fauna.repository.cost.read.ops").tag("class", "posts").tag("operation", "save").functionCounter().count())
+            .isEqualTo(3);
+        assertThat(registry.get("fauna.endpoint.cost.query.time").tag("method", "POST").tag("uri", "/posts").functionCounter().count())
+            .isEqualTo(5);
+    }
+
+    @Test
+    public void followsTheCostSwitch() {
+        assertThat(costRegistry.isEnabled()).isTrue();
+
+        properties.getCost().setEnabled(false);
+
+        assertThat(costRegistry.isEnabled()).isFalse();
+    }
+}
@@ -0,0 +1,177 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.model.Post;
+import com.faunadb.model.common.Page;
+import com.faunadb.model.common.Versioned;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ScanUpdateJobTest {
+
+    @Rule
+    public TemporaryFolder checkpoints = new TemporaryFolder();
+
+    private FaunaRepository<Post> repository;
+    private FaunaRepositoryProperties.Jobs settings;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        repository = mock(FaunaRepository.class);
+        when(repository.findSplitPoint(any(), anyInt())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        settings = new FaunaRepositoryProperties.Jobs();
+        settings.setParallelism(1);
+        settings.setChunkSize(2);
+        settings.setMaxConflictRetries(1);
+        settings.setCheckpointDirectory(checkpoints.getRoot().getPath());
+    }
+
+    @Test
+    public void transformsAgainTheEntitiesModifiedMeanwhile() throws Exception {
+        when(repository.findRange(Optional.empty(), Optional.empty(), 2))
+            .thenReturn(page(Optional.empty(), post("1", 1, "A"), post("2", 1, "B")));
+        when(repository.saveAllIfMatch(any()))
+            .thenReturn(saved(true, false))
+            .thenReturn(saved(true));
+        when(repository.findVersioned("2")).thenReturn(CompletableFuture.completedFuture(Optional.of(post("2", 5, "C"))));
+
+        ScanJobProgress progress = run(newJob());
+
+        assertThat(progress.getState()).isEqualTo(ScanJobProgress.State.COMPLETED);
+        assertThat(progress.getUpdated()).isEqualTo(2);
+        assertThat(progress.getSkipped()).isZero();
+
+        List<List<Versioned<Post>>> writes = writes(2);
+        assertThat(writes.get(1)).extracting(Versioned::getVersion).containsExactly(5L);
+        assertThat(writes.get(1).get(0).getEntity().get().getTags()).containsExactly("c");
+    }
+
+    @Test
+    public void skipsEntitiesStillModifiedAfterTheMaxRetries() throws Exception {
+        when(repository.findRange(Optional.empty(), Optional.empty(), 2))
+            .thenReturn(page(Optional.empty(), post("1", 1, "A")));
+        when(repository.saveAllIfMatch(any())).thenReturn(saved(false));
+        when(repository.findVersioned("1")).thenReturn(CompletableFuture.completedFuture(Optional.of(post("1", 2, "A"))));
+
+        ScanJobProgress progress = run(newJob());
+
+        assertThat(progress.getUpdated()).isZero();
+        assertThat(progress.getSkipped()).isEqualTo(1);
+        writes(settings.getMaxConflictRetries() + 1);
+    }
+
+    @Test
+    public void leavesEntitiesNeedingNoChangeAsTheyAre() throws Exception {
+        when(repository.findRange(Optional.empty(), Optional.empty(), 2))
+            .thenReturn(page(Optional.empty(), post("1", 1, "a")));
+
+        ScanJobProgress progress = run(newJob());
+
+        assertThat(progress.getScanned()).isEqualTo(1);
+        assertThat(progress.getUpdated()).isZero();
+        verify(repository, never()).saveAllIfMatch(any());
+    }
+
+    @Test
+    public void resumesFromTheLastCheckpoint() throws Exception {
+        CompletableFuture<Page<Versioned<Post>>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("Unavailable"));
+        when(repository.findRange(Optional.empty(), Optional.empty(), 2))
+            .thenReturn(page(Optional.of("3"), post("1", 1, "A"), post("2", 1, "b")));
+        when(repository.findRange(Optional.of("3"), Optional.empty(), 2))
+            .thenReturn(failed)
+            .thenReturn(page(Optional.empty(), post("3", 1, "C")));
+        when(repository.saveAllIfMatch(any())).thenAnswer(invocation -> saved(true));
+
+        ScanJobProgress failure = run(newJob());
+
+        assertThat(failure.getState()).isEqualTo(ScanJobProgress.State.FAILED);
+        assertThat(failure.getScanned()).isEqualTo(2);
+
+        // As if restarted, the progress is only known from the checkpoint
+        ScanUpdateJob<Post> restarted = newJob();
+        assertThat(restarted.getProgress().getState()).isEqualTo(ScanJobProgress.State.STOPPED);
+        ScanJobProgress progress = run(restarted);
+
+        assertThat(progress.getState()).isEqualTo(ScanJobProgress.State.COMPLETED);
+        assertThat(progress.getScanned()).isEqualTo(3);
+        assertThat(progress.getUpdated()).isEqualTo(2);
+        verify(repository, times(1)).findSplitPoint(any(), anyInt());
+        verify(repository, times(1)).findRange(Optional.empty(), Optional.empty(), 2);
+    }
+
+    @Test
+    public void startsOverOnceCompleted() throws Exception {
+        when(repository.findRange(Optional.empty(), Optional.empty(), 2))
+            .thenReturn(page(Optional.empty(), post("1", 1, "a")));
+
+        run(newJob());
+        ScanJobProgress progress = run(newJob());
+
+        assertThat(progress.getScanned()).isEqualTo(1);
+        verify(repository, times(2)).findSplitPoint(any(), anyInt());
+    }
+
+    private ScanUpdateJob<Post> newJob() {
+        return new ScanUpdateJob<>("lowercase-tags", repository, ScanUpdateJobTest::lowercaseTags, settings);
+    }
+
+    private static ScanJobProgress run(ScanUpdateJob<Post> job) throws InterruptedException {
+        job.start();
+
+        long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while(job.isRunning() && System.nanoTime() < timeout) Thread.sleep(10);
+
+        assertThat(job.isRunning()).isFalse();
+        return job.getProgress();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Versioned<Post>>> writes(int count) {
+        ArgumentCaptor<List<Versioned<Post>>> writes = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(count)).saveAllIfMatch(writes.capture());
+        return writes.getAllValues();
+    }
+
+    private static Optional<Post> lowercaseTags(Post post) {
+        List<String> tags = post.getTags().stream().map(String::toLowerCase).collect(Collectors.toList());
+        return tags.equals(post.getTags()) ? Optional.empty() : Optional.of(new Post(post.getId(), post.getTitle(), tags));
+    }
+
+    private static Versioned<Post> post(String id, long version, String tag) {
+        return new Versioned<>(new Post(id, "Post " + id, Collections.singletonList(tag)), version);
+    }
+
+    @SafeVarargs
+    private static CompletableFuture<Page<Versioned<Post>>> page(Optional<String> after, Versioned<Post>... posts) {
+        return CompletableFuture.completedFuture(new Page<>(Arrays.asList(posts), Optional.empty(), after));
+    }
+
+    private static CompletableFuture<List<Optional<Versioned<Post>>>> saved(Boolean... written) {
+        return CompletableFuture.completedFuture(
+            Arrays.stream(written)
+                .map(ok -> ok ? Optional.of(post("x", 10, "x")) : Optional.<Versioned<Post>>empty())
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,138 @@
+package com.faunadb.persistence.common;
+
+import com.faunadb.client.FaunaClient;
+import com.faunadb.client.query.Expr;
+import com.faunadb.client.types.Value;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.faunadb.client.query.Language.Value;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TenantFaunaClientTest {
+
+    private static final Value ONE = new Value.LongV(1);
+    private static final Value TWO = new Value.LongV(2);
+
+    private FaunaClient faunaClient;
+    private CompletableFuture<Value> first;
+    private CompletableFuture<Value> second;
+
+    @Before
+    public void setUp() {
+        faunaClient = mock(FaunaClient.class);
+        first = new CompletableFuture<>();
+        second = new CompletableFuture<>();
+        when(faunaClient.query(any(Expr.class))).thenReturn(first, second);
+    }
+
+    @After
+    public void tearDown() {
+        FaunaTenantContext.clear();
+    }
+
+    @Test
+    public void sendsQueriesWithFreeSlotsWithoutQueueingThem() {
+        TenantFaunaClient client = new TenantFaunaClient(faunaClient, "secret", 1, 0);
+
+        CompletableFuture<Value> result = client.query(Value(1));
+
+        assertThat(result).isNotDone();
+        assertThat(client.getRunningQueries()).isEqualTo(1);
+        assertThat(client.getQueuedQueries()).isZero();
+        verify(faunaClient).query(any(Expr.class));
+    }
+
+    @Test
+    public void rejectsQueriesFindingNoFreeSlotWhenNoneMayBeQueued() {
+        TenantFaunaClient client = new TenantFaunaClient(faunaClient, "secret", 1, 0);
+
+        client.query(Value(1));
+        CompletableFuture<Value> rejected = client.query(Value(2));
+
+        assertThat(rejected).hasFailedWithThrowableThat().isInstanceOf(RejectedExecutionException.class);
+        assertThat(client.getQueuedQueries()).isZero();
+
+        first.complete(ONE);
+        CompletableFuture<Value> accepted = client.query(Value(3));
+
+        assertThat(accepted).isNotDone();
+        verify(faunaClient, times(2)).query(any(Expr.class));
+    }
+
+    @Test
+    public void sendsQueuedQueriesOnceSlotsAreFreed() {
+        TenantFaunaClient client = new TenantFaunaClient(faunaClient, "secret", 1, 1);
+
+        CompletableFuture<Value> running = client.query(Value(1));
+        CompletableFuture<Value> queued = client.query(Value(2));
+
+        assertThat(client.getQueuedQueries()).isEqualTo(1);
+        verify(faunaClient, times(1)).query(any(Expr.class));
+
+        first.complete(ONE);
+
+        assertThat(running).isCompletedWithValue(ONE);
+        assertThat(client.getQueuedQueries()).isZero();
+        assertThat(client.getRunningQueries()).isEqualTo(1);
+        verify(faunaClient, times(2)).query(any(Expr.class));
+
+        second.complete(TWO);
+
+        assertThat(queued).isCompletedWithValue(TWO);
+    }
+
+    @Test
+    public void skipsQueuedQueriesFailedMeanwhile() {
+        TenantFaunaClient client = new TenantFaunaClient(faunaClient, "secret", 1, 1);
+
+        client.query(Value(1));
+        CompletableFuture<Value> queued = client.query(Value(2));
+        queued.completeExceptionally(new DeadlineExceededException("Request cancelled"));
+        first.complete(ONE);
+
+        verify(faunaClient, times(1)).query(any(Expr.class));
+        assertThat(client.getRunningQueries()).isZero();
+    }
+
+    @Test
+    public void rejectsQueriesOnceClosedAndClosesWhenIdle() {
+        TenantFaunaClient client = new TenantFaunaClient(faunaClient, "secret", 1, 1);
+
+        CompletableFuture<Value> accepted = client.query(Value(1));
+        client.close();
+        CompletableFuture<Value> rejected = client.query(Value(2));
+
+        assertThat(rejected).hasFailedWithThrowableThat().isInstanceOf(RejectedExecutionException.class);
+        verify(faunaClient, never()).close();
+
+        first.complete(ONE);
+
+        assertThat(accepted).isCompletedWithValue(ONE);
+        verify(faunaClient).close();
+    }
+
+    @Test
+    public void restoresTheTenantSecretOnCompletion() {
+        TenantFaunaClient client = new TenantFaunaClient(faunaClient, "secret", 1, 0);
+        AtomicReference<Optional<String>> secret = new AtomicReference<>();
+
+        client.query(Value(1)).thenRun(() -> secret.set(FaunaTenantContext.getSecret()));
+        first.complete(ONE);
+
+        assertThat(secret.get()).contains("secret");
+        assertThat(FaunaTenantContext.getSecret()).isEmpty();
+    }
+}
@@ -0,0 +1,77 @@
+package com.faunadb.rest;
+
+import com.faunadb.model.CreateReplacePostData;
+import com.faunadb.model.Post;
+import com.faunadb.model.common.Versioned;
+import com.faunadb.persistence.common.VersionConflictException;
+import com.faunadb.rest.common.ETags;
+import com.faunadb.services.PostService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PostControllerTest {
+
+    private static final CreateReplacePostData DATA = new CreateReplacePostData("title", Collections.singletonList("tag"));
+
+    private PostService postService;
+    private PostController controller;
+
+    @Before
+    public void setUp() {
+        postService = mock(PostService.class);
+        controller = new PostController();
+        ReflectionTestUtils.setField(controller, "postService", postService);
+    }
+
+    @Test
+    public void replacesPostsMatchingAnyOfTheEntityTags() {
+        when(postService.replacePostIfMatch(eq("1"), any(), anyList()))
+            .thenReturn(CompletableFuture.completedFuture(Optional.of(new Versioned<>(new Post("1", "title", DATA.getTags()), 30L))));
+
+        ResponseEntity response = controller.replacePost("1", Optional.of("\"10\", W/\"15\", \"20\""), DATA).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo(ETags.of(30));
+        verify(postService).replacePostIfMatch("1", DATA, Arrays.asList(10L, 20L));
+    }
+
+    @Test
+    public void rejectsReplacementsMatchingNoneOfTheEntityTags() {
+        CompletableFuture<Optional<Versioned<Post>>> conflict = new CompletableFuture<>();
+        conflict.completeExceptionally(new VersionConflictException("1", 30L));
+        when(postService.replacePostIfMatch(eq("1"), any(), anyList())).thenReturn(conflict);
+
+        ResponseEntity response = controller.replacePost("1", Optional.of("\"10\", \"20\""), DATA).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(response.getHeaders().getETag()).isEqualTo(ETags.of(30));
+    }
+
+    @Test
+    public void replacesPostsConditionallyEvenWithOnlyWeakEntityTags() {
+        CompletableFuture<Optional<Versioned<Post>>> conflict = new CompletableFuture<>();
+        conflict.completeExceptionally(new VersionConflictException("1", 30L));
+        when(postService.replacePostIfMatch(eq("1"), any(), anyList())).thenReturn(conflict);
+
+        ResponseEntity response = controller.replacePost("1", Optional.of("W/\"30\""), DATA).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        verify(postService).replacePostIfMatch("1", DATA, Collections.<Long>emptyList());
+    }
+}
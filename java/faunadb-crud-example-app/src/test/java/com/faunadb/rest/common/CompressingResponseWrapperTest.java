@@ -0,0 +1,157 @@
+package com.faunadb.rest.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.servlet.ServletOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompressingResponseWrapperTest {
+
+    private CompressionFilter filter;
+    private MeterRegistry registry;
+    private MockHttpServletResponse response;
+
+    @Before
+    public void setUp() {
+        CompressionProperties properties = new CompressionProperties();
+        properties.setMinResponseSize(DataSize.ofBytes(1024));
+        properties.getCache().setMaxEntrySize(DataSize.ofBytes(4096));
+
+        filter = new CompressionFilter();
+        ReflectionTestUtils.setField(filter, "properties", properties);
+        filter.init();
+        registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void leavesBodiesUnderTheMinSizeUncompressed() throws IOException {
+        byte[] body = body(512);
+
+        CompressingResponseWrapper compressing = write("application/json", body);
+        compressing.finish();
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentLengthLong()).isEqualTo(body.length);
+        assertThat(response.getContentAsByteArray()).isEqualTo(body);
+        assertThat(responses("skipped")).isEqualTo(1);
+    }
+
+    @Test
+    public void leavesOtherContentTypesUncompressed() throws IOException {
+        byte[] body = body(2048);
+
+        CompressingResponseWrapper compressing = new CompressingResponseWrapper(response, filter, true);
+        compressing.setContentType("image/png");
+        compressing.setContentLength(body.length);
+        compressing.getOutputStream().write(body);
+        compressing.finish();
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentLengthLong()).isEqualTo(body.length);
+        assertThat(response.getContentAsByteArray()).isEqualTo(body);
+    }
+
+    @Test
+    public void compressesBufferedBodiesAsAWhole() throws IOException {
+        byte[] body = body(2048);
+
+        CompressingResponseWrapper compressing = write("application/json", body);
+
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getContentAsByteArray()).isEmpty();
+
+        compressing.finish();
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo(CompressionFilter.GZIP);
+        assertThat(response.getContentLengthLong()).isEqualTo(response.getContentAsByteArray().length);
+        assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(body);
+        assertThat(responses("compressed")).isEqualTo(1);
+    }
+
+    @Test
+    public void reusesCompressedBodiesFromTheCache() throws IOException {
+        byte[] body = body(2048);
+
+        write("application/json", body).finish();
+        byte[] compressed = response.getContentAsByteArray();
+        response = new MockHttpServletResponse();
+        write("application/json", body).finish();
+
+        assertThat(response.getContentAsByteArray()).isEqualTo(compressed);
+        assertThat(responses("compressed")).isEqualTo(1);
+        assertThat(responses("cached")).isEqualTo(1);
+    }
+
+    @Test
+    public void streamsBodiesLargerThanTheBuffer() throws IOException {
+        byte[] body = body(64 * 1024);
+
+        CompressingResponseWrapper compressing = new CompressingResponseWrapper(response, filter, true);
+        compressing.setContentType("application/json");
+        compressing.setContentLength(body.length);
+        ServletOutputStream out = compressing.getOutputStream();
+        for(int off = 0; off < body.length; off += 1000) {
+            out.write(body, off, Math.min(1000, body.length - off));
+        }
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo(CompressionFilter.GZIP);
+
+        compressing.finish();
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_LENGTH)).isNull();
+        assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(body);
+        assertThat(responses("streamed")).isEqualTo(1);
+    }
+
+    @Test
+    public void leavesErrorsUncompressed() throws IOException {
+        CompressingResponseWrapper compressing = new CompressingResponseWrapper(response, filter, true);
+        compressing.setContentType("application/json");
+        compressing.setStatus(404);
+        compressing.getOutputStream().write(body(2048));
+        compressing.finish();
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsByteArray()).hasSize(2048);
+    }
+
+    private CompressingResponseWrapper write(String contentType, byte[] body) throws IOException {
+        CompressingResponseWrapper compressing = new CompressingResponseWrapper(response, filter, true);
+        compressing.setContentType(contentType);
+        compressing.getOutputStream().write(body);
+        return compressing;
+    }
+
+    private double responses(String outcome) {
+        return registry.get("compression.responses").tag("outcome", outcome).counter().count();
+    }
+
+    private static byte[] body(int size) {
+        byte[] body = new byte[size];
+        Arrays.fill(body, (byte) 'a');
+        for(int i = 0; i < size; i += 7) body[i] = (byte) ('0' + i % 10);
+        return body;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+}
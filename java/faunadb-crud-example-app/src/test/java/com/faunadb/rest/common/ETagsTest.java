@@ -0,0 +1,37 @@
+package com.faunadb.rest.common;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ETagsTest {
+
+    @Test
+    public void buildsStrongTagsFromVersions() {
+        assertThat(ETags.of(1551987105592472L)).isEqualTo("\"1551987105592472\"");
+        assertThat(ETags.lastModified(1551987105592472L)).isEqualTo(1551987105592L);
+    }
+
+    @Test
+    public void parsesSeveralTagsAndIgnoresForeignOnes() {
+        assertThat(ETags.parseWeak("\"1\", \"abc\", 2, \"3\"")).containsExactly(1L, 3L);
+    }
+
+    @Test
+    public void ignoresWeakTagsForStrongComparison() {
+        assertThat(ETags.parseStrong("W/\"1\", \"2\"")).containsExactly(2L);
+        assertThat(ETags.parseStrong("W/\"1\"")).isEmpty();
+    }
+
+    @Test
+    public void takesWeakTagsForWeakComparison() {
+        assertThat(ETags.parseWeak("W/\"1\", \"2\"")).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void recognizesTheWildcard() {
+        assertThat(ETags.isWildcard(" * ")).isTrue();
+        assertThat(ETags.isWildcard("\"*\"")).isFalse();
+        assertThat(ETags.parseStrong("*")).isEmpty();
+    }
+}
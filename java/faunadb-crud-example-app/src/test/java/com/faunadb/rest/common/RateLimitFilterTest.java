@@ -0,0 +1,77 @@
+package com.faunadb.rest.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitFilterTest {
+
+    private RateLimitProperties properties;
+    private RateLimitFilter filter;
+    private MeterRegistry registry;
+
+    @Before
+    public void setUp() {
+        properties = new RateLimitProperties();
+        properties.setEnabled(true);
+        properties.setPerIp(new RateLimitProperties.Limit(2, 1));
+
+        filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "properties", properties);
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        filter.init();
+        registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+    }
+
+    @After
+    public void tearDown() {
+        filter.stop();
+    }
+
+    @Test
+    public void countsTheRequestsAllowedAndLimitedByIpAddress() throws IOException, ServletException {
+        assertThat(get("first secret").getStatus()).isEqualTo(200);
+        assertThat(get("second secret").getStatus()).isEqualTo(200);
+        assertThat(get("third secret").getStatus()).isEqualTo(429);
+
+        assertThat(requests("per_ip", "allowed")).isEqualTo(2);
+        assertThat(requests("per_ip", "limited")).isEqualTo(1);
+        assertThat(requests("reads", "allowed")).isEqualTo(2);
+    }
+
+    @Test
+    public void limitsRequestsWithNoClientHeaderByIpAddressOnlyOnce() throws IOException, ServletException {
+        for(int i = 0; i < 3; i++) {
+            assertThat(get(null).getStatus()).isEqualTo(200);
+        }
+
+        assertThat(requests("per_ip", "allowed")).isZero();
+        assertThat(requests("reads", "allowed")).isEqualTo(3);
+    }
+
+    private MockHttpServletResponse get(String secret) throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/posts");
+        if(secret != null) request.addHeader(properties.getClientHeader(), secret);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private double requests(String endpointClass, String outcome) {
+        return registry.get("rate-limit.requests").tag("class", endpointClass).tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,101 @@
+package com.faunadb.rest.common;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketsTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final TokenBuckets buckets = new TokenBuckets(2);
+
+    @Test
+    public void takesTokensUpToTheCapacity() {
+        for(int i = 0; i < 5; i++) {
+            assertThat(buckets.tryAcquire("client", "overflow", 5, 1, 1, 0)).isZero();
+        }
+
+        assertThat(buckets.tryAcquire("client", "overflow", 5, 1, 1, 0)).isEqualTo(SECOND);
+    }
+
+    @Test
+    public void refillsTokensOverTime() {
+        assertThat(buckets.tryAcquire("client", "overflow", 2, 2, 2, 0)).isZero();
+        assertThat(buckets.tryAcquire("client", "overflow", 2, 2, 1, SECOND / 4)).isEqualTo(SECOND / 4);
+        assertThat(buckets.tryAcquire("client", "overflow", 2, 2, 1, SECOND / 2)).isZero();
+    }
+
+    @Test
+    public void takesTokensByWeight() {
+        assertThat(buckets.tryAcquire("client", "overflow", 5, 1, 4, 0)).isZero();
+
+        assertThat(buckets.tryAcquire("client", "overflow", 5, 1, 2, 0)).isEqualTo(SECOND);
+        assertThat(buckets.tryAcquire("client", "overflow", 5, 1, 1, 0)).isZero();
+    }
+
+    @Test
+    public void neverGrantsRequestsHeavierThanTheCapacity() {
+        assertThat(buckets.tryAcquire("client", "overflow", 5, 1, 6, 0)).isEqualTo(TokenBuckets.NEVER);
+        assertThat(buckets.size()).isZero();
+    }
+
+    @Test
+    public void keepsBucketsApartByKey() {
+        assertThat(buckets.tryAcquire("client", "overflow", 1, 1, 1, 0)).isZero();
+
+        assertThat(buckets.tryAcquire("other client", "overflow", 1, 1, 1, 0)).isZero();
+        assertThat(buckets.tryAcquire("client", "overflow", 1, 1, 1, 0)).isPositive();
+    }
+
+    @Test
+    public void sharesTheOverflowBucketOfTheClassOnceFull() {
+        buckets.tryAcquire("first", "reads", 1, 1, 1, 0);
+        buckets.tryAcquire("second", "reads", 1, 1, 1, 0);
+
+        assertThat(buckets.tryAcquire("third", "reads", 1, 1, 1, 0)).isZero();
+        assertThat(buckets.tryAcquire("fourth", "reads", 1, 1, 1, 0)).isPositive();
+        assertThat(buckets.tryAcquire("fourth", "writes", 1, 1, 1, 0)).isZero();
+        assertThat(buckets.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void evictsBucketsFullForAWhile() {
+        buckets.tryAcquire("idle", "overflow", 1, 1, 1, 0);
+        buckets.tryAcquire("busy", "overflow", 1, 1, 1, 5 * SECOND);
+
+        buckets.evictIdle(2 * SECOND);
+
+        assertThat(buckets.size()).isEqualTo(1);
+        assertThat(buckets.tryAcquire("new", "overflow", 1, 1, 1, 5 * SECOND)).isZero();
+        assertThat(buckets.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void losesNoTokensTakenWhileEvicting() throws InterruptedException {
+        TokenBuckets buckets = new TokenBuckets(100_000);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread evictor = new Thread(() -> {
+            while(!done.get()) buckets.evictIdle(0);
+        });
+        evictor.start();
+
+        // Time stands still, hence new buckets are full, and no more than their capacity can ever be granted
+        int granted = 0;
+        try {
+            for(int i = 0; i < 50_000; i++) {
+                for(int j = 0; j < 3; j++) {
+                    if(buckets.tryAcquire("client " + i, "overflow", 2, 1, 1, 0) == 0) granted++;
+                }
+            }
+        } finally {
+            done.set(true);
+            evictor.join();
+        }
+
+        assertThat(granted).isEqualTo(2 * 50_000);
+    }
+}
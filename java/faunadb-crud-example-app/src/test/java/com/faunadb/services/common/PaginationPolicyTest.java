@@ -0,0 +1,129 @@
+package com.faunadb.services.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.faunadb.model.common.Page;
+import com.faunadb.model.common.PaginationOptions;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PaginationPolicyTest {
+
+    private static final String ELEMENT = new String(new char[98]).replace('\0', 'a');
+
+    private PaginationProperties properties;
+    private PaginationPolicy policy;
+
+    @Before
+    public void setUp() {
+        properties = new PaginationProperties();
+        properties.setMaxSize(100);
+        properties.setDefaultSize(16);
+        properties.setMinDefaultSize(4);
+        properties.setTargetLatency(Duration.ofMillis(50));
+        properties.setShrinkAfter(2);
+
+        policy = new PaginationPolicy();
+        ReflectionTestUtils.setField(policy, "properties", properties);
+        ReflectionTestUtils.setField(policy, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    public void capsTheSizeByTheMaxSize() {
+        assertThat(policy.limit("findAll", options(500)).getSize()).contains(100);
+        assertThat(policy.limit("findAll", options(0)).getSize()).contains(1);
+    }
+
+    @Test
+    public void capsTheSizeByTheElementsFittingInTheMaxPageBytes() {
+        properties.setMaxPageBytes(DataSize.ofBytes(1000));
+        paginate("findAll", options(1), 0);
+
+        // Each element serializes to 100 bytes, quoted
+        assertThat(policy.getElementBytes("findAll")).isEqualTo(100);
+        PaginationOptions limited = policy.limit("findAll", options(50));
+        assertThat(limited.getSize()).contains(10);
+        assertThat(policy.limit("search", options(50)).getSize()).contains(50);
+    }
+
+    @Test
+    public void shrinksTheDefaultSizeAfterSlowPagesInARow() {
+        paginate("findAll", defaulted(), 100);
+        assertThat(policy.getDefaultSize("findAll")).isEqualTo(16);
+
+        paginate("findAll", defaulted(), 100);
+        assertThat(policy.getDefaultSize("findAll")).isEqualTo(8);
+
+        // A Page in time in between starts the count over
+        paginate("findAll", defaulted(), 100);
+        policy.paginate("findAll", defaulted(), limited -> page(1, 0)).join();
+        paginate("findAll", defaulted(), 100);
+        assertThat(policy.getDefaultSize("findAll")).isEqualTo(8);
+
+        paginate("findAll", defaulted(), 100);
+        paginate("findAll", defaulted(), 100);
+        paginate("findAll", defaulted(), 100);
+        paginate("findAll", defaulted(), 100);
+        assertThat(policy.getDefaultSize("findAll")).isEqualTo(4);
+    }
+
+    @Test
+    public void growsTheDefaultSizeBackWhileFullPagesAreFast() {
+        paginate("findAll", defaulted(), 100);
+        paginate("findAll", defaulted(), 100);
+        assertThat(policy.getDefaultSize("findAll")).isEqualTo(8);
+
+        paginate("findAll", defaulted(), 0);
+        assertThat(policy.getDefaultSize("findAll")).isEqualTo(9);
+        paginate("findAll", defaulted(), 0);
+        assertThat(policy.getDefaultSize("findAll")).isEqualTo(10);
+
+        // Neither requested sizes nor short Pages tell how large Pages are retrieved in time
+        paginate("findAll", options(10), 0);
+        policy.paginate("findAll", defaulted(), limited -> page(1, 0)).join();
+        assertThat(policy.getDefaultSize("findAll")).isEqualTo(10);
+    }
+
+    @Test
+    public void adaptsTheDefaultSizeOfEachOperationApart() {
+        paginate("search", defaulted(), 100);
+        paginate("search", defaulted(), 100);
+
+        assertThat(policy.getDefaultSize("search")).isEqualTo(8);
+        assertThat(policy.getDefaultSize("findAll")).isEqualTo(16);
+        assertThat(policy.limit("findAll", defaulted()).getSize()).contains(16);
+    }
+
+    private void paginate(String operation, PaginationOptions po, long millis) {
+        Function<PaginationOptions, CompletableFuture<Page<String>>> retrieve = limited -> page(limited.getSize().get(), millis);
+        policy.paginate(operation, po, retrieve).join();
+    }
+
+    private static CompletableFuture<Page<String>> page(int size, long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<String> data = Collections.nCopies(size, ELEMENT);
+        return CompletableFuture.completedFuture(new Page<>(data, Optional.empty(), Optional.empty()));
+    }
+
+    private static PaginationOptions defaulted() {
+        return new PaginationOptions(Optional.empty(), Optional.empty(), Optional.empty());
+    }
+
+    private static PaginationOptions options(int size) {
+        return new PaginationOptions(Optional.of(size), Optional.empty(), Optional.empty());
+    }
+}